@@ -6,6 +6,8 @@ public class Admin extends User {
 
     private String adminName;
     private List<User> users;
+    // Username index over users; kept in step by addUser, deleteUser and saveUser
+    private UserDirectory directory;
 
     // Constructor
     public Admin(String username, String password, String adminName) {
@@ -13,11 +15,13 @@ public class Admin extends User {
         this.adminName = adminName;
         // Initialize empty users list (will be loaded separately)
         this.users = new ArrayList<>();
+        this.directory = new UserDirectory();
     }
 
     // Initializes user data from storage
     public void loadUserData() {
         this.users = DataManager.loadUsers();
+        this.directory = new UserDirectory(users);
     }
 
     public String getAdminName() {
@@ -26,6 +30,7 @@ public class Admin extends User {
 
     public void setAdminName(String adminName) {
         this.adminName = adminName;
+        markDirty();
     }
 
     // Admin Dashboard: Menu for Admin Operations
@@ -132,11 +137,9 @@ public class Admin extends User {
         String username = scanner.nextLine();
         
         // Check if username already exists
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("Username already exists. Please choose a different one.");
-                return;
-            }
+        if (directory.contains(username)) {
+            System.out.println("Username already exists. Please choose a different one.");
+            return;
         }
         
         System.out.print("Enter password: ");
@@ -156,11 +159,9 @@ public class Admin extends User {
         String username = scanner.nextLine();
         
         // Check if username already exists
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("Username already exists. Please choose a different one.");
-                return;
-            }
+        if (directory.contains(username)) {
+            System.out.println("Username already exists. Please choose a different one.");
+            return;
         }
         
         System.out.print("Enter password: ");
@@ -170,7 +171,7 @@ public class Admin extends User {
         
         // Show available courses for specialization
         CourseManager courseManager = new CourseManager();
-        ArrayList<Course> courses = courseManager.getCourses();
+        List<Course> courses = courseManager.getCourses();
         
         System.out.println("\nSelect specialization:");
         System.out.println("1. None");
@@ -210,11 +211,9 @@ public class Admin extends User {
         String username = scanner.nextLine();
         
         // Check if username already exists
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("Username already exists. Please choose a different one.");
-                return;
-            }
+        if (directory.contains(username)) {
+            System.out.println("Username already exists. Please choose a different one.");
+            return;
         }
         
         System.out.print("Enter password: ");
@@ -230,7 +229,7 @@ public class Admin extends User {
         
         if (enrollResponse.equals("y") || enrollResponse.equals("yes")) {
             CourseManager courseManager = new CourseManager();
-            ArrayList<Course> availableCourses = courseManager.getCourses();
+            List<Course> availableCourses = courseManager.getCourses();
             
             if (availableCourses.isEmpty()) {
                 System.out.println("No courses available for enrollment.");
@@ -313,27 +312,15 @@ public class Admin extends User {
         switch (choice) {
             case 1 -> {
                 userType = "Student";
-                for (User user : users) {
-                    if (user instanceof Student) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getStudents());
             }
             case 2 -> {
                 userType = "Instructor";
-                for (User user : users) {
-                    if (user instanceof Instructor) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getInstructors());
             }
             case 3 -> {
                 userType = "Admin";
-                for (User user : users) {
-                    if (user instanceof Admin) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getAdmins());
             }
             default -> {
                 System.out.println("Invalid choice.");
@@ -419,27 +406,15 @@ public class Admin extends User {
         switch (choice) {
             case 1 -> {
                 userType = "Student";
-                for (User user : users) {
-                    if (user instanceof Student) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getStudents());
             }
             case 2 -> {
                 userType = "Instructor";
-                for (User user : users) {
-                    if (user instanceof Instructor) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getInstructors());
             }
             case 3 -> {
                 userType = "Admin";
-                for (User user : users) {
-                    if (user instanceof Admin) {
-                        selectedUsers.add(user);
-                    }
-                }
+                selectedUsers.addAll(directory.getAdmins());
             }
             default -> {
                 System.out.println("Invalid choice.");
@@ -530,25 +505,25 @@ public class Admin extends User {
     // Add user to the system
     public void addUser(User user) {
         users.add(user);
+        directory.add(user);
         System.out.println(user.getUsername() + " added successfully.");
-        // Save users to file
-        saveUsers();
+        // Record the new user in the mutation log
+        saveUser(user);
     }
 
     // Delete user from the system
     public void deleteUser(String username) {
-        User userToDelete = null;
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                userToDelete = user;
-                break;
-            }
-        }
+        User userToDelete = directory.get(username);
         if (userToDelete != null) {
             users.remove(userToDelete);
+            directory.remove(userToDelete);
             System.out.println(username + " deleted successfully.");
-            // Save users to file
-            saveUsers();
+            // Record the deletion in the mutation log
+            if (DataManager.logUserDelete(userToDelete)) {
+                checkpointIfDue();
+            } else {
+                System.out.println("Failed to save user changes.");
+            }
         } else {
             System.out.println("User not found.");
         }
@@ -556,19 +531,17 @@ public class Admin extends User {
 
     // Update user details
     public void updateUser(String username, Scanner scanner) {
-        User userToUpdate = null;
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                userToUpdate = user;
-                break;
-            }
-        }
+        User userToUpdate = directory.get(username);
 
         if (userToUpdate != null) {
             System.out.println("Updating user: " + username);
             System.out.print("New Username: ");
             String newUsername = scanner.nextLine();
-            userToUpdate.setUsername(newUsername);
+            if (isUsernameTaken(newUsername, userToUpdate)) {
+                System.out.println("Username already exists. Keeping " + username + ".");
+            } else {
+                userToUpdate.setUsername(newUsername);
+            }
             System.out.print("New Password: ");
             String newPassword = scanner.nextLine();
             userToUpdate.setPassword(newPassword);
@@ -605,8 +578,8 @@ public class Admin extends User {
             }
 
             System.out.println("User updated successfully.");
-            // Save users to file
-            saveUsers();
+            // Save the changed user (and the rename, if any)
+            saveUser(userToUpdate, username);
         } else {
             System.out.println("User not found.");
         }
@@ -628,9 +601,9 @@ public class Admin extends User {
                 Student student = (Student) user;
                 // Combine courses and grades into a formatted string
                 StringBuilder coursesAndGrades = new StringBuilder();
-                ArrayList<String> courses = student.getCourses();
-                ArrayList<Float> numGrades = student.getNumericGrades();
-                ArrayList<String> letterGrades = student.getLetterGrades();
+                List<String> courses = student.getCourses();
+                List<Float> numGrades = student.getNumericGrades();
+                List<String> letterGrades = student.getLetterGrades();
 
                 for (int i = 0; i < courses.size(); i++) {
                     if (i > 0) {
@@ -659,13 +632,7 @@ public class Admin extends User {
         String studentUsername = scanner.nextLine();
 
         // Find the student
-        Student student = null;
-        for (User user : users) {
-            if (user instanceof Student && user.getUsername().equals(studentUsername)) {
-                student = (Student) user;
-                break;
-            }
-        }
+        Student student = directory.getStudent(studentUsername);
         
         if (student == null) {
             System.out.println("Student with that username not found.");
@@ -673,7 +640,7 @@ public class Admin extends User {
         }
         
         // Display the student's courses
-        ArrayList<String> studentCourses = student.getCourses();
+        List<String> studentCourses = student.getCourses();
         if (studentCourses.isEmpty()) {
             System.out.println("This student has no registered courses.");
             return;
@@ -748,7 +715,7 @@ public class Admin extends User {
         saveGradeToFile(student.getStudentName(), studentUsername, courseName, numericGrade, letterGrade);
         
         // Save user updates
-        saveUsers();
+        saveUser(student);
         
         System.out.println("Grades successfully updated for " + courseName + ".");
     }
@@ -769,27 +736,25 @@ public class Admin extends User {
     }
 
     public void display_Instructor_Schedule(String instructorUsername) {
-        for (User user : users) {
-            if (user instanceof Instructor && user.getUsername().equals(instructorUsername)) {
-                Instructor instructor = (Instructor) user;
-                List<Course> courses = instructor.getAssignedCourse();
+        Instructor instructor = directory.getInstructor(instructorUsername);
+        if (instructor != null) {
+            List<Course> courses = instructor.getAssignedCourse();
 
-                if (courses.isEmpty()) {
-                    System.out.println("No courses assigned to instructor: " + instructorUsername);
-                    return;
-                }
+            if (courses.isEmpty()) {
+                System.out.println("No courses assigned to instructor: " + instructorUsername);
+                return;
+            }
 
-                System.out.println("Schedule for Instructor: " + instructor.getInstructorName());
-                System.out.printf("%-25s %-15s %-20s\n", "Course Name", "Room", "Days");
+            System.out.println("Schedule for Instructor: " + instructor.getInstructorName());
+            System.out.printf("%-25s %-15s %-20s\n", "Course Name", "Room", "Days");
 
-                for (Course course : courses) {
-                    System.out.printf("%-25s %-15s %-20s\n",
-                            course.getName(), // Fixed: Changed 'getCourseName()' to 'getName()'
-                            course.getRoom(),
-                            "[Days TBD]"); // Fixed: 'getDaysOfCourse()' not defined; placeholder added
-                }
-                return;
+            for (Course course : courses) {
+                System.out.printf("%-25s %-15s %-20s\n",
+                        course.getName(), // Fixed: Changed 'getCourseName()' to 'getName()'
+                        course.getRoom(),
+                        "[Days TBD]"); // Fixed: 'getDaysOfCourse()' not defined; placeholder added
             }
+            return;
         }
 
         System.out.println("Instructor with username '" + instructorUsername + "' not found.");
@@ -804,8 +769,53 @@ public class Admin extends User {
         }
     }
 
+    // Saves a single added or changed user by appending it to the mutation log
+    public void saveUser(User user) {
+        if (DataManager.logUserUpdate(user)) {
+            checkpointIfDue();
+        } else {
+            System.out.println("Failed to save user changes.");
+        }
+    }
+
+    // Saves a changed user whose username may have been changed from previousUsername.
+    // A new username that another user already has is refused and the old one restored.
+    public boolean saveUser(User user, String previousUsername) {
+        if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+            if (!directory.rename(previousUsername, user)) {
+                System.out.println("Username already exists: " + user.getUsername());
+                user.setUsername(previousUsername);
+                return false;
+            }
+            if (!DataManager.logUserRename(previousUsername, user.getUsername())) {
+                System.out.println("Failed to save user changes.");
+                return false;
+            }
+        }
+        saveUser(user);
+        return true;
+    }
+
+    // Checks whether a username belongs to a user other than the given one
+    public boolean isUsernameTaken(String username, User user) {
+        User existing = directory.get(username);
+        return existing != null && existing != user;
+    }
+
+    // Writes a full snapshot once enough changes have been logged
+    private void checkpointIfDue() {
+        if (DataManager.isUserLogCheckpointDue()) {
+            saveUsers();
+        }
+    }
+
     // Get users list
     public List<User> getUsers() {
         return users;
     }
+
+    // Get the username index of the users list
+    public UserDirectory getUserDirectory() {
+        return directory;
+    }
 }
\ No newline at end of file
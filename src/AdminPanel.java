@@ -1,7 +1,5 @@
 import java.awt.*;
-import java.io.*;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.List;
 import javax.swing.*;
@@ -42,12 +40,19 @@ public class AdminPanel extends JPanel {
     private JPanel assignPanel;
     private JComboBox<String> instructorCombo;
     private JComboBox<String> courseCombo;
+    // Type-ahead models: list the top matches of the typed text instead of every entry
+    private final AutocompleteComboBoxModel instructorComboModel = new AutocompleteComboBoxModel(50);
+    private final AutocompleteComboBoxModel courseComboModel = new AutocompleteComboBoxModel(50);
     private JButton assignButton;
     
     // Feedbacks tab components
     private JPanel feedbacksPanel;
     private JTable feedbacksTable;
     private JTextArea feedbackDetailsArea;
+    private JTextField feedbackQueryField;
+    private JTextField feedbackCourseField;
+    private JTextField feedbackInstructorField;
+    private List<FeedbackRecord> displayedFeedbacks = new ArrayList<>();
     
     // Reports tab components
     private JPanel upcomingCoursesPanel;
@@ -172,8 +177,9 @@ public class AdminPanel extends JPanel {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = coursesTable.getSelectedRow();
                 if (selectedRow >= 0) {
-                    String instructors = (String) coursesTable.getValueAt(selectedRow, 1);
                     String courseName = (String) coursesTable.getValueAt(selectedRow, 0);
+                    Course selectedCourse = mainFrame.getCourseManager().getCourse(courseName);
+                    Set<String> instructors = selectedCourse != null ? selectedCourse.getInstructorNames() : Collections.emptySet();
                     instructorsArea.setText("Course: " + courseName + "\n\nInstructors:\n" + formatInstructorsList(instructors));
                     
                     // Find enrolled students for this course
@@ -181,22 +187,15 @@ public class AdminPanel extends JPanel {
                     studentsText.append("Course: ").append(courseName).append("\n\nEnrolled Students:\n");
                     
                     boolean foundStudents = false;
-                    List<User> users = mainFrame.getAdmin().getUsers();
-                    for (User user : users) {
-                        if (user instanceof Student) {
-                            Student student = (Student) user;
-                            ArrayList<String> enrolledCourses = student.getCourses();
-                            if (enrolledCourses.contains(courseName)) {
-                                foundStudents = true;
-                                int courseIndex = enrolledCourses.indexOf(courseName);
-                                Float grade = (courseIndex >= 0 && courseIndex < student.getNumericGrades().size()) ? 
-                                              student.getNumericGrades().get(courseIndex) : null;
-                                String gradeStr = (grade != null && grade > 0) ? String.format("%.1f", grade) : "No grade";
-                                studentsText.append("• ").append(student.getStudentName())
-                                           .append(" (").append(student.getUsername()).append(") - Grade: ")
-                                           .append(gradeStr).append("\n");
-                            }
-                        }
+                    for (Student student : mainFrame.getAdmin().getUserDirectory().getEnrolledStudents(courseName)) {
+                        foundStudents = true;
+                        int courseIndex = student.getCourses().indexOf(courseName);
+                        Float grade = (courseIndex >= 0 && courseIndex < student.getNumericGrades().size()) ? 
+                                      student.getNumericGrades().get(courseIndex) : null;
+                        String gradeStr = (grade != null && grade > 0) ? String.format("%.1f", grade) : "No grade";
+                        studentsText.append("• ").append(student.getStudentName())
+                                   .append(" (").append(student.getUsername()).append(") - Grade: ")
+                                   .append(gradeStr).append("\n");
                     }
                     
                     if (!foundStudents) {
@@ -240,16 +239,14 @@ public class AdminPanel extends JPanel {
     /**
      * Format the instructors list for better display
      */
-    private String formatInstructorsList(String instructors) {
-        if (instructors == null || instructors.isEmpty() || instructors.equals("None")) {
+    private String formatInstructorsList(Set<String> instructors) {
+        if (instructors.isEmpty()) {
             return "No instructors assigned";
         }
         
         StringBuilder formatted = new StringBuilder();
-        String[] instructorArray = instructors.split(",");
-        
-        for (String instructor : instructorArray) {
-            formatted.append("• ").append(instructor.trim()).append("\n");
+        for (String instructor : instructors) {
+            formatted.append("• ").append(instructor).append("\n");
         }
         
         return formatted.toString();
@@ -350,6 +347,7 @@ public class AdminPanel extends JPanel {
         
         gbc.gridx = 1;
         instructorCombo = new JComboBox<>();
+        instructorComboModel.attachTo(instructorCombo);
         formPanel.add(instructorCombo, gbc);
         
         // Course dropdown
@@ -359,6 +357,7 @@ public class AdminPanel extends JPanel {
         
         gbc.gridx = 1;
         courseCombo = new JComboBox<>();
+        courseComboModel.attachTo(courseCombo);
         formPanel.add(courseCombo, gbc);
         
         // Assign button
@@ -391,6 +390,33 @@ public class AdminPanel extends JPanel {
     private void createFeedbacksTab() {
         feedbacksPanel = new JPanel(new BorderLayout());
         
+        // Search panel: terms and "quoted phrases", with optional course and instructor filters
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        feedbackQueryField = new JTextField(20);
+        feedbackCourseField = new JTextField(12);
+        feedbackInstructorField = new JTextField(12);
+        JButton searchButton = new JButton("Search");
+        JButton clearSearchButton = new JButton("Clear");
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(feedbackQueryField);
+        searchPanel.add(new JLabel("Course:"));
+        searchPanel.add(feedbackCourseField);
+        searchPanel.add(new JLabel("Instructor:"));
+        searchPanel.add(feedbackInstructorField);
+        searchPanel.add(searchButton);
+        searchPanel.add(clearSearchButton);
+        
+        searchButton.addActionListener(e -> refreshFeedbacksTable());
+        feedbackQueryField.addActionListener(e -> refreshFeedbacksTable());
+        feedbackCourseField.addActionListener(e -> refreshFeedbacksTable());
+        feedbackInstructorField.addActionListener(e -> refreshFeedbacksTable());
+        clearSearchButton.addActionListener(e -> {
+            feedbackQueryField.setText("");
+            feedbackCourseField.setText("");
+            feedbackInstructorField.setText("");
+            refreshFeedbacksTable();
+        });
+        
         // Create split pane for table and details
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
         
@@ -515,6 +541,7 @@ public class AdminPanel extends JPanel {
         buttonPanel.add(convertButton);
         
         // Add components to panel
+        feedbacksPanel.add(searchPanel, BorderLayout.NORTH);
         feedbacksPanel.add(splitPane, BorderLayout.CENTER);
         feedbacksPanel.add(buttonPanel, BorderLayout.SOUTH);
         
@@ -556,106 +583,41 @@ public class AdminPanel extends JPanel {
      * Get the feedback message for the selected row
      */
     private String getFeedbackMessage(int selectedRow) {
-        // This method assumes we're using the tag in the table model to store additional data
-        if (selectedRow >= 0 && feedbacksTable.getModel() instanceof DefaultTableModel) {
-            DefaultTableModel model = (DefaultTableModel) feedbacksTable.getModel();
-            if (model.getRowCount() > selectedRow) {
-                // The message is stored in the hidden column (index 4)
-                if (model.getColumnCount() > 4) {
-                    Object message = model.getValueAt(selectedRow, 4);
-                    if (message != null) {
-                        return message.toString();
-                    }
-                }
-                
-                // If not in the model, try to get it from the file based on the visible data
-                String studentName = (String) model.getValueAt(selectedRow, 0);
-                String courseName = (String) model.getValueAt(selectedRow, 1);
-                String date = (String) model.getValueAt(selectedRow, 3);
-                
-                // Try to find in the feedbacks.txt file
-                try {
-                    File file = new File("data/feedbacks.txt");
-                    if (file.exists()) {
-                        try (BufferedReader reader = new BufferedReader(
-                                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                String[] parts = line.split("\\|");
-                                if (parts.length >= 6 && 
-                                    parts[0].equals(date) && 
-                                    parts[1].equals(studentName) && 
-                                    parts[3].equals(courseName)) {
-                                    return parts[5].trim();
-                                }
-                            }
-                        }
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+        if (selectedRow >= 0 && selectedRow < displayedFeedbacks.size()) {
+            // Stored feedback is never changed, so the listed record is current
+            return displayedFeedbacks.get(selectedRow).getMessage();
         }
         
         return "Feedback message not available.";
     }
     
     /**
-     * Refresh the feedbacks table with data from the feedbacks file
+     * Refresh the feedbacks table with the feedback matching the search fields
      */
     private void refreshFeedbacksTable() {
         DefaultTableModel model = (DefaultTableModel) feedbacksTable.getModel();
         model.setRowCount(0); // Clear existing rows
         
-        File file = new File("data/feedbacks.txt");
-        if (!file.exists()) {
-            feedbackDetailsArea.setText("No feedback file found.");
-            return;
+        // Searched in the feedback index, which includes feedback submitted in this session
+        displayedFeedbacks = DataManager.searchFeedback(feedbackQueryField.getText(),
+                                                        feedbackCourseField.getText(),
+                                                        feedbackInstructorField.getText());
+        for (FeedbackRecord feedback : displayedFeedbacks) {
+            Object[] rowData = {
+                feedback.getStudentName(),
+                feedback.getCourseName(),
+                feedback.getInstructorName(),
+                feedback.getTimestamp()
+            };
+            model.addRow(rowData);
         }
         
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty() || line.startsWith("#")) {
-                    continue; // Skip empty lines and comments
-                }
-                
-                String[] parts = line.split("\\|");
-                if (parts.length >= 6) {
-                    String timestamp = parts[0];
-                    String studentName = parts[1];
-                    String studentUsername = parts[2];
-                    String courseName = parts[3];
-                    String instructorName = parts[4];
-                    String feedbackMessage = parts[5].trim(); // Trim the feedback message
-                    
-                    // Add row to the table
-                    Object[] rowData = {
-                        studentName,
-                        courseName,
-                        instructorName,
-                        timestamp,
-                        feedbackMessage // Hidden column for the message
-                    };
-                    model.addRow(rowData);
-                    
-                    // Debug output - uncomment if needed
-                    // System.out.println("Added feedback: " + feedbackMessage);
-                }
-            }
-            
-            // Select the first row if available
-            if (feedbacksTable.getRowCount() > 0) {
-                feedbacksTable.setRowSelectionInterval(0, 0);
-                updateFeedbackDetails();
-            } else {
-                feedbackDetailsArea.setText("No feedback available.");
-            }
-            
-        } catch (IOException e) {
-            feedbackDetailsArea.setText("Error loading feedback: " + e.getMessage());
-            e.printStackTrace(); // Print stack trace for debugging
+        // Select the first row if available
+        if (feedbacksTable.getRowCount() > 0) {
+            feedbacksTable.setRowSelectionInterval(0, 0);
+            updateFeedbackDetails();
+        } else {
+            feedbackDetailsArea.setText("No feedback available.");
         }
     }
     
@@ -759,17 +721,17 @@ public class AdminPanel extends JPanel {
                     return;
                 }
                 
+                // Create the new course; it parses its dates once
+                Course newCourse = new Course(name, instructor.isEmpty() ? "None" : instructor, 
+                                             room, branch, price, startDate, endDate, description);
+                
                 // Validate date format
-                if (!isValidDateFormat(startDate) || !isValidDateFormat(endDate)) {
+                if (!newCourse.hasValidDates()) {
                     JOptionPane.showMessageDialog(dialog, "Dates must be in YYYY-MM-DD format!", 
                                                 "Input Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
                 
-                // Create the new course
-                Course newCourse = new Course(name, instructor.isEmpty() ? "None" : instructor, 
-                                             room, branch, price, startDate, endDate, description);
-                
                 // Add the course
                 mainFrame.getCourseManager().addCourse(newCourse);
                 
@@ -803,24 +765,6 @@ public class AdminPanel extends JPanel {
         dialog.setVisible(true);
     }
     
-    /**
-     * Validates if a string is in YYYY-MM-DD format.
-     * 
-     * @param date The date string to validate.
-     * @return true if valid, false otherwise.
-     */
-    private boolean isValidDateFormat(String date) {
-        if (date == null || date.isEmpty()) {
-            return false;
-        }
-        try {
-            LocalDate.parse(date);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
     /**
      * Update an existing course.
      */
@@ -913,8 +857,9 @@ public class AdminPanel extends JPanel {
      * Assign a course to an instructor.
      */
     private void assignCourse() {
-        String instructorSelection = (String) instructorCombo.getSelectedItem();
-        String courseName = (String) courseCombo.getSelectedItem();
+        // Typed text that is not an entry resolves to its best match
+        String instructorSelection = instructorComboModel.resolve((String) instructorCombo.getEditor().getItem());
+        String courseName = courseComboModel.resolve((String) courseCombo.getEditor().getItem());
         
         if (instructorSelection == null || courseName == null) {
             JOptionPane.showMessageDialog(this, 
@@ -933,31 +878,19 @@ public class AdminPanel extends JPanel {
         }
         
         Admin admin = mainFrame.getAdmin();
-        boolean found = false;
+        Instructor instructor = admin.getUserDirectory().getInstructor(instructorUsername);
+        boolean found = instructor != null;
         
-        for (User user : admin.getUsers()) {
-            if (user instanceof Instructor && user.getUsername().equals(instructorUsername)) {
-                found = true;
-                Instructor instructor = (Instructor) user;
-                instructor.assignCourse(courseName);
-                
-                // Also update the course record with instructor's name
-                CourseManager manager = mainFrame.getCourseManager();
-                ArrayList<Course> courses = manager.getCourses();
-                for (Course course : courses) {
-                    if (course.getName().equals(courseName)) {
-                        course.addInstructor(instructor.getInstructorName());
-                        DataManager.saveCourses(courses); // Save course changes
-                        break;
-                    }
-                }
-                
-                admin.saveUsers(); // Save the user changes
-                JOptionPane.showMessageDialog(this, 
-                    "Course '" + courseName + "' assigned to instructor " + instructor.getInstructorName());
-                refreshCoursesTable(); // Refresh to show updated instructor assignment
-                break;
-            }
+        if (found) {
+            instructor.assignCourse(courseName);
+            
+            // Also update the course record with instructor's name; this saves the courses
+            mainFrame.getCourseManager().addInstructorToCourse(courseName, instructor.getInstructorName());
+            
+            admin.saveUser(instructor); // Save the user changes
+            JOptionPane.showMessageDialog(this, 
+                "Course '" + courseName + "' assigned to instructor " + instructor.getInstructorName());
+            refreshCoursesTable(); // Refresh to show updated instructor assignment
         }
         
         if (!found) {
@@ -990,29 +923,11 @@ public class AdminPanel extends JPanel {
      * Refresh the courses table.
      */
     private void refreshCoursesTable() {
-        ArrayList<Course> courses = mainFrame.getCourseManager().getCourses();
-        
-        Object[][] data = new Object[courses.size()][8];
-        for (int i = 0; i < courses.size(); i++) {
-            Course course = courses.get(i);
-            data[i][0] = course.getName();
-            data[i][1] = course.getInstructorName();
-            data[i][2] = course.getRoom();
-            data[i][3] = course.getBranch();
-            data[i][4] = String.format("%.2f", course.getPrice());
-            data[i][5] = course.getStartDate();
-            data[i][6] = course.getEndDate();
-            data[i][7] = course.getDescription();
-        }
-        
-        coursesTable.setModel(new DefaultTableModel(data, new String[]{
-            "Course Name", "Instructors", "Room", "Branch", "Price", "Start Date", "End Date", "Description"
-        }) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-        });
+        // The table reads the current catalog directly; it is replaced, not changed, when courses are edited
+        coursesTable.setModel(new CourseTableModel(mainFrame.getCourseManager().getCourses(),
+            new String[] {"Course Name", "Instructors", "Room", "Branch", "Price", "Start Date", "End Date", "Description"},
+            CourseTableModel.NAME, CourseTableModel.INSTRUCTORS, CourseTableModel.ROOM, CourseTableModel.BRANCH,
+            CourseTableModel.PRICE, CourseTableModel.START_DATE, CourseTableModel.END_DATE, CourseTableModel.DESCRIPTION));
         
         // Set custom renderer for instructors column and description column
         coursesTable.getColumnModel().getColumn(1).setCellRenderer(new MultiLineCellRenderer());
@@ -1059,14 +974,15 @@ public class AdminPanel extends JPanel {
      */
     private void refreshInstructorList() {
         Admin admin = mainFrame.getAdmin();
-        instructorCombo.removeAllItems();
+        PrefixIndex<String> index = new PrefixIndex<>();
         
-        for (User user : admin.getUsers()) {
-            if (user instanceof Instructor) {
-                Instructor instructor = (Instructor) user;
-                instructorCombo.addItem(instructor.getInstructorName() + " (" + instructor.getUsername() + ")");
-            }
+        // Found by username or by the start of any word of the name
+        for (Instructor instructor : admin.getUserDirectory().getInstructors()) {
+            String item = instructor.getInstructorName() + " (" + instructor.getUsername() + ")";
+            index.add(instructor.getUsername(), item);
+            index.addWords(instructor.getInstructorName(), item);
         }
+        instructorComboModel.setIndex(index);
     }
     
     /**
@@ -1074,13 +990,12 @@ public class AdminPanel extends JPanel {
      */
     private void refreshCourseList() {
         CourseManager manager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = manager.getCourses();
+        PrefixIndex<String> index = new PrefixIndex<>();
         
-        courseCombo.removeAllItems();
-        
-        for (Course course : courses) {
-            courseCombo.addItem(course.getName());
+        for (Course course : manager.getCourses()) {
+            index.addWords(course.getName(), course.getName());
         }
+        courseComboModel.setIndex(index);
     }
     
     /**
@@ -1128,12 +1043,10 @@ public class AdminPanel extends JPanel {
             }
             
             // Check if username already exists
-            for (User user : mainFrame.getAdmin().getUsers()) {
-                if (user.getUsername().equals(username)) {
-                    JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                 "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            if (mainFrame.getAdmin().getUserDirectory().contains(username)) {
+                JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                             "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
             
             try {
@@ -1165,7 +1078,7 @@ public class AdminPanel extends JPanel {
      * Helper method to enroll a student in courses.
      */
     private void enrollStudentInCourses(Student student) {
-        ArrayList<Course> availableCourses = mainFrame.getCourseManager().getCourses();
+        List<Course> availableCourses = mainFrame.getCourseManager().getCourses();
         
         if (availableCourses.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No courses available for enrollment.");
@@ -1207,7 +1120,7 @@ public class AdminPanel extends JPanel {
         
         // Get available courses for specialization
         CourseManager courseManager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = courseManager.getCourses();
+        List<Course> courses = courseManager.getCourses();
         
         String[] specializationOptions;
         if (courses.isEmpty()) {
@@ -1246,12 +1159,10 @@ public class AdminPanel extends JPanel {
             }
             
             // Check if username already exists
-            for (User user : mainFrame.getAdmin().getUsers()) {
-                if (user.getUsername().equals(username)) {
-                    JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                 "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            if (mainFrame.getAdmin().getUserDirectory().contains(username)) {
+                JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                             "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
             
             try {
@@ -1299,12 +1210,10 @@ public class AdminPanel extends JPanel {
             }
             
             // Check if username already exists
-            for (User user : mainFrame.getAdmin().getUsers()) {
-                if (user.getUsername().equals(username)) {
-                    JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                 "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            if (mainFrame.getAdmin().getUserDirectory().contains(username)) {
+                JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                             "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
             
             try {
@@ -1336,13 +1245,7 @@ public class AdminPanel extends JPanel {
         String userType = (String) managementUsersTable.getValueAt(selectedRow, 2);
         
         // Find the user in the list
-        User userToUpdate = null;
-        for (User user : mainFrame.getAdmin().getUsers()) {
-            if (user.getUsername().equals(username)) {
-                userToUpdate = user;
-                break;
-            }
-        }
+        User userToUpdate = mainFrame.getAdmin().getUserDirectory().get(username);
         
         if (userToUpdate == null) {
             JOptionPane.showMessageDialog(this, "User not found.", 
@@ -1391,21 +1294,21 @@ public class AdminPanel extends JPanel {
             
             // Check if username already exists (if changed)
             if (!newUsername.equals(student.getUsername())) {
-                for (User user : mainFrame.getAdmin().getUsers()) {
-                    if (user != student && user.getUsername().equals(newUsername)) {
-                        JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                     "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+                User existing = mainFrame.getAdmin().getUserDirectory().get(newUsername);
+                if (existing != null && existing != student) {
+                    JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                                 "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
             }
             
             try {
+                String oldUsername = student.getUsername();
                 student.setUsername(newUsername);
                 student.setPassword(newPassword);
                 student.setStudentName(newName);
                 
-                mainFrame.getAdmin().saveUsers();
+                mainFrame.getAdmin().saveUser(student, oldUsername);
                 JOptionPane.showMessageDialog(this, "Student updated successfully!");
                 refreshManagementUsersTable();
                 refreshUsersTable();
@@ -1431,7 +1334,7 @@ public class AdminPanel extends JPanel {
         
         // Get available courses for specialization
         CourseManager courseManager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = courseManager.getCourses();
+        List<Course> courses = courseManager.getCourses();
         
         String[] specializationOptions;
         if (courses.isEmpty()) {
@@ -1447,8 +1350,9 @@ public class AdminPanel extends JPanel {
         JComboBox<String> specializationCombo = new JComboBox<>(specializationOptions);
         
         // Try to set the current specialization as selected
-        String currentSpecialization = instructor.getAssignedCourses().split(",")[0].trim(); // Get first specialization
-        if (!currentSpecialization.isEmpty() && !currentSpecialization.equals("None")) {
+        Iterator<String> assignedCourses = instructor.getAssignedCourseNames().iterator();
+        String currentSpecialization = assignedCourses.hasNext() ? assignedCourses.next() : ""; // Get first specialization
+        if (!currentSpecialization.isEmpty()) {
             for (int i = 0; i < specializationCombo.getItemCount(); i++) {
                 if (specializationCombo.getItemAt(i).equals(currentSpecialization)) {
                     specializationCombo.setSelectedIndex(i);
@@ -1483,16 +1387,16 @@ public class AdminPanel extends JPanel {
             
             // Check if username already exists (if changed)
             if (!newUsername.equals(instructor.getUsername())) {
-                for (User user : mainFrame.getAdmin().getUsers()) {
-                    if (user != instructor && user.getUsername().equals(newUsername)) {
-                        JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                     "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+                User existing = mainFrame.getAdmin().getUserDirectory().get(newUsername);
+                if (existing != null && existing != instructor) {
+                    JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                                 "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
             }
             
             try {
+                String oldUsername = instructor.getUsername();
                 instructor.setUsername(newUsername);
                 instructor.setPassword(newPassword);
                 instructor.setInstructorName(newName);
@@ -1508,16 +1412,11 @@ public class AdminPanel extends JPanel {
                         instructor.setAssignedCourses(newSpecialization);
                     } else {
                         // Add the new specialization to existing assignments if not already present
-                        String currentAssignments = instructor.getAssignedCourses();
-                        if (currentAssignments.isEmpty() || currentAssignments.equals("None")) {
-                            instructor.setAssignedCourses(newSpecialization);
-                        } else if (!currentAssignments.contains(newSpecialization)) {
-                            instructor.setAssignedCourses(currentAssignments + ", " + newSpecialization);
-                        }
+                        instructor.assignCourse(newSpecialization);
                     }
                 }
                 
-                mainFrame.getAdmin().saveUsers();
+                mainFrame.getAdmin().saveUser(instructor, oldUsername);
                 JOptionPane.showMessageDialog(this, "Instructor updated successfully!");
                 refreshManagementUsersTable();
                 refreshUsersTable();
@@ -1561,21 +1460,21 @@ public class AdminPanel extends JPanel {
             
             // Check if username already exists (if changed)
             if (!newUsername.equals(adminToUpdate.getUsername())) {
-                for (User user : mainFrame.getAdmin().getUsers()) {
-                    if (user != adminToUpdate && user.getUsername().equals(newUsername)) {
-                        JOptionPane.showMessageDialog(this, "Username already exists!", 
-                                                     "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+                User existing = mainFrame.getAdmin().getUserDirectory().get(newUsername);
+                if (existing != null && existing != adminToUpdate) {
+                    JOptionPane.showMessageDialog(this, "Username already exists!", 
+                                                 "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
             }
             
             try {
+                String oldUsername = adminToUpdate.getUsername();
                 adminToUpdate.setUsername(newUsername);
                 adminToUpdate.setPassword(newPassword);
                 adminToUpdate.setAdminName(newName);
                 
-                mainFrame.getAdmin().saveUsers();
+                mainFrame.getAdmin().saveUser(adminToUpdate, oldUsername);
                 JOptionPane.showMessageDialog(this, "Admin updated successfully!");
                 refreshManagementUsersTable();
                 refreshUsersTable();
@@ -1742,48 +1641,14 @@ public class AdminPanel extends JPanel {
      * Refresh the upcoming courses table.
      */
     private void refreshUpcomingCoursesTable() {
-        ArrayList<Course> courses = mainFrame.getCourseManager().getCourses();
-        List<Course> upcomingCourses = new ArrayList<>();
-        
-        // Get today's date
-        LocalDate today = LocalDate.now();
-        
-        // Filter courses starting within 30 days
-        for (Course course : courses) {
-            try {
-                LocalDate startDate = LocalDate.parse(course.getStartDate());
-                long daysUntilStart = ChronoUnit.DAYS.between(today, startDate);
-                
-                if (daysUntilStart >= 0 && daysUntilStart <= 30) {
-                    upcomingCourses.add(course);
-                }
-            } catch (Exception e) {
-                // Skip courses with invalid dates
-                System.err.println("Error parsing date for course: " + course.getName());
-            }
-        }
-        
-        // Create data for table
-        Object[][] data = new Object[upcomingCourses.size()][6];
-        for (int i = 0; i < upcomingCourses.size(); i++) {
-            Course course = upcomingCourses.get(i);
-            data[i][0] = course.getName();
-            data[i][1] = course.getInstructorName();
-            data[i][2] = course.getRoom();
-            data[i][3] = course.getBranch();
-            data[i][4] = String.format("%.2f", course.getPrice());
-            data[i][5] = course.getStartDate();
-        }
+        // Get courses starting within 30 days of today
+        List<Course> upcomingCourses = mainFrame.getCourseManager().getCoursesStartingWithin(30, LocalDate.now());
         
         // Update table model
-        upcomingCoursesTable.setModel(new DefaultTableModel(data, new String[]{
-            "Course Name", "Instructor(s)", "Room", "Branch", "Price", "Start Date"
-        }) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-        });
+        upcomingCoursesTable.setModel(new CourseTableModel(upcomingCourses,
+            new String[] {"Course Name", "Instructor(s)", "Room", "Branch", "Price", "Start Date"},
+            CourseTableModel.NAME, CourseTableModel.INSTRUCTORS, CourseTableModel.ROOM, CourseTableModel.BRANCH,
+            CourseTableModel.PRICE, CourseTableModel.START_DATE));
         
         // Set custom renderer for instructors column
         upcomingCoursesTable.getColumnModel().getColumn(1).setCellRenderer(new MultiLineCellRenderer());
@@ -1793,48 +1658,14 @@ public class AdminPanel extends JPanel {
      * Refresh the ending courses table.
      */
     private void refreshEndingCoursesTable() {
-        ArrayList<Course> courses = mainFrame.getCourseManager().getCourses();
-        List<Course> endingCourses = new ArrayList<>();
-        
-        // Get today's date
-        LocalDate today = LocalDate.now();
-        
-        // Filter courses ending within 30 days
-        for (Course course : courses) {
-            try {
-                LocalDate endDate = LocalDate.parse(course.getEndDate());
-                long daysUntilEnd = ChronoUnit.DAYS.between(today, endDate);
-                
-                if (daysUntilEnd >= 0 && daysUntilEnd <= 30) {
-                    endingCourses.add(course);
-                }
-            } catch (Exception e) {
-                // Skip courses with invalid dates
-                System.err.println("Error parsing date for course: " + course.getName());
-            }
-        }
-        
-        // Create data for table
-        Object[][] data = new Object[endingCourses.size()][6];
-        for (int i = 0; i < endingCourses.size(); i++) {
-            Course course = endingCourses.get(i);
-            data[i][0] = course.getName();
-            data[i][1] = course.getInstructorName();
-            data[i][2] = course.getRoom();
-            data[i][3] = course.getBranch();
-            data[i][4] = String.format("%.2f", course.getPrice());
-            data[i][5] = course.getEndDate();
-        }
+        // Get courses ending within 30 days of today
+        List<Course> endingCourses = mainFrame.getCourseManager().getCoursesEndingWithin(30, LocalDate.now());
         
         // Update table model
-        endingCoursesTable.setModel(new DefaultTableModel(data, new String[]{
-            "Course Name", "Instructor(s)", "Room", "Branch", "Price", "End Date"
-        }) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all cells non-editable
-            }
-        });
+        endingCoursesTable.setModel(new CourseTableModel(endingCourses,
+            new String[] {"Course Name", "Instructor(s)", "Room", "Branch", "Price", "End Date"},
+            CourseTableModel.NAME, CourseTableModel.INSTRUCTORS, CourseTableModel.ROOM, CourseTableModel.BRANCH,
+            CourseTableModel.PRICE, CourseTableModel.END_DATE));
         
         // Set custom renderer for instructors column
         endingCoursesTable.getColumnModel().getColumn(1).setCellRenderer(new MultiLineCellRenderer());
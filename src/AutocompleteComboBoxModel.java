@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Combo box model that lists only the top matches of a {@link PrefixIndex}
+ * for the text typed in the combo box, so combo boxes over thousands of
+ * users or courses stay quick to fill and to search.
+ */
+public class AutocompleteComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+    private static final long serialVersionUID = 1L;
+    private final int limit;
+    private PrefixIndex<String> index = new PrefixIndex<>();
+    private List<String> matches = new ArrayList<>();
+    private Object selectedItem;
+
+    /**
+     * Creates an empty model.
+     *
+     * @param limit The maximum number of matches listed at a time.
+     */
+    public AutocompleteComboBoxModel(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Replaces the values offered, keeping the current selection and listing
+     * the first matches of an empty prefix.
+     *
+     * @param index The values to offer.
+     */
+    public void setIndex(PrefixIndex<String> index) {
+        this.index = index;
+        filter("");
+    }
+
+    /**
+     * Lists the values matching a prefix.
+     *
+     * @param prefix The typed text.
+     */
+    public void filter(String prefix) {
+        matches = index.search(prefix, limit);
+        fireContentsChanged(this, -1, -1);
+    }
+
+    /**
+     * Resolves typed text to a value: the text itself if it is a value,
+     * otherwise its best match.
+     *
+     * @param text The typed or selected text.
+     * @return The value, or null if nothing matches.
+     */
+    public String resolve(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        if (index.contains(text)) {
+            return text;
+        }
+        List<String> found = index.search(text, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Installs the model on a combo box, making it editable and filtering
+     * the list as the user types.
+     *
+     * @param combo The combo box.
+     */
+    public void attachTo(JComboBox<String> combo) {
+        combo.setModel(this);
+        combo.setEditable(true);
+        JTextComponent editor = (JTextComponent) combo.getEditor().getEditorComponent();
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not change the text
+            }
+
+            private void update() {
+                // The document cannot be read back while it is being changed
+                SwingUtilities.invokeLater(() -> {
+                    if (!editor.isFocusOwner()) {
+                        return; // Text set by a selection, not typed
+                    }
+                    filter(editor.getText());
+                    if (combo.isShowing()) {
+                        combo.hidePopup(); // Resize the popup to the new matches
+                        if (getSize() > 0) {
+                            combo.showPopup();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public int getSize() {
+        return matches.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return matches.get(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if ((selectedItem != null && !selectedItem.equals(item)) || (selectedItem == null && item != null)) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the compact binary snapshot format for users and courses.
+ *
+ * Layout (all numbers big-endian):
+ * <pre>
+ * header:       int magic, int version, int recordCount
+ * string table: int stringCount, then per string: int byteLength, UTF-8 bytes
+ * records:      fixed-width fields; strings are int indexes into the table
+ * </pre>
+ * User records are: byte type, int username, int password, int name, followed
+ * by int assignedCourses for instructors, or int enrollmentCount and
+ * (int course, float grade, int letterGrade) per enrollment for students.
+ * Course records are: int name, int instructorName, int room, int branch,
+ * double price, int startDate, int endDate, int description.
+ */
+public class BinarySnapshot {
+    private static final int USERS_MAGIC = 0x434D5355;   // "CMSU"
+    private static final int COURSES_MAGIC = 0x434D5343; // "CMSC"
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_ADMIN = 0;
+    private static final byte TYPE_INSTRUCTOR = 1;
+    private static final byte TYPE_STUDENT = 2;
+
+    /**
+     * Writes users to a binary snapshot file.
+     *
+     * @param users The users to write.
+     * @param file The snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeUsers(List<User> users, File file) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int count = 0;
+
+        for (User user : users) {
+            if (user instanceof Admin) {
+                Admin admin = (Admin) user;
+                records.writeByte(TYPE_ADMIN);
+                records.writeInt(strings.indexOf(admin.getUsername()));
+                records.writeInt(strings.indexOf(admin.getPassword()));
+                records.writeInt(strings.indexOf(admin.getAdminName()));
+            } else if (user instanceof Instructor) {
+                Instructor instructor = (Instructor) user;
+                records.writeByte(TYPE_INSTRUCTOR);
+                records.writeInt(strings.indexOf(instructor.getUsername()));
+                records.writeInt(strings.indexOf(instructor.getPassword()));
+                records.writeInt(strings.indexOf(instructor.getInstructorName()));
+                records.writeInt(strings.indexOf(instructor.getAssignedCourses()));
+            } else if (user instanceof Student) {
+                Student student = (Student) user;
+                List<String> courses = student.getCourses();
+                List<Float> grades = student.getNumericGrades();
+                List<String> letterGrades = student.getLetterGrades();
+                records.writeByte(TYPE_STUDENT);
+                records.writeInt(strings.indexOf(student.getUsername()));
+                records.writeInt(strings.indexOf(student.getPassword()));
+                records.writeInt(strings.indexOf(student.getStudentName()));
+                records.writeInt(courses.size());
+                for (int i = 0; i < courses.size(); i++) {
+                    records.writeInt(strings.indexOf(courses.get(i)));
+                    records.writeFloat(grades.get(i));
+                    records.writeInt(strings.indexOf(letterGrades.get(i)));
+                }
+            } else {
+                continue;
+            }
+            count++;
+        }
+
+        writeFile(file, USERS_MAGIC, count, strings, recordBytes);
+    }
+
+    /**
+     * Reads users from a binary snapshot file.
+     *
+     * @param file The snapshot file.
+     * @return The users in the snapshot.
+     * @throws IOException if the file cannot be read or is not a user snapshot.
+     */
+    public static List<User> readUsers(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(file.toPath()));
+        int count = readHeader(buffer, USERS_MAGIC, file);
+        String[] strings = readStringTable(buffer);
+        List<User> users = new ArrayList<>(count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                byte type = buffer.get();
+                String username = strings[buffer.getInt()];
+                String password = strings[buffer.getInt()];
+                String name = strings[buffer.getInt()];
+
+                switch (type) {
+                    case TYPE_ADMIN:
+                        users.add(new Admin(username, password, name));
+                        break;
+                    case TYPE_INSTRUCTOR:
+                        users.add(new Instructor(username, password, name, strings[buffer.getInt()]));
+                        break;
+                    case TYPE_STUDENT:
+                        Student student = new Student(username, password, name);
+                        int enrollments = buffer.getInt();
+                        for (int j = 0; j < enrollments; j++) {
+                            String course = strings[buffer.getInt()];
+                            float grade = buffer.getFloat();
+                            String letterGrade = strings[buffer.getInt()];
+                            student.addCourse(course, grade, letterGrade);
+                        }
+                        users.add(student);
+                        break;
+                    default:
+                        throw new IOException("Unknown user type " + type + " in " + file.getName());
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted snapshot " + file.getName() + ": " + e.getMessage(), e);
+        }
+        return users;
+    }
+
+    /**
+     * Writes courses to a binary snapshot file.
+     *
+     * @param courses The courses to write.
+     * @param file The snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeCourses(List<Course> courses, File file) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+
+        for (Course course : courses) {
+            records.writeInt(strings.indexOf(course.getName()));
+            records.writeInt(strings.indexOf(course.getInstructorName()));
+            records.writeInt(strings.indexOf(course.getRoom()));
+            records.writeInt(strings.indexOf(course.getBranch()));
+            records.writeDouble(course.getPrice());
+            records.writeInt(strings.indexOf(course.getStartDate()));
+            records.writeInt(strings.indexOf(course.getEndDate()));
+            records.writeInt(strings.indexOf(course.getDescription()));
+        }
+
+        writeFile(file, COURSES_MAGIC, courses.size(), strings, recordBytes);
+    }
+
+    /**
+     * Reads courses from a binary snapshot file.
+     *
+     * @param file The snapshot file.
+     * @return The courses in the snapshot.
+     * @throws IOException if the file cannot be read or is not a course snapshot.
+     */
+    public static ArrayList<Course> readCourses(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(file.toPath()));
+        int count = readHeader(buffer, COURSES_MAGIC, file);
+        String[] strings = readStringTable(buffer);
+        ArrayList<Course> courses = new ArrayList<>(count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                String name = strings[buffer.getInt()];
+                String instructorName = strings[buffer.getInt()];
+                String room = strings[buffer.getInt()];
+                String branch = strings[buffer.getInt()];
+                double price = buffer.getDouble();
+                String startDate = strings[buffer.getInt()];
+                String endDate = strings[buffer.getInt()];
+                String description = strings[buffer.getInt()];
+                courses.add(new Course(name, instructorName, room, branch, price, startDate, endDate, description));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted snapshot " + file.getName() + ": " + e.getMessage(), e);
+        }
+        return courses;
+    }
+
+    /**
+     * Writes header, string table and records to a temp file and swaps it in.
+     */
+    private static void writeFile(File file, int magic, int count, StringTable strings,
+                                  ByteArrayOutputStream records) throws IOException {
+        File tempFile = new File(file.getPath() + ".temp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(magic);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+
+            out.writeInt(strings.values.size());
+            for (String value : strings.values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            records.writeTo(out);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if ((file.exists() && !file.delete()) || !tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Error replacing " + file.getName());
+        }
+    }
+
+    /**
+     * Validates the header and returns the record count.
+     */
+    private static int readHeader(ByteBuffer buffer, int expectedMagic, File file) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != expectedMagic) {
+            throw new IOException("Not a snapshot file: " + file.getName());
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file.getName());
+        }
+        return buffer.getInt();
+    }
+
+    /**
+     * Decodes the string table following the header.
+     */
+    private static String[] readStringTable(ByteBuffer buffer) throws IOException {
+        try {
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                strings[i] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                                        length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+            return strings;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted string table: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Assigns each distinct string an index in the order it is first seen.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            String key = value == null ? "" : value;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                index = values.size();
+                indexes.put(key, index);
+                values.add(key);
+            }
+            return index;
+        }
+    }
+}
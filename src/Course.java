@@ -1,65 +1,104 @@
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class Course implements Serializable {
 
     private static final long serialVersionUID = 1L;
+    // Day value of a start or end date that cannot be parsed
+    public static final long NO_DATE = Long.MIN_VALUE;
     private final String name;
-    private String instructorName; // This will now store a comma-separated list of instructors
+    private final LinkedHashSet<String> instructorNames;
     private final String room;
     private final String branch;
     private final double price;
     private final String startDate;
     private final String endDate;
+    private final long startDay; // startDate as an epoch day, parsed once
+    private final long endDay; // endDate as an epoch day, parsed once
     private final String description;
 
     public Course(String name, String instructorName, String room, String branch, double price, String startDate, String endDate, String description) {
-        this.name = name;
-        this.instructorName = instructorName;
+        this.name = SymbolTable.COURSE_NAMES.canonical(name);
+        this.instructorNames = parseNameList(instructorName, SymbolTable.INSTRUCTOR_NAMES);
         this.room = room;
         this.branch = branch;
         this.price = price;
         this.startDate = startDate;
         this.endDate = endDate;
+        this.startDay = parseDay(startDate);
+        this.endDay = parseDay(endDate);
         this.description = description;
     }
 
+    // Copy a course with a different set of instructors
+    private Course(Course source, LinkedHashSet<String> instructorNames) {
+        this.name = source.name;
+        this.instructorNames = instructorNames;
+        this.room = source.room;
+        this.branch = source.branch;
+        this.price = source.price;
+        this.startDate = source.startDate;
+        this.endDate = source.endDate;
+        this.startDay = source.startDay;
+        this.endDay = source.endDay;
+        this.description = source.description;
+    }
+
     public String getName() {
         return name;
     }
 
+    // Get the instructors comma-separated, as stored in courses.txt, or "None"
     public String getInstructorName() {
-        return instructorName;
+        return formatNameList(instructorNames);
     }
     
-    // Add a new instructor to the course
-    public void addInstructor(String instructor) {
-        if (instructor == null || instructor.trim().isEmpty()) {
-            return;
+    // Get a copy of the course with an instructor added; courses are never changed once built,
+    // so the course itself is returned if the instructor is blank or already assigned
+    public Course withInstructor(String instructor) {
+        if (instructor == null || instructor.trim().isEmpty() || hasInstructor(instructor)) {
+            return this;
         }
-        
-        // Check if this is the first instructor
-        if (this.instructorName == null || this.instructorName.trim().isEmpty() || this.instructorName.equals("None")) {
-            this.instructorName = instructor;
-            return;
+        LinkedHashSet<String> names = new LinkedHashSet<>(instructorNames);
+        names.add(SymbolTable.INSTRUCTOR_NAMES.canonical(instructor.trim()));
+        return new Course(this, names);
+    }
+
+    // Get the instructors as a read-only set, in the order they were assigned
+    public Set<String> getInstructorNames() {
+        return Collections.unmodifiableSet(instructorNames);
+    }
+
+    // Check whether an instructor is assigned to the course
+    public boolean hasInstructor(String instructor) {
+        return instructor != null && instructorNames.contains(instructor.trim());
+    }
+
+    // Split a comma-separated name list as stored in the data files into canonical names; "None" and blanks are skipped
+    static LinkedHashSet<String> parseNameList(String names, SymbolTable symbols) {
+        LinkedHashSet<String> parsed = new LinkedHashSet<>();
+        if (names == null) {
+            return parsed;
         }
-        
-        // Check if instructor is already assigned to prevent duplicates
-        List<String> instructors = new ArrayList<>(Arrays.asList(this.instructorName.split(",")));
-        for (String existingInstructor : instructors) {
-            if (existingInstructor.trim().equals(instructor.trim())) {
-                return; // Already assigned
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && !trimmed.equalsIgnoreCase("None")) {
+                parsed.add(symbols.canonical(trimmed));
             }
         }
-        
-        // Add the new instructor
-        this.instructorName += ", " + instructor;
+        return parsed;
+    }
+
+    // Join names the way parseNameList splits them; an empty list is stored as "None"
+    static String formatNameList(Set<String> names) {
+        return names.isEmpty() ? "None" : String.join(", ", names);
     }
 
     public String getInstructor() {
-        return instructorName;
+        return getInstructorName();
     }
 
     public String getStartDate() {
@@ -70,6 +109,29 @@ public class Course implements Serializable {
         return endDate;
     }
 
+    // Get the start date as an epoch day, or NO_DATE if it is not a valid yyyy-MM-dd date
+    public long getStartDay() {
+        return startDay;
+    }
+
+    // Get the end date as an epoch day, or NO_DATE if it is not a valid yyyy-MM-dd date
+    public long getEndDay() {
+        return endDay;
+    }
+
+    // Check whether both the start and the end date are valid
+    public boolean hasValidDates() {
+        return startDay != NO_DATE && endDay != NO_DATE;
+    }
+
+    private static long parseDay(String date) {
+        try {
+            return LocalDate.parse(date).toEpochDay();
+        } catch (Exception e) {
+            return NO_DATE;
+        }
+    }
+
     public String getRoom() { // Added getter for 'room' since it's accessed in Admin.java
         return room;
     }
@@ -88,7 +150,7 @@ public class Course implements Serializable {
 
     public void displayCourseInfo() {
         System.out.println("Course Name: " + name);
-        System.out.println("Instructor(s): " + instructorName);
+        System.out.println("Instructor(s): " + getInstructorName());
         System.out.println("Room: " + room);
         System.out.println("Branch: " + branch);
         System.out.println("Price: " + price);
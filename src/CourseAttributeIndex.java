@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of courses by branch, room and price, so catalog queries such as
+ * "Main campus, Lab 3, price below 200" look up the matching courses
+ * instead of filtering the whole course list.
+ *
+ * Branch and room match ignoring case and surrounding spaces. A query
+ * starts from the smallest branch or room list it names, or from the
+ * price range if it names neither, and checks the other conditions on
+ * those courses only. CourseManager keeps the index in step with its
+ * course list.
+ */
+public class CourseAttributeIndex {
+    private static final Comparator<Course> BY_PRICE = Comparator.comparingDouble(Course::getPrice);
+
+    // Sets rather than lists, so a removed course is found without scanning its branch or room
+    private final Map<String, Set<Course>> byBranch = new HashMap<>();
+    private final Map<String, Set<Course>> byRoom = new HashMap<>();
+    private final NavigableMap<Double, List<Course>> byPrice = new TreeMap<>();
+
+    /**
+     * Adds a course.
+     *
+     * @param course The course to add.
+     */
+    public void add(Course course) {
+        byBranch.computeIfAbsent(key(course.getBranch()), k -> new LinkedHashSet<>()).add(course);
+        byRoom.computeIfAbsent(key(course.getRoom()), k -> new LinkedHashSet<>()).add(course);
+        byPrice.computeIfAbsent(course.getPrice(), p -> new ArrayList<>(1)).add(course);
+    }
+
+    /**
+     * Removes a course.
+     *
+     * @param course The course to remove, compared by identity.
+     */
+    public void remove(Course course) {
+        removeFrom(byBranch, key(course.getBranch()), course);
+        removeFrom(byRoom, key(course.getRoom()), course);
+        List<Course> samePrice = byPrice.get(course.getPrice());
+        if (samePrice != null && samePrice.remove(course) && samePrice.isEmpty()) {
+            byPrice.remove(course.getPrice());
+        }
+    }
+
+    /**
+     * Removes all courses.
+     */
+    public void clear() {
+        byBranch.clear();
+        byRoom.clear();
+        byPrice.clear();
+    }
+
+    /**
+     * Finds the courses matching all the given conditions.
+     *
+     * @param branch The branch, or null or blank for any.
+     * @param room The room, or null or blank for any.
+     * @param minPrice The lowest price included, or null for no lower bound.
+     * @param maxPrice The price the courses must be below, or null for no upper bound.
+     * @return The matching courses in price order; courses with the same price are in the order they were added.
+     */
+    public List<Course> find(String branch, String room, Double minPrice, Double maxPrice) {
+        String branchName = isBlank(branch) ? null : branch.trim();
+        String roomName = isBlank(room) ? null : room.trim();
+        Collection<Course> candidates = null;
+        if (branchName != null) {
+            candidates = byBranch.getOrDefault(key(branchName), Collections.emptySet());
+        }
+        if (roomName != null) {
+            Collection<Course> inRoom = byRoom.getOrDefault(key(roomName), Collections.emptySet());
+            if (candidates == null || inRoom.size() < candidates.size()) {
+                candidates = inRoom;
+                roomName = null; // Every candidate is in the room
+            } else {
+                branchName = null; // Every candidate is in the branch
+            }
+        } else {
+            branchName = null; // Only the branch was given, and every candidate is in it
+        }
+
+        List<Course> courses = new ArrayList<>();
+        if (candidates == null) {
+            // Only a price range; every course in it matches
+            for (List<Course> samePrice : priceRange(minPrice, maxPrice)) {
+                courses.addAll(samePrice);
+            }
+            return courses;
+        }
+
+        // equalsIgnoreCase compares the same way as the folded keys
+        for (Course course : candidates) {
+            if ((branchName == null || branchName.equalsIgnoreCase(trim(course.getBranch())))
+                    && (roomName == null || roomName.equalsIgnoreCase(trim(course.getRoom())))
+                    && (minPrice == null || Double.compare(course.getPrice(), minPrice) >= 0)
+                    && (maxPrice == null || Double.compare(course.getPrice(), maxPrice) < 0)) {
+                courses.add(course);
+            }
+        }
+        courses.sort(BY_PRICE); // Stable, so equal prices keep the order they were added in
+        return courses;
+    }
+
+    private static void removeFrom(Map<String, Set<Course>> index, String key, Course course) {
+        Set<Course> courses = index.get(key);
+        if (courses != null && courses.remove(course) && courses.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private Collection<List<Course>> priceRange(Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null) {
+            if (Double.compare(minPrice, maxPrice) >= 0) {
+                return Collections.emptyList();
+            }
+            return byPrice.subMap(minPrice, true, maxPrice, false).values();
+        }
+        if (minPrice != null) {
+            return byPrice.tailMap(minPrice, true).values();
+        }
+        if (maxPrice != null) {
+            return byPrice.headMap(maxPrice, false).values();
+        }
+        return byPrice.values();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static String trim(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : CourseManager.foldCase(value.trim());
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * An immutable version of the course list. CourseManager publishes a new
+ * catalog for every change, so readers on any thread can hold on to one
+ * and iterate it without copying or locking while courses are edited.
+ *
+ * Courses are stored in chunks of 32. A new version copies only the chunk
+ * that changed and the array of chunk references, and shares every other
+ * chunk with the version it was made from.
+ */
+public final class CourseCatalog implements Iterable<Course> {
+    private static final int CHUNK_BITS = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** The empty catalog, version 0. */
+    public static final CourseCatalog EMPTY = new CourseCatalog(0, new Course[0][], 0);
+
+    private final long version;
+    private final Course[][] chunks; // Every chunk is full except possibly the last
+    private final int size;
+    private final List<Course> view = new View();
+
+    private CourseCatalog(long version, Course[][] chunks, int size) {
+        this.version = version;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Creates a catalog holding a list of courses.
+     *
+     * @param courses The courses, in order.
+     * @return The catalog, as version 1.
+     */
+    public static CourseCatalog of(Collection<Course> courses) {
+        return build(1, courses.toArray(new Course[0]));
+    }
+
+    /**
+     * Gets the version number; each change makes a catalog with the next number.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the course at a position.
+     *
+     * @param index The position.
+     * @return The course.
+     */
+    public Course get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * Finds a course object in the catalog.
+     *
+     * @param course The course, compared by identity.
+     * @return Its position, or -1 if it is not in the catalog.
+     */
+    public int indexOf(Course course) {
+        for (int c = 0; c < chunks.length; c++) {
+            Course[] chunk = chunks[c];
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk[i] == course) {
+                    return (c << CHUNK_BITS) + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the catalog as a read-only list; it never changes.
+     *
+     * @return The list view.
+     */
+    public List<Course> asList() {
+        return view;
+    }
+
+    @Override
+    public Iterator<Course> iterator() {
+        return view.iterator();
+    }
+
+    /**
+     * Makes the next version with a course added at the end.
+     *
+     * @param course The course to add.
+     * @return The new catalog.
+     */
+    public CourseCatalog withAdded(Course course) {
+        int chunkIndex = size >>> CHUNK_BITS;
+        Course[][] newChunks;
+        if (chunkIndex == chunks.length) {
+            newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+            newChunks[chunkIndex] = new Course[] {course};
+        } else {
+            newChunks = chunks.clone();
+            Course[] chunk = Arrays.copyOf(chunks[chunkIndex], chunks[chunkIndex].length + 1);
+            chunk[chunk.length - 1] = course;
+            newChunks[chunkIndex] = chunk;
+        }
+        return new CourseCatalog(version + 1, newChunks, size + 1);
+    }
+
+    /**
+     * Makes the next version with the course at a position replaced.
+     *
+     * @param index The position.
+     * @param course The new course.
+     * @return The new catalog.
+     */
+    public CourseCatalog withReplaced(int index, Course course) {
+        get(index); // Checks the index
+        Course[][] newChunks = chunks.clone();
+        Course[] chunk = chunks[index >>> CHUNK_BITS].clone();
+        chunk[index & CHUNK_MASK] = course;
+        newChunks[index >>> CHUNK_BITS] = chunk;
+        return new CourseCatalog(version + 1, newChunks, size);
+    }
+
+    /**
+     * Makes the next version without some courses. The chunks before the
+     * first removed course are shared.
+     *
+     * @param removed The courses to remove, compared by identity.
+     * @return The new catalog.
+     */
+    public CourseCatalog withRemoved(Collection<Course> removed) {
+        Set<Course> remove = Collections.newSetFromMap(new IdentityHashMap<>());
+        remove.addAll(removed);
+        int first = 0;
+        while (first < size && !remove.contains(get(first))) {
+            first++;
+        }
+        if (first == size) {
+            return this;
+        }
+        int keptChunks = first >>> CHUNK_BITS;
+        Course[] rest = new Course[size - (keptChunks << CHUNK_BITS)];
+        int count = 0;
+        for (int i = keptChunks << CHUNK_BITS; i < size; i++) {
+            Course course = get(i);
+            if (!remove.contains(course)) {
+                rest[count++] = course;
+            }
+        }
+        Course[][] newChunks = Arrays.copyOf(chunks, keptChunks + (count + CHUNK_MASK) / CHUNK_SIZE);
+        fill(newChunks, keptChunks, rest, count);
+        return new CourseCatalog(version + 1, newChunks, (keptChunks << CHUNK_BITS) + count);
+    }
+
+    private static CourseCatalog build(long version, Course[] courses) {
+        Course[][] chunks = new Course[(courses.length + CHUNK_MASK) / CHUNK_SIZE][];
+        fill(chunks, 0, courses, courses.length);
+        return new CourseCatalog(version, chunks, courses.length);
+    }
+
+    // Splits courses into chunks starting at chunks[from]
+    private static void fill(Course[][] chunks, int from, Course[] courses, int count) {
+        for (int start = 0, c = from; start < count; start += CHUNK_SIZE, c++) {
+            chunks[c] = Arrays.copyOfRange(courses, start, Math.min(start + CHUNK_SIZE, count));
+        }
+    }
+
+    private class View extends AbstractList<Course> implements RandomAccess {
+        @Override
+        public Course get(int index) {
+            return CourseCatalog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of courses by start and end date, so "starting or ending within N
+ * days" is a range query instead of parsing every course's dates.
+ *
+ * Courses are keyed by the epoch days Course parses its dates into when
+ * it is created. Courses whose dates cannot be parsed are not in the ranges but are
+ * listed by {@link #getInvalidCourses()}. CourseManager keeps the index
+ * in step with its course list.
+ */
+public class CourseDateIndex {
+    private final NavigableMap<Long, List<Course>> byStartDay = new TreeMap<>();
+    private final NavigableMap<Long, List<Course>> byEndDay = new TreeMap<>();
+    private final List<Course> invalidCourses = new ArrayList<>();
+
+    /**
+     * Adds a course.
+     *
+     * @param course The course to add.
+     */
+    public void add(Course course) {
+        if (!course.hasValidDates()) {
+            invalidCourses.add(course);
+            return;
+        }
+        byStartDay.computeIfAbsent(course.getStartDay(), d -> new ArrayList<>(1)).add(course);
+        byEndDay.computeIfAbsent(course.getEndDay(), d -> new ArrayList<>(1)).add(course);
+    }
+
+    /**
+     * Removes a course.
+     *
+     * @param course The course to remove, compared by identity.
+     */
+    public void remove(Course course) {
+        if (!course.hasValidDates()) {
+            invalidCourses.remove(course);
+            return;
+        }
+        removeFrom(byStartDay, course.getStartDay(), course);
+        removeFrom(byEndDay, course.getEndDay(), course);
+    }
+
+    /**
+     * Removes all courses.
+     */
+    public void clear() {
+        byStartDay.clear();
+        byEndDay.clear();
+        invalidCourses.clear();
+    }
+
+    /**
+     * Gets the courses starting in a date range.
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The courses in start date order.
+     */
+    public List<Course> getStartingBetween(LocalDate from, LocalDate to) {
+        return collect(byStartDay, from, to);
+    }
+
+    /**
+     * Gets the courses ending in a date range.
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The courses in end date order.
+     */
+    public List<Course> getEndingBetween(LocalDate from, LocalDate to) {
+        return collect(byEndDay, from, to);
+    }
+
+    /**
+     * Gets the courses starting within a number of days of a date.
+     *
+     * @param days The number of days after the date to include.
+     * @param date The date counted from, included.
+     * @return The courses in start date order.
+     */
+    public List<Course> getStartingWithin(int days, LocalDate date) {
+        return getStartingBetween(date, date.plusDays(days));
+    }
+
+    /**
+     * Gets the courses ending within a number of days of a date.
+     *
+     * @param days The number of days after the date to include.
+     * @param date The date counted from, included.
+     * @return The courses in end date order.
+     */
+    public List<Course> getEndingWithin(int days, LocalDate date) {
+        return getEndingBetween(date, date.plusDays(days));
+    }
+
+    /**
+     * Gets the courses whose start or end date cannot be parsed.
+     *
+     * @return The courses, in the order they were added.
+     */
+    public List<Course> getInvalidCourses() {
+        return new ArrayList<>(invalidCourses);
+    }
+
+    private static void removeFrom(NavigableMap<Long, List<Course>> index, long day, Course course) {
+        List<Course> courses = index.get(day);
+        if (courses != null && courses.remove(course) && courses.isEmpty()) {
+            index.remove(day);
+        }
+    }
+
+    private static List<Course> collect(NavigableMap<Long, List<Course>> index, LocalDate from, LocalDate to) {
+        List<Course> courses = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return courses;
+        }
+        Collection<List<Course>> days = index.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values();
+        for (List<Course> day : days) {
+            courses.addAll(day);
+        }
+        return courses;
+    }
+}
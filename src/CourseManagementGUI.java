@@ -42,8 +42,8 @@ public class CourseManagementGUI extends JFrame {
         File gradesFile = new File("data/grades.txt");
         if (gradesFile.exists()) {
             try {
-                // Try to convert existing file to UTF-8
-                if (!DataManager.convertGradeFileToUTF8()) {
+                // Convert to UTF-8 only if the file does not decode as UTF-8
+                if (!DataManager.isGradeFileValidUTF8() && !DataManager.convertGradeFileToUTF8()) {
                     // If conversion fails, reset the file
                     DataManager.resetGradeFile();
                     JOptionPane.showMessageDialog(this,
@@ -160,6 +160,8 @@ public class CourseManagementGUI extends JFrame {
      * @param args Command-line arguments (not used).
      */
     public static void main(String[] args) {
+        DataManager.selectStorageEngine(System.getProperty("cms.storage"));
+        
         // Use SwingUtilities to ensure GUI is created on EDT
         SwingUtilities.invokeLater(() -> {
             new CourseManagementGUI();
@@ -1,16 +1,29 @@
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class CourseManager { // Renamed from 'coursemanager' to follow Java naming conventions
 
-    private ArrayList<Course> courses;
+    // The current course list; replaced, never changed, so readers can iterate it on any thread
+    private volatile CourseCatalog catalog;
+    // Indexes over the current catalog, guarded by this; the methods that publish
+    // a catalog update them under the same lock. The first course in the list
+    // wins for duplicate names.
+    private final Map<String, Course> coursesByName = new HashMap<>();
+    private final Map<String, List<Course>> coursesByFoldedName = new HashMap<>();
+    private final CourseDateIndex coursesByDate = new CourseDateIndex();
+    private final CourseAttributeIndex coursesByAttribute = new CourseAttributeIndex();
 
     public CourseManager() {
         // Load courses from file when CourseManager is initialized
-        this.courses = DataManager.loadCourses();
+        this.catalog = CourseCatalog.of(DataManager.loadCourses());
+        for (Course course : catalog) {
+            index(course);
+        }
     }
 
     public void addCourseFromInput(Scanner input) {
@@ -32,7 +45,7 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
         System.out.print("Description: ");
         String description = input.nextLine();
 
-        courses.add(new Course(name, instructor, room, branch, price, start, end, description));
+        append(new Course(name, instructor, room, branch, price, start, end, description));
         System.out.println("Course added successfully.");
         
         // Save courses after adding a new one
@@ -43,40 +56,39 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
         System.out.print("Enter course name to update: ");
         String oldName = input.nextLine();
 
-        for (int i = 0; i < courses.size(); i++) {
-            if (courses.get(i).getName().equalsIgnoreCase(oldName)) {
-                System.out.println("Enter new details:");
-                System.out.print("New name: ");
-                String newName = input.nextLine();
-                System.out.print("Instructor: ");
-                String instructor = input.nextLine();
-                System.out.print("Room: ");
-                String room = input.nextLine();
-                System.out.print("Branch: ");
-                String branch = input.nextLine();
-                System.out.print("Price: ");
-                double price = input.nextDouble();
-                input.nextLine();
-                System.out.print("Start date (yyyy-MM-dd): ");
-                String start = input.nextLine();
-                System.out.print("End date (yyyy-MM-dd): ");
-                String end = input.nextLine();
-                System.out.print("Description: ");
-                String description = input.nextLine();
-
-                courses.set(i, new Course(newName, instructor, room, branch, price, start, end, description));
-                System.out.println("Course updated.");
-                
-                // Save courses after updating
-                saveCourses();
-                return;
-            }
+        Course existing = findCourseIgnoreCase(oldName);
+        if (existing != null) {
+            System.out.println("Enter new details:");
+            System.out.print("New name: ");
+            String newName = input.nextLine();
+            System.out.print("Instructor: ");
+            String instructor = input.nextLine();
+            System.out.print("Room: ");
+            String room = input.nextLine();
+            System.out.print("Branch: ");
+            String branch = input.nextLine();
+            System.out.print("Price: ");
+            double price = input.nextDouble();
+            input.nextLine();
+            System.out.print("Start date (yyyy-MM-dd): ");
+            String start = input.nextLine();
+            System.out.print("End date (yyyy-MM-dd): ");
+            String end = input.nextLine();
+            System.out.print("Description: ");
+            String description = input.nextLine();
+
+            replace(existing, new Course(newName, instructor, room, branch, price, start, end, description));
+            System.out.println("Course updated.");
+            
+            // Save courses after updating
+            saveCourses();
+            return;
         }
         System.out.println("Course not found.");
     }
 
     public void deleteCourse(String name) {
-        boolean removed = courses.removeIf(course -> course.getName().equalsIgnoreCase(name));
+        boolean removed = removeIgnoreCase(name);
         System.out.println(removed ? "Deleted successfully." : "Course not found.");
         
         // Save courses after deletion
@@ -87,7 +99,7 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
 
     // Helper method to save courses
     private void saveCourses() {
-        if (DataManager.saveCourses(courses)) {
+        if (DataManager.saveCourses(catalog.asList())) {
             System.out.println("Courses saved to file.");
         } else {
             System.out.println("Failed to save courses to file.");
@@ -95,6 +107,7 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
     }
 
     public void showAllCourses() {
+        CourseCatalog courses = catalog;
         if (courses.isEmpty()) {
             System.out.println("No courses available."); 
         }else {
@@ -103,6 +116,7 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
     }
 
     public void showAllInstructors() {
+        CourseCatalog courses = catalog;
         if (courses.isEmpty()) {
             System.out.println("No courses."); 
         }else {
@@ -114,47 +128,159 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
     }
 
     public void showCoursesNearStartOrEnd() {
-        if (courses.isEmpty()) {
+        if (catalog.isEmpty()) {
             System.out.println("No courses available.");
             return;
         }
 
         LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
         System.out.println("Courses near to start or end within 3 days:");
-        for (Course course : courses) {
-            try {
-                LocalDate start = LocalDate.parse(course.getStartDate(), formatter);
-                LocalDate end = LocalDate.parse(course.getEndDate(), formatter);
-                long startDiff = ChronoUnit.DAYS.between(today, start);
-                long endDiff = ChronoUnit.DAYS.between(today, end);
-
-                if ((startDiff >= 0 && startDiff <= 3) || (endDiff >= 0 && endDiff <= 3)) {
-                    course.displayCourseInfo();
-                }
-            } catch (Exception e) {
-                System.out.println("Invalid date in course: " + course.getName());
-            }
+        LinkedHashSet<Course> nearCourses = new LinkedHashSet<>(getCoursesStartingWithin(3, today));
+        nearCourses.addAll(getCoursesEndingWithin(3, today));
+        nearCourses.forEach(Course::displayCourseInfo);
+        for (Course course : getCoursesWithInvalidDates()) {
+            System.out.println("Invalid date in course: " + course.getName());
         }
     }
 
+    public void findCoursesFromInput(Scanner input) {
+        System.out.print("Branch (blank for any): ");
+        String branch = input.nextLine();
+        System.out.print("Room (blank for any): ");
+        String room = input.nextLine();
+        Double minPrice;
+        Double maxPrice;
+        try {
+            System.out.print("Minimum price (blank for none): ");
+            minPrice = parsePrice(input.nextLine());
+            System.out.print("Price below (blank for none): ");
+            maxPrice = parsePrice(input.nextLine());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid price.");
+            return;
+        }
+
+        List<Course> matches = findCourses(branch, room, minPrice, maxPrice);
+        if (matches.isEmpty()) {
+            System.out.println("No matching courses.");
+        } else {
+            System.out.println(matches.size() + " matching course(s):");
+            matches.forEach(Course::displayCourseInfo);
+        }
+    }
+
+    // Parse an optional price typed at the console; blank means no bound
+    private static Double parsePrice(String text) {
+        return text.trim().isEmpty() ? null : Double.valueOf(text.trim());
+    }
+
     public void showCoursesByNumber() {
+        CourseCatalog courses = catalog;
         for (int i = 0; i < courses.size(); i++) {
             System.out.println((i + 1) + ". " + courses.get(i).getName());
         }
     }
 
     public String getCourseNameByIndex(int index) {
+        CourseCatalog courses = catalog;
         if (index >= 0 && index < courses.size()) {
             return courses.get(index).getName();
         }
         return null;
     }
 
-    // Get all courses
-    public ArrayList<Course> getCourses() {
-        return courses;
+    // Get all courses as a read-only list that keeps the courses of the moment it was taken
+    public List<Course> getCourses() {
+        return catalog.asList();
+    }
+
+    /**
+     * Gets the current version of the course list. It never changes, so it
+     * can be iterated on any thread while courses are edited.
+     * 
+     * @return The catalog.
+     */
+    public CourseCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Gets a course by its exact name.
+     * 
+     * @param name The course name.
+     * @return The first course with that name, or null if there is none.
+     */
+    public synchronized Course getCourse(String name) {
+        return coursesByName.get(name);
+    }
+
+    /**
+     * Gets a course by name, ignoring case as equalsIgnoreCase does.
+     * 
+     * @param name The course name.
+     * @return The first matching course, or null if there is none.
+     */
+    public synchronized Course findCourseIgnoreCase(String name) {
+        List<Course> matches = coursesByFoldedName.get(foldCase(name));
+        return matches == null ? null : matches.get(0);
+    }
+
+    /**
+     * Gets the courses starting within a number of days of a date.
+     * 
+     * @param days The number of days after the date to include.
+     * @param date The date counted from, included.
+     * @return The courses in start date order; courses with invalid dates are left out.
+     */
+    public synchronized List<Course> getCoursesStartingWithin(int days, LocalDate date) {
+        return coursesByDate.getStartingWithin(days, date);
+    }
+
+    /**
+     * Gets the courses ending within a number of days of a date.
+     * 
+     * @param days The number of days after the date to include.
+     * @param date The date counted from, included.
+     * @return The courses in end date order; courses with invalid dates are left out.
+     */
+    public synchronized List<Course> getCoursesEndingWithin(int days, LocalDate date) {
+        return coursesByDate.getEndingWithin(days, date);
+    }
+
+    /**
+     * Gets the courses whose start or end date cannot be parsed.
+     * 
+     * @return The courses in the order they were added or last updated.
+     */
+    public synchronized List<Course> getCoursesWithInvalidDates() {
+        return coursesByDate.getInvalidCourses();
+    }
+
+    /**
+     * Finds the courses matching all the given conditions, for example
+     * findCourses("Main", "Lab 3", null, 200.0) for the Main branch courses in Lab 3 below 200.
+     * Branch and room match ignoring case.
+     * 
+     * @param branch The branch, or null or blank for any.
+     * @param room The room, or null or blank for any.
+     * @param minPrice The lowest price included, or null for no lower bound.
+     * @param maxPrice The price the courses must be below, or null for no upper bound.
+     * @return The matching courses in price order.
+     */
+    public synchronized List<Course> findCourses(String branch, String room, Double minPrice, Double maxPrice) {
+        return coursesByAttribute.find(branch, room, minPrice, maxPrice);
+    }
+
+    /**
+     * Gets the instructor(s) of a course.
+     * 
+     * @param courseName The exact course name.
+     * @return The instructor name(s), or null if there is no such course.
+     */
+    public String getInstructorName(String courseName) {
+        Course course = getCourse(courseName);
+        return course == null ? null : course.getInstructorName();
     }
 
     /**
@@ -174,7 +300,7 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
         double price = 0.0;
         
         // Add the course
-        courses.add(new Course(name, instructor, room, branch, price, startDate, endDate, description));
+        append(new Course(name, instructor, room, branch, price, startDate, endDate, description));
         saveCourses(); // Save changes to file
         return true;
     }
@@ -191,22 +317,22 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
      * @return true if updated successfully.
      */
     public boolean updateCourse(String courseName, String newName, String instructor, String startDate, String endDate, String description) {
-        for (int i = 0; i < courses.size(); i++) {
-            Course course = courses.get(i);
-            if (course.getName().equals(courseName)) {
-                // Create a new course with the updated values
-                // Preserve existing values for room, branch, and price
-                String room = course.getRoom();
-                String branch = course.getBranch();
-                double price = course.getPrice();
-                
-                // Replace the course at the same index
-                courses.set(i, new Course(newName, instructor, room, branch, price, startDate, endDate, description));
-                saveCourses(); // Save changes to file
-                return true;
+        synchronized (this) {
+            Course course = coursesByName.get(courseName);
+            if (course == null) {
+                return false; // Course not found
             }
+            // Create a new course with the updated values
+            // Preserve existing values for room, branch, and price
+            String room = course.getRoom();
+            String branch = course.getBranch();
+            double price = course.getPrice();
+            
+            // Replace the course at the same index
+            replace(course, new Course(newName, instructor, room, branch, price, startDate, endDate, description));
         }
-        return false; // Course not found
+        saveCourses(); // Save changes to file
+        return true;
     }
 
     /**
@@ -216,8 +342,118 @@ public class CourseManager { // Renamed from 'coursemanager' to follow Java nami
      * @return true if added successfully.
      */
     public boolean addCourse(Course course) {
-        courses.add(course);
+        append(course);
         saveCourses(); // Save changes to file
         return true;
     }
+
+    /**
+     * Adds an instructor to a course and saves the courses. The course is
+     * replaced by an updated copy, so earlier catalogs keep the old one.
+     * 
+     * @param courseName The exact course name.
+     * @param instructorName The instructor name.
+     * @return true if the course exists.
+     */
+    public synchronized boolean addInstructorToCourse(String courseName, String instructorName) {
+        Course course = coursesByName.get(courseName);
+        if (course == null) {
+            return false;
+        }
+        Course updated = course.withInstructor(instructorName);
+        if (updated != course) {
+            replace(course, updated);
+            saveCourses(); // Save changes to file
+        }
+        return true;
+    }
+
+    // Publishes a catalog with a course added at the end
+    private synchronized void append(Course course) {
+        catalog = catalog.withAdded(course);
+        index(course);
+    }
+
+    // Publishes a catalog with a course replaced in place
+    private synchronized void replace(Course existing, Course replacement) {
+        int position = catalog.indexOf(existing);
+        if (position < 0) {
+            return; // Replaced or deleted meanwhile
+        }
+        catalog = catalog.withReplaced(position, replacement);
+        unindex(existing);
+        index(replacement, position);
+    }
+
+    // Publishes a catalog without the courses named like name, ignoring case
+    private synchronized boolean removeIgnoreCase(String name) {
+        List<Course> matches = coursesByFoldedName.get(foldCase(name));
+        if (matches == null) {
+            return false;
+        }
+        List<Course> removed = new ArrayList<>(matches);
+        catalog = catalog.withRemoved(removed);
+        for (Course course : removed) {
+            unindex(course);
+        }
+        return true;
+    }
+
+    // Adds a course appended to the list to the name, date and attribute indexes
+    private void index(Course course) {
+        coursesByName.putIfAbsent(course.getName(), course);
+        coursesByFoldedName.computeIfAbsent(foldCase(course.getName()), k -> new ArrayList<>(1)).add(course);
+        coursesByDate.add(course);
+        coursesByAttribute.add(course);
+    }
+
+    // Adds a course placed at a position of the list to the indexes. Courses that share
+    // its name are rare, so finding their positions in the catalog is cheap enough.
+    private void index(Course course, int position) {
+        List<Course> sameName = coursesByFoldedName.computeIfAbsent(foldCase(course.getName()), k -> new ArrayList<>(1));
+        int at = 0;
+        while (at < sameName.size() && catalog.indexOf(sameName.get(at)) < position) {
+            at++;
+        }
+        sameName.add(at, course);
+        for (Course first : sameName) {
+            if (first.getName().equals(course.getName())) {
+                coursesByName.put(course.getName(), first);
+                break;
+            }
+        }
+        coursesByDate.add(course);
+        coursesByAttribute.add(course);
+    }
+
+    // Removes a course from the indexes; the next course with its name takes over the name
+    private void unindex(Course course) {
+        String folded = foldCase(course.getName());
+        List<Course> sameName = coursesByFoldedName.get(folded);
+        if (sameName != null) {
+            sameName.remove(course);
+            if (sameName.isEmpty()) {
+                coursesByFoldedName.remove(folded);
+            }
+        }
+        if (coursesByName.remove(course.getName(), course) && sameName != null) {
+            for (Course next : sameName) {
+                if (next.getName().equals(course.getName())) {
+                    coursesByName.put(course.getName(), next);
+                    break;
+                }
+            }
+        }
+        coursesByDate.remove(course);
+        coursesByAttribute.remove(course);
+    }
+
+    // Folds each character the way String.equalsIgnoreCase compares them
+    static String foldCase(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
 }
@@ -0,0 +1,95 @@
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model that shows a list of courses, such as a
+ * {@link CourseCatalog} view, by reading the courses as cells are drawn
+ * instead of copying them into an array first.
+ *
+ * Each column shows one course field, given by its index: {@link #NAME},
+ * {@link #INSTRUCTORS}, {@link #ROOM}, {@link #BRANCH}, {@link #PRICE},
+ * {@link #START_DATE}, {@link #END_DATE} or {@link #DESCRIPTION}.
+ */
+public class CourseTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public static final int NAME = 0;
+    public static final int INSTRUCTORS = 1;
+    public static final int ROOM = 2;
+    public static final int BRANCH = 3;
+    public static final int PRICE = 4;
+    public static final int START_DATE = 5;
+    public static final int END_DATE = 6;
+    public static final int DESCRIPTION = 7;
+
+    private final List<Course> courses;
+    private final String[] headers;
+    private final int[] fields;
+
+    /**
+     * Creates the model.
+     *
+     * @param courses The courses, one per row; the list must not change while it is shown.
+     * @param headers The column headers, in order.
+     * @param fields The field shown in each column, in the same order.
+     * @throws IllegalArgumentException if the counts differ or a field is unknown.
+     */
+    public CourseTableModel(List<Course> courses, String[] headers, int... fields) {
+        if (headers.length != fields.length) {
+            throw new IllegalArgumentException("Expected " + headers.length + " fields, got " + fields.length);
+        }
+        for (int field : fields) {
+            if (field < NAME || field > DESCRIPTION) {
+                throw new IllegalArgumentException("Unknown course field: " + field);
+            }
+        }
+        this.courses = courses;
+        this.headers = headers;
+        this.fields = fields;
+    }
+
+    /**
+     * Gets the course shown in a row.
+     *
+     * @param row The row.
+     * @return The course.
+     */
+    public Course getCourse(int row) {
+        return courses.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return courses.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return headers[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Course course = courses.get(row);
+        return switch (fields[column]) {
+            case NAME -> course.getName();
+            case INSTRUCTORS -> course.getInstructorName();
+            case ROOM -> course.getRoom();
+            case BRANCH -> course.getBranch();
+            case PRICE -> String.format("%.2f", course.getPrice());
+            case START_DATE -> course.getStartDate();
+            case END_DATE -> course.getEndDate();
+            default -> course.getDescription();
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Make all cells non-editable
+    }
+}
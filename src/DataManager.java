@@ -1,348 +1,268 @@
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Manages data persistence for the Course Management System.
- * Handles saving and loading objects to/from text files.
+ * Forwards saving and loading to the active {@link StorageEngine}, which is
+ * the text files under data/ unless another engine is installed.
  */
 public class DataManager {
-    private static final String DATA_DIR = "data";
-    private static final String COURSES_FILE = DATA_DIR + "/courses.txt";
-    private static final String USERS_FILE = DATA_DIR + "/users.txt";
-    private static final String FEEDBACK_FILE = DATA_DIR + "/feedbacks.txt";
-    private static final String GRADES_FILE = DATA_DIR + "/grades.txt";
-    
+    private static final TextFileStorageEngine textFiles = new TextFileStorageEngine();
+    private static StorageEngine engine = textFiles;
+    // Search index over the engine's feedback, built on first use
+    private static FeedbackIndex feedbackIndex;
+    // The engine's feedback stamp when the index was built
+    private static long feedbackIndexStamp;
+
     /**
-     * Saves a list of courses to a text file.
+     * Gets the storage engine in use.
      * 
-     * @param courses The list of courses to save.
-     * @return true if successful, false otherwise.
+     * @return The active engine.
+     */
+    public static synchronized StorageEngine getStorageEngine() {
+        return engine;
+    }
+
+    /**
+     * Switches to another storage engine. The previous engine is closed
+     * after its queued writes are stored; data is not copied between engines.
+     * 
+     * @param storageEngine The engine to use from now on.
+     */
+    public static synchronized void setStorageEngine(StorageEngine storageEngine) {
+        if (storageEngine == null) {
+            throw new IllegalArgumentException("Storage engine cannot be null");
+        }
+        if (engine != storageEngine) {
+            engine.close();
+            engine = storageEngine;
+            feedbackIndex = null;
+        }
+    }
+
+    /**
+     * Selects the storage engine by name: "text" for the text files under data/,
+     * "memory" to keep everything in memory without saving it, or "lsm" for
+     * the log-structured store under data/lsm. The application reads the name
+     * from the cms.storage system property, for example -Dcms.storage=lsm.
+     * 
+     * @param name The engine name, or null for the text files.
+     * @return true if the engine is in use, false if the name is unknown or the engine cannot be opened.
      */
-    public static boolean saveCourses(ArrayList<Course> courses) {
-        ensureDataDirectoryExists();
-        try (PrintWriter writer = new PrintWriter(new FileWriter(COURSES_FILE))) {
-            // Write header
-            writer.println("# Courses Data - name|instructorName|room|branch|price|startDate|endDate|description");
-            
-            // Write each course as a pipe-delimited line
-            for (Course course : courses) {
-                writer.println(
-                    course.getName() + "|" +
-                    course.getInstructorName() + "|" +
-                    course.getRoom() + "|" +
-                    course.getBranch() + "|" + 
-                    course.getPrice() + "|" +
-                    course.getStartDate() + "|" +
-                    course.getEndDate() + "|" +
-                    course.getDescription()
-                );
+    public static boolean selectStorageEngine(String name) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("text")) {
+            setStorageEngine(textFiles);
+        } else if (name.equalsIgnoreCase("memory")) {
+            setStorageEngine(new InMemoryStorageEngine());
+        } else if (name.equalsIgnoreCase("lsm")) {
+            try {
+                ensureDataDirectoryExists();
+                setStorageEngine(new LogStructuredStorageEngine(new File("data/lsm")));
+            } catch (IOException e) {
+                System.out.println("Error opening log-structured storage: " + e.getMessage());
+                return false;
             }
-            return true;
-        } catch (IOException e) {
-            System.out.println("Error saving courses: " + e.getMessage());
+        } else {
+            System.out.println("Unknown storage engine: " + name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the text files are in use before repairing one of them;
+     * the other engines do not keep these files.
+     */
+    private static synchronized boolean usesTextFiles(String operation) {
+        if (engine != textFiles) {
+            System.out.println("Cannot " + operation + ": only the text file storage engine keeps this file");
             return false;
         }
+        return true;
+    }
+
+    /**
+     * Saves a list of courses.
+     * 
+     * @param courses The list of courses to save.
+     * @return true if successful, false otherwise.
+     */
+    public static boolean saveCourses(List<Course> courses) {
+        return getStorageEngine().saveCourses(courses);
     }
-    
+
     /**
-     * Loads courses from a text file.
+     * Loads courses.
      * 
-     * @return The list of courses or an empty list if the file doesn't exist.
+     * @return The list of courses or an empty list if there are none.
      */
     public static ArrayList<Course> loadCourses() {
-        File file = new File(COURSES_FILE);
-        ArrayList<Course> courses = new ArrayList<>();
-        
-        if (!file.exists()) {
-            return courses;
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(COURSES_FILE))) {
-            String line;
-            // Skip header line
-            reader.readLine(); 
-            
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty() || line.startsWith("#")) {
-                    continue; // Skip empty lines and comments
-                }
-                
-                String[] parts = line.split("\\|");
-                if (parts.length >= 7) {
-                    String name = parts[0];
-                    String instructorName = parts[1];
-                    String room = parts[2];
-                    String branch = parts[3];
-                    double price = 0.0;
-                    try {
-                        price = Double.parseDouble(parts[4]);
-                    } catch (NumberFormatException e) {
-                        // Use default price if parsing fails
-                    }
-                    String startDate = parts[5];
-                    String endDate = parts[6];
-                    
-                    // Add a default empty description
-                    String description = parts.length > 7 ? parts[7] : "";
-                    
-                    courses.add(new Course(name, instructorName, room, branch, price, startDate, endDate, description));
-                }
-            }
-            return courses;
-        } catch (IOException e) {
-            System.out.println("Error loading courses: " + e.getMessage());
-            return courses;
-        }
+        return getStorageEngine().loadCourses();
     }
-    
+
     /**
-     * Saves a list of users to a text file.
+     * Saves a list of users, writing only what changed where the engine can.
      * 
      * @param users The list of users to save.
      * @return true if successful, false otherwise.
      */
     public static boolean saveUsers(List<User> users) {
-        ensureDataDirectoryExists();
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_FILE))) {
-            // Write header
-            writer.println("# Users Data - type|username|password|name|additionalData");
-            
-            // Write each user as a pipe-delimited line
-            for (User user : users) {
-                if (user instanceof Admin) {
-                    Admin admin = (Admin) user;
-                    writer.println("ADMIN|" + 
-                                  admin.getUsername() + "|" + 
-                                  admin.getPassword() + "|" + // Store actual password
-                                  admin.getAdminName() + "|");
-                } 
-                else if (user instanceof Instructor) {
-                    Instructor instructor = (Instructor) user;
-                    writer.println("INSTRUCTOR|" + 
-                                  instructor.getUsername() + "|" + 
-                                  instructor.getPassword() + "|" + // Store actual password
-                                  instructor.getInstructorName() + "|" + 
-                                  instructor.getAssignedCourses());
-                } 
-                else if (user instanceof Student) {
-                    Student student = (Student) user;
-                    StringBuilder courseData = new StringBuilder();
-                    // Format: course1:grade1:letterGrade1,course2:grade2:letterGrade2
-                    ArrayList<String> courses = student.getCourses();
-                    ArrayList<Float> grades = student.getNumericGrades();
-                    ArrayList<String> letterGrades = student.getLetterGrades();
-                    
-                    for (int i = 0; i < courses.size(); i++) {
-                        if (i > 0) {
-                            courseData.append(",");
-                        }
-                        courseData.append(courses.get(i))
-                                 .append(":")
-                                 .append(grades.get(i))
-                                 .append(":")
-                                 .append(letterGrades.get(i));
-                    }
-                    
-                    writer.println("STUDENT|" + 
-                                  student.getUsername() + "|" + 
-                                  student.getPassword() + "|" + // Store actual password
-                                  student.getStudentName() + "|" + 
-                                  courseData.toString());
-                }
-            }
-            return true;
-        } catch (IOException e) {
-            System.out.println("Error saving users: " + e.getMessage());
-            return false;
-        }
+        return getStorageEngine().saveUsers(users);
+    }
+
+    /**
+     * Records an added or changed user.
+     * 
+     * @param user The user whose current state should be recorded.
+     * @return true if successful, false otherwise.
+     */
+    public static boolean logUserUpdate(User user) {
+        return getStorageEngine().logUserUpdate(user);
+    }
+
+    /**
+     * Records a username change.
+     * 
+     * @param oldUsername The username the user was stored under.
+     * @param newUsername The new username.
+     * @return true if successful, false otherwise.
+     */
+    public static boolean logUserRename(String oldUsername, String newUsername) {
+        return getStorageEngine().logUserRename(oldUsername, newUsername);
     }
-    
+
     /**
-     * Loads users from a text file.
+     * Records a user deletion.
      * 
-     * @return The list of users or an empty list if the file doesn't exist.
+     * @param user The deleted user.
+     * @return true if successful, false otherwise.
+     */
+    public static boolean logUserDelete(User user) {
+        return getStorageEngine().logUserDelete(user);
+    }
+
+    /**
+     * Checks whether the users should be written out as a fresh snapshot with saveUsers.
+     * 
+     * @return true if a checkpoint is due.
+     */
+    public static boolean isUserLogCheckpointDue() {
+        return getStorageEngine().isUserLogCheckpointDue();
+    }
+
+    /**
+     * Loads users.
+     * 
+     * @return The list of users or an empty list if there are none.
      */
     public static List<User> loadUsers() {
-        File file = new File(USERS_FILE);
-        List<User> users = new ArrayList<>();
-        
-        if (!file.exists()) {
-            return users;
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            // Skip header line
-            reader.readLine(); 
-            
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty() || line.startsWith("#")) {
-                    continue; // Skip empty lines and comments
-                }
-                
-                String[] parts = line.split("\\|");
-                if (parts.length >= 4) {
-                    String type = parts[0];
-                    String username = parts[1];
-                    String password = parts[2]; 
-                    String name = parts[3];
-                    String additionalData = parts.length > 4 ? parts[4] : "";
-                    
-                    // Create appropriate user object based on type
-                    switch (type) {
-                        case "ADMIN":
-                            users.add(new Admin(username, password, name));
-                            break;
-                            
-                        case "INSTRUCTOR":
-                            users.add(new Instructor(username, password, name, additionalData));
-                            break;
-                            
-                        case "STUDENT":
-                            Student student = new Student(username, password, name);
-                            // Parse course data if exists
-                            if (!additionalData.isEmpty()) {
-                                String[] courseEntries = additionalData.split(",");
-                                for (String courseEntry : courseEntries) {
-                                    String[] courseInfo = courseEntry.split(":");
-                                    if (courseInfo.length >= 3) {
-                                        String courseName = courseInfo[0];
-                                        float grade = 0.0f;
-                                        try {
-                                            grade = Float.parseFloat(courseInfo[1]);
-                                        } catch (NumberFormatException e) {
-                                            // Use default grade if parsing fails
-                                        }
-                                        String letterGrade = courseInfo[2];
-                                        student.addCourse(courseName, grade, letterGrade);
-                                    }
-                                }
-                            }
-                            users.add(student);
-                            break;
-                    }
-                }
-            }
-            return users;
-        } catch (IOException e) {
-            System.out.println("Error loading users: " + e.getMessage());
-            return users;
-        }
+        return getStorageEngine().loadUsers();
     }
-    
+
     /**
      * Ensures the data directory exists.
      * 
      * @return true if the directory exists or was created successfully.
      */
     public static boolean ensureDataDirectoryExists() {
-        File directory = new File(DATA_DIR);
-        if (!directory.exists()) {
-            return directory.mkdir();
-        }
-        return true;
+        return TextFileStorageEngine.ensureDataDirectoryExists();
     }
-    
+
     /**
-     * Ensures the feedback file exists with proper UTF-8 encoding and header.
+     * Saves feedback and waits until it is stored.
+     * Use saveFeedbackAsync to be told when it is stored without waiting.
      * 
-     * @return true if successful, false otherwise.
+     * @param studentName The name of the student providing feedback.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor.
+     * @param feedbackMessage The feedback message.
+     * @return true if the feedback was stored, false otherwise.
      */
-    private static boolean ensureFeedbackFileExists() {
-        ensureDataDirectoryExists();
-        
-        File file = new File(FEEDBACK_FILE);
-        if (!file.exists()) {
-            try (OutputStreamWriter writer = new OutputStreamWriter(
-                     new FileOutputStream(file), "UTF-8");
-                 BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-                
-                // Write a header line to ensure the file has the proper encoding from the start
-                bufferedWriter.write("# Feedback Data - timestamp|studentName|studentUsername|courseName|instructorName|feedbackMessage");
-                bufferedWriter.newLine();
-                return true;
-            } catch (IOException e) {
-                System.out.println("Error creating feedback file: " + e.getMessage());
-                e.printStackTrace();
-                return false;
-            }
-        }
-        return true;
+    public static boolean saveFeedback(String studentName, String studentUsername,
+                                       String courseName, String instructorName,
+                                       String feedbackMessage) {
+        return waitUntilStored(saveFeedbackAsync(studentName, studentUsername, courseName,
+                                                 instructorName, feedbackMessage));
     }
 
     /**
-     * Saves feedback to a text file.
+     * Queues feedback to be stored.
      * 
      * @param studentName The name of the student providing feedback.
      * @param studentUsername The username of the student.
      * @param courseName The name of the course.
      * @param instructorName The name of the instructor.
      * @param feedbackMessage The feedback message.
-     * @return true if successful, false otherwise.
+     * @return A future completed with the position of the record once it is stored;
+     *         for the text files this is its byte offset in feedbacks.txt.
      */
-    public static boolean saveFeedback(String studentName, String studentUsername, 
-                                       String courseName, String instructorName, 
-                                       String feedbackMessage) {
-        // Ensure the file exists with proper UTF-8 encoding
-        ensureFeedbackFileExists();
-        
-        // Create a FileOutputStream with UTF-8 encoding to properly handle special characters
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(FEEDBACK_FILE, true), "UTF-8");
-             BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-            
-            // Format: timestamp|studentName|studentUsername|courseName|instructorName|feedback
-            String timestamp = java.time.LocalDateTime.now().toString();
-            String feedbackLine = 
-                timestamp + "|" +
-                studentName + "|" +
-                studentUsername + "|" +
-                courseName + "|" +
-                instructorName + "|" +
-                feedbackMessage;
-                
-            // Write the line and add a newline
-            bufferedWriter.write(feedbackLine);
-            bufferedWriter.newLine();
-            
-            return true;
-        } catch (IOException e) {
-            System.out.println("Error saving feedback: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    public static CompletableFuture<Long> saveFeedbackAsync(String studentName, String studentUsername,
+                                                            String courseName, String instructorName,
+                                                            String feedbackMessage) {
+        FeedbackRecord feedback = new FeedbackRecord(java.time.LocalDateTime.now().toString(),
+                                                     studentName, studentUsername, courseName,
+                                                     instructorName, feedbackMessage);
+        CompletableFuture<Long> stored;
+        FeedbackIndex queuedIndex;
+        synchronized (DataManager.class) {
+            // Queued under the lock so a concurrent index build sees it either stored or not yet queued
+            stored = engine.saveFeedbackAsync(feedback);
+            queuedIndex = feedbackIndex;
         }
+        // Indexed once stored, off the writer thread, which an index build may be waiting for
+        return stored.thenApplyAsync(offset -> {
+            synchronized (DataManager.class) {
+                // An index built since the feedback was queued read it from storage
+                if (feedbackIndex != null && feedbackIndex == queuedIndex) {
+                    feedbackIndex.add(feedback);
+                }
+            }
+            return offset;
+        });
     }
-    
+
     /**
-     * Ensures the grades file exists with proper UTF-8 encoding and header.
+     * Gets the search index over all feedback, building it from the stored
+     * feedback on first use. Feedback saved through DataManager is added to it
+     * once stored; the index is built again if the stored feedback was changed
+     * otherwise, for example by another copy of the application.
      * 
-     * @return true if successful, false otherwise.
+     * @return The index.
      */
-    private static boolean ensureGradeFileExists() {
-        ensureDataDirectoryExists();
-        
-        File file = new File(GRADES_FILE);
-        if (!file.exists()) {
-            try (OutputStreamWriter writer = new OutputStreamWriter(
-                     new FileOutputStream(file), "UTF-8");
-                 BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-                
-                // Write a header line to ensure the file has the proper encoding from the start
-                bufferedWriter.write("# Grades Data - timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade");
-                bufferedWriter.newLine();
-                return true;
-            } catch (IOException e) {
-                System.out.println("Error creating grades file: " + e.getMessage());
-                e.printStackTrace();
-                return false;
+    public static synchronized FeedbackIndex getFeedbackIndex() {
+        long stamp = engine.getFeedbackStamp();
+        if (feedbackIndex == null || stamp != feedbackIndexStamp) {
+            FeedbackIndex index = new FeedbackIndex();
+            for (FeedbackRecord feedback : engine.loadFeedbacks()) {
+                index.add(feedback);
             }
+            feedbackIndex = index;
+            feedbackIndexStamp = stamp;
         }
-        return true;
+        return feedbackIndex;
     }
 
     /**
-     * Saves a grade to the grades file.
+     * Searches the feedback, see {@link FeedbackIndex#search(String, String, String)}.
+     * 
+     * @param query Terms and "quoted phrases" that must all occur in the message, or blank for any.
+     * @param course The course name to filter on, or blank for any.
+     * @param instructor The instructor name to filter on, or blank for any.
+     * @return The matching feedback, oldest first.
+     */
+    public static synchronized List<FeedbackRecord> searchFeedback(String query, String course, String instructor) {
+        return getFeedbackIndex().search(query, course, instructor);
+    }
+
+    /**
+     * Saves a grade and waits until it is stored.
+     * Use saveGradeAsync to be told when it is stored without waiting.
      * 
      * @param studentName The name of the student.
      * @param studentUsername The username of the student.
@@ -350,143 +270,109 @@ public class DataManager {
      * @param instructorName The name of the instructor.
      * @param numericGrade The numeric grade.
      * @param letterGrade The letter grade.
-     * @return true if successful, false otherwise.
+     * @return true if the grade was stored, false otherwise.
      */
-    public static boolean saveGrade(String studentName, String studentUsername, 
-                                  String courseName, String instructorName, 
+    public static boolean saveGrade(String studentName, String studentUsername,
+                                  String courseName, String instructorName,
                                   float numericGrade, String letterGrade) {
-        // Ensure the file exists with proper UTF-8 encoding
-        ensureGradeFileExists();
-        
-        // Create a FileOutputStream with UTF-8 encoding to properly handle special characters
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(GRADES_FILE, true), "UTF-8");
-             BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-            
-            // Format: timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade
-            String timestamp = java.time.LocalDateTime.now().toString();
-            String gradeLine = 
-                timestamp + "|" +
-                studentName + "|" +
-                studentUsername + "|" +
-                courseName + "|" +
-                instructorName + "|" +
-                numericGrade + "|" +
-                letterGrade;
-                
-            // Write the line and add a newline
-            bufferedWriter.write(gradeLine);
-            bufferedWriter.newLine();
-            
+        return waitUntilStored(saveGradeAsync(studentName, studentUsername, courseName,
+                                              instructorName, numericGrade, letterGrade));
+    }
+
+    /**
+     * Waits for a queued record; the engine reports the error if it could not be stored.
+     */
+    private static boolean waitUntilStored(CompletableFuture<Long> write) {
+        try {
+            write.join();
             return true;
-        } catch (IOException e) {
-            System.out.println("Error saving grade: " + e.getMessage());
+        } catch (CompletionException e) {
             return false;
         }
     }
 
+    /**
+     * Queues a grade to be stored.
+     * 
+     * @param studentName The name of the student.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor.
+     * @param numericGrade The numeric grade.
+     * @param letterGrade The letter grade.
+     * @return A future completed with the position of the record once it is stored;
+     *         for the text files this is its byte offset in grades.txt.
+     */
+    public static CompletableFuture<Long> saveGradeAsync(String studentName, String studentUsername,
+                                                         String courseName, String instructorName,
+                                                         float numericGrade, String letterGrade) {
+        return getStorageEngine().saveGradeAsync(studentName, studentUsername, courseName,
+                                                 instructorName, numericGrade, letterGrade);
+    }
+
+    /**
+     * Loads the most recent grade per student and course.
+     * 
+     * @return The latest grades, or an empty list if they cannot be read.
+     */
+    public static Collection<GradeRecord> loadLatestGrades() {
+        return getStorageEngine().loadLatestGrades();
+    }
+
+    /**
+     * Loads every grade given in a time range.
+     * 
+     * @param from The earliest timestamp (ISO date-time) to include, or null for no lower bound.
+     * @param to The latest timestamp (ISO date-time) to include, or null for no upper bound.
+     * @return The grades in the order they were given, or an empty list if they cannot be read.
+     */
+    public static List<GradeRecord> loadGradeHistory(String from, String to) {
+        return getStorageEngine().loadGradeHistory(from, to);
+    }
+
+    /**
+     * Loads the whole grade history as off-heap columns, for reports that scan many grades.
+     * 
+     * @return A read-only snapshot of the columns.
+     */
+    public static GradeColumns loadGradeColumns() {
+        return getStorageEngine().loadGradeColumns();
+    }
+
+    /**
+     * Waits until all queued feedback and grade records are stored.
+     * Call this before reading feedbacks.txt or grades.txt directly.
+     */
+    public static void flushPendingWrites() {
+        getStorageEngine().flushPendingWrites();
+    }
+
     /**
      * Utility method to reset the feedback file if it's corrupted.
      * This should be called by the admin if the feedback file contains unreadable characters.
      * 
      * @return true if the file was successfully reset, false otherwise.
      */
-    public static boolean resetFeedbackFile() {
-        ensureDataDirectoryExists();
-        
-        File file = new File(FEEDBACK_FILE);
-        if (file.exists()) {
-            if (!file.delete()) {
-                System.out.println("Error deleting corrupted feedback file");
-                return false;
-            }
+    public static synchronized boolean resetFeedbackFile() {
+        if (!usesTextFiles("reset the feedback file")) {
+            return false;
         }
-        
-        return ensureFeedbackFileExists();
+        feedbackIndex = null;
+        return textFiles.resetFeedbackFile();
     }
-    
+
     /**
      * Utility method to convert an existing feedback file to UTF-8 format.
      * This should be called if the feedback file is corrupted but contains valuable data.
      * 
      * @return true if the file was successfully converted, false otherwise.
      */
-    public static boolean convertFeedbackFileToUTF8() {
-        ensureDataDirectoryExists();
-        
-        File originalFile = new File(FEEDBACK_FILE);
-        if (!originalFile.exists()) {
-            return ensureFeedbackFileExists();
-        }
-        
-        File tempFile = new File(FEEDBACK_FILE + ".temp");
-        
-        try {
-            // Try different encodings to read the file
-            String[] encodingsToTry = {"UTF-8", "ISO-8859-1", "windows-1252", "US-ASCII"};
-            boolean conversionSuccessful = false;
-            
-            for (String encoding : encodingsToTry) {
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(originalFile), encoding));
-                     OutputStreamWriter writer = new OutputStreamWriter(
-                        new FileOutputStream(tempFile), "UTF-8");
-                     BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-                    
-                    // Write the UTF-8 header
-                    bufferedWriter.write("# Feedback Data - timestamp|studentName|studentUsername|courseName|instructorName|feedbackMessage");
-                    bufferedWriter.newLine();
-                    
-                    // Copy each line
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        // Skip the original header or empty lines
-                        if (line.trim().isEmpty() || line.startsWith("#")) {
-                            continue;
-                        }
-                        
-                        // Check if the line is valid feedback by verifying it has the expected format
-                        // Must contain at least 5 pipe characters for 6 fields
-                        int pipeCount = line.length() - line.replace("|", "").length();
-                        if (pipeCount >= 5) {
-                            bufferedWriter.write(line);
-                            bufferedWriter.newLine();
-                        }
-                    }
-                    
-                    conversionSuccessful = true;
-                    break; // Exit the loop if successful
-                } catch (Exception e) {
-                    System.out.println("Failed to convert with encoding " + encoding + ": " + e.getMessage());
-                    // Continue trying other encodings
-                }
-            }
-            
-            if (!conversionSuccessful) {
-                System.out.println("Failed to convert feedback file with any encoding");
-                tempFile.delete();
-                return false;
-            }
-            
-            // Replace the original file with the converted file
-            if (originalFile.delete() && tempFile.renameTo(originalFile)) {
-                return true;
-            } else {
-                System.out.println("Error replacing old feedback file with converted file");
-                return false;
-            }
-            
-        } catch (Exception e) {
-            System.out.println("Error converting feedback file: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Clean up temp file if exists
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
-            
+    public static synchronized boolean convertFeedbackFileToUTF8() {
+        if (!usesTextFiles("convert the feedback file")) {
             return false;
         }
+        feedbackIndex = null;
+        return textFiles.convertFeedbackFileToUTF8();
     }
 
     /**
@@ -496,19 +382,25 @@ public class DataManager {
      * @return true if the file was successfully reset, false otherwise.
      */
     public static boolean resetGradeFile() {
-        ensureDataDirectoryExists();
-        
-        File file = new File(GRADES_FILE);
-        if (file.exists()) {
-            if (!file.delete()) {
-                System.out.println("Error deleting corrupted grades file");
-                return false;
-            }
+        if (!usesTextFiles("reset the grades file")) {
+            return false;
         }
-        
-        return ensureGradeFileExists();
+        return textFiles.resetGradeFile();
     }
-    
+
+    /**
+     * Checks whether the grades file is valid UTF-8 without rewriting it.
+     * Only the part appended since the last successful check is read.
+     * 
+     * @return true if the file is valid, does not exist or is not in use, false if it needs converting.
+     */
+    public static boolean isGradeFileValidUTF8() {
+        if (getStorageEngine() != textFiles) {
+            return true; // Nothing to check
+        }
+        return textFiles.isGradeFileValidUTF8();
+    }
+
     /**
      * Utility method to convert an existing grades file to UTF-8 format.
      * This should be called if the grades file is corrupted but contains valuable data.
@@ -516,80 +408,9 @@ public class DataManager {
      * @return true if the file was successfully converted, false otherwise.
      */
     public static boolean convertGradeFileToUTF8() {
-        ensureDataDirectoryExists();
-        
-        File originalFile = new File(GRADES_FILE);
-        if (!originalFile.exists()) {
-            return ensureGradeFileExists();
-        }
-        
-        File tempFile = new File(GRADES_FILE + ".temp");
-        
-        try {
-            // Try different encodings to read the file
-            String[] encodingsToTry = {"UTF-8", "ISO-8859-1", "windows-1252", "US-ASCII"};
-            boolean conversionSuccessful = false;
-            
-            for (String encoding : encodingsToTry) {
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(originalFile), encoding));
-                     OutputStreamWriter writer = new OutputStreamWriter(
-                        new FileOutputStream(tempFile), "UTF-8");
-                     BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
-                    
-                    // Write the UTF-8 header
-                    bufferedWriter.write("# Grades Data - timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade");
-                    bufferedWriter.newLine();
-                    
-                    // Copy each line
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        // Skip the original header or empty lines
-                        if (line.trim().isEmpty() || line.startsWith("#")) {
-                            continue;
-                        }
-                        
-                        // Check if the line is valid grade data by verifying it has the expected format
-                        // Must contain at least 6 pipe characters for 7 fields
-                        int pipeCount = line.length() - line.replace("|", "").length();
-                        if (pipeCount >= 6) {
-                            bufferedWriter.write(line);
-                            bufferedWriter.newLine();
-                        }
-                    }
-                    
-                    conversionSuccessful = true;
-                    break; // Exit the loop if successful
-                } catch (Exception e) {
-                    System.out.println("Failed to convert with encoding " + encoding + ": " + e.getMessage());
-                    // Continue trying other encodings
-                }
-            }
-            
-            if (!conversionSuccessful) {
-                System.out.println("Failed to convert grades file with any encoding");
-                tempFile.delete();
-                return false;
-            }
-            
-            // Replace the original file with the converted file
-            if (originalFile.delete() && tempFile.renameTo(originalFile)) {
-                return true;
-            } else {
-                System.out.println("Error replacing old grades file with converted file");
-                return false;
-            }
-            
-        } catch (Exception e) {
-            System.out.println("Error converting grades file: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Clean up temp file if exists
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
-            
+        if (!usesTextFiles("convert the grades file")) {
             return false;
         }
+        return textFiles.convertGradeFileToUTF8();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Checks that a file is valid UTF-8 without rewriting it.
+ *
+ * After a successful check a marker file ("&lt;name&gt;.valid") records how many
+ * bytes were validated together with a checksum of the first and last block
+ * of those bytes. The next check skips a file whose marker still matches and,
+ * for a file that has only been appended to, decodes just the new tail.
+ */
+public class EncodingValidator {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHECKSUM_BLOCK = 4096;
+    private static final String MARKER_SUFFIX = ".valid";
+    private static final String MARKER_HEADER = "# UTF-8 validation marker - validatedLength|checksum";
+
+    /**
+     * Checks whether a file is valid UTF-8, reusing an earlier result where possible.
+     *
+     * @param file The file to check.
+     * @return true if the whole file is valid UTF-8.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean validate(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            long validated = readMarker(file, channel);
+            if (validated == length) {
+                return true;
+            }
+
+            // validated is 0 when there is no usable marker, so the whole file is checked
+            if (!decodes(channel, validated, length)) {
+                return false;
+            }
+            writeMarker(file, length, checksum(channel, length));
+            return true;
+        }
+    }
+
+    /**
+     * Forgets the result of earlier checks, for example after the file was replaced.
+     *
+     * @param file The checked file.
+     */
+    public static void invalidate(File file) {
+        markerFile(file).delete();
+    }
+
+    /**
+     * Decodes a byte range in fixed-size chunks, stopping at the first error.
+     */
+    private static boolean decodes(FileChannel channel, long from, long to) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        CharBuffer out = CharBuffer.allocate(BUFFER_SIZE);
+
+        long position = from;
+        while (position < to) {
+            in.limit((int) Math.min(in.capacity(), in.position() + (to - position)));
+            int read = channel.read(in, position);
+            if (read < 0) {
+                break; // File shrank while being checked
+            }
+            position += read;
+            in.flip();
+            CoderResult result = decoder.decode(in, out, position >= to);
+            if (result.isError()) {
+                return false;
+            }
+            out.clear(); // Decoded characters are not needed
+            in.compact();
+        }
+
+        in.flip();
+        CoderResult result = decoder.decode(in, out, true);
+        if (result.isError()) {
+            return false;
+        }
+        return !decoder.flush(out).isError();
+    }
+
+    /**
+     * Reads the marker and returns the validated length if it still matches the
+     * file, or 0 if the file has to be checked from the start.
+     */
+    private static long readMarker(File file, FileChannel channel) throws IOException {
+        File marker = markerFile(file);
+        if (!marker.exists()) {
+            return 0;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(marker))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\|");
+                if (parts.length < 2) {
+                    return 0;
+                }
+                long validated = Long.parseLong(parts[0].trim());
+                long checksum = Long.parseLong(parts[1].trim());
+                if (validated > channel.size() || checksum(channel, validated) != checksum) {
+                    return 0; // Truncated or rewritten since it was checked
+                }
+                return validated;
+            }
+        } catch (NumberFormatException e) {
+            // Unreadable marker; check the whole file
+        }
+        return 0;
+    }
+
+    private static void writeMarker(File file, long validated, long checksum) {
+        try (PrintWriter writer = new PrintWriter(markerFile(file))) {
+            writer.println(MARKER_HEADER);
+            writer.println(validated + "|" + checksum);
+        } catch (IOException e) {
+            // Without a marker the next check just reads the whole file again
+            System.out.println("Error writing validation marker: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checksums the first and last block of the first length bytes of the file.
+     */
+    private static long checksum(FileChannel channel, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer block = ByteBuffer.allocate(CHECKSUM_BLOCK);
+        updateChecksum(crc, channel, block, 0, Math.min(CHECKSUM_BLOCK, length));
+        updateChecksum(crc, channel, block, Math.max(0, length - CHECKSUM_BLOCK), length);
+        crc.update((int) (length ^ (length >>> 32)));
+        return crc.getValue();
+    }
+
+    private static void updateChecksum(CRC32 crc, FileChannel channel, ByteBuffer block,
+                                       long from, long to) throws IOException {
+        block.clear();
+        block.limit((int) (to - from));
+        long position = from;
+        while (block.hasRemaining()) {
+            int read = channel.read(block, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        crc.update(block.array(), 0, block.position());
+    }
+
+    private static File markerFile(File file) {
+        return new File(file.getPath() + MARKER_SUFFIX);
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Index from course name to the usernames of the students enrolled in it, so
+ * a course roster does not need a scan of every student's course list.
+ *
+ * UserDirectory adds and removes students as a whole; a student in the
+ * directory reports single enrollments itself from addCourse and updateCourse.
+ */
+public class EnrollmentIndex {
+    private final Map<String, NavigableSet<String>> rosters = new HashMap<>();
+
+    /**
+     * Records that a student is enrolled in a course.
+     *
+     * @param course The course name.
+     * @param username The student's username.
+     */
+    public void enroll(String course, String username) {
+        rosters.computeIfAbsent(SymbolTable.COURSE_NAMES.canonical(course), c -> new TreeSet<>()).add(username);
+    }
+
+    /**
+     * Records that a student is no longer enrolled in a course.
+     *
+     * @param course The course name.
+     * @param username The student's username.
+     */
+    public void unenroll(String course, String username) {
+        NavigableSet<String> roster = rosters.get(course);
+        if (roster != null && roster.remove(username) && roster.isEmpty()) {
+            rosters.remove(course);
+        }
+    }
+
+    /**
+     * Records every course a student is enrolled in.
+     *
+     * @param username The student's username.
+     * @param courses The student's courses.
+     */
+    public void addStudent(String username, List<String> courses) {
+        for (String course : courses) {
+            enroll(course, username);
+        }
+    }
+
+    /**
+     * Removes a student from the rosters of its courses.
+     *
+     * @param username The username the student is indexed under.
+     * @param courses The student's courses.
+     */
+    public void removeStudent(String username, List<String> courses) {
+        for (String course : courses) {
+            unenroll(course, username);
+        }
+    }
+
+    /**
+     * Gets the students enrolled in a course.
+     *
+     * @param course The course name.
+     * @return A read-only view of the usernames in username order, empty if there are none.
+     */
+    public NavigableSet<String> getStudents(String course) {
+        NavigableSet<String> roster = rosters.get(course);
+        return roster == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(roster);
+    }
+
+    /**
+     * Gets the number of students enrolled in a course.
+     *
+     * @param course The course name.
+     * @return The number of students.
+     */
+    public int count(String course) {
+        NavigableSet<String> roster = rosters.get(course);
+        return roster == null ? 0 : roster.size();
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over feedback messages, so feedback can be searched without
+ * rescanning the feedback log.
+ *
+ * Each feedback gets an id in the order it was added. Message terms, course
+ * names and instructor names each map to a postings list of ids; since ids
+ * only grow, every list stays sorted and a query is an intersection of
+ * lists. Phrases are matched on their terms first and then checked against
+ * the messages that contain all of them.
+ *
+ * DataManager builds the index from the stored feedback on first use and adds
+ * feedback to it as it is saved.
+ */
+public class FeedbackIndex {
+    private final List<FeedbackRecord> feedbacks = new ArrayList<>();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<String, Postings> courses = new HashMap<>();
+    private final Map<String, Postings> instructors = new HashMap<>();
+
+    /**
+     * Adds a feedback.
+     *
+     * @param feedback The feedback to add.
+     */
+    public synchronized void add(FeedbackRecord feedback) {
+        int id = feedbacks.size();
+        feedbacks.add(feedback);
+        for (String term : tokenize(feedback.getMessage())) {
+            post(terms, term, id);
+        }
+        post(courses, normalize(feedback.getCourseName()), id);
+        for (String instructor : Course.parseNameList(feedback.getInstructorName(), SymbolTable.INSTRUCTOR_NAMES)) {
+            post(instructors, normalize(instructor), id);
+        }
+    }
+
+    /**
+     * Finds the feedback matching a query.
+     *
+     * The query is a list of terms and "quoted phrases", all of which must
+     * occur in the message; case and punctuation are ignored. The course and
+     * instructor filters match whole names, ignoring case.
+     *
+     * @param query The terms and phrases, or null or blank for any message.
+     * @param course The course name to filter on, or null or blank for any course.
+     * @param instructor The instructor name to filter on, or null or blank for any instructor.
+     * @return The matching feedback, oldest first.
+     */
+    public synchronized List<FeedbackRecord> search(String query, String course, String instructor) {
+        List<Postings> lists = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        if (course != null && !course.trim().isEmpty()) {
+            lists.add(courses.get(normalize(course)));
+        }
+        if (instructor != null && !instructor.trim().isEmpty()) {
+            lists.add(instructors.get(normalize(instructor)));
+        }
+        if (query != null) {
+            for (List<String> clause : parseQuery(query)) {
+                for (String term : clause) {
+                    lists.add(terms.get(term));
+                }
+                if (clause.size() > 1) {
+                    phrases.add(clause);
+                }
+            }
+        }
+
+        List<FeedbackRecord> results = new ArrayList<>();
+        if (lists.isEmpty()) {
+            results.addAll(feedbacks);
+            return results;
+        }
+        if (lists.contains(null)) {
+            return results; // A term or name that occurs nowhere
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] ids = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int count = ids.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(ids, count, lists.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            FeedbackRecord feedback = feedbacks.get(ids[i]);
+            if (phrases.isEmpty() || containsPhrases(feedback.getMessage(), phrases)) {
+                results.add(feedback);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets all indexed feedback.
+     *
+     * @return The feedback, oldest first.
+     */
+    public synchronized List<FeedbackRecord> getAll() {
+        return new ArrayList<>(feedbacks);
+    }
+
+    /**
+     * Gets the number of indexed feedback messages.
+     *
+     * @return The number of messages.
+     */
+    public synchronized int size() {
+        return feedbacks.size();
+    }
+
+    /**
+     * Splits text into lower-case terms of letters and digits.
+     *
+     * @param text The text.
+     * @return The terms in the order they occur.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Splits a query into clauses: one term each, or the terms of a quoted phrase
+    private static List<List<String>> parseQuery(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = tokenize(parts[i]);
+            if (i % 2 == 1) {
+                if (!tokens.isEmpty()) {
+                    clauses.add(tokens);
+                }
+            } else {
+                for (String token : tokens) {
+                    clauses.add(List.of(token));
+                }
+            }
+        }
+        return clauses;
+    }
+
+    private static boolean containsPhrases(String message, List<List<String>> phrases) {
+        List<String> tokens = tokenize(message);
+        for (List<String> phrase : phrases) {
+            if (Collections.indexOfSubList(tokens, phrase) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Keeps the ids that are also in the postings list; both are sorted
+    private static int intersect(int[] ids, int count, Postings postings) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < postings.size; i++) {
+            while (j < postings.size && postings.ids[j] < ids[i]) {
+                j++;
+            }
+            if (j < postings.size && postings.ids[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+
+    private static void post(Map<String, Postings> index, String key, int id) {
+        index.computeIfAbsent(key, k -> new Postings()).add(id);
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A growable sorted list of feedback ids.
+     */
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return; // Term repeated in the same message
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Represents one line of the feedback log: a message a student left for a course.
+ */
+public class FeedbackRecord {
+    // Instructor lists are free text that only feedback repeats; they are shared, not numbered
+    private static final StringPool INSTRUCTOR_LISTS = new StringPool();
+
+    private final String timestamp;
+    private final String studentName;
+    private final String studentUsername;
+    private final String courseName;
+    private final String instructorName;
+    private final String message;
+
+    /**
+     * Constructor for FeedbackRecord.
+     *
+     * @param timestamp When the feedback was given, as an ISO local date-time.
+     * @param studentName The name of the student.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor(s).
+     * @param message The feedback message.
+     */
+    public FeedbackRecord(String timestamp, String studentName, String studentUsername,
+                          String courseName, String instructorName, String message) {
+        this.timestamp = timestamp;
+        this.studentName = studentName;
+        this.studentUsername = studentUsername;
+        this.courseName = SymbolTable.COURSE_NAMES.canonical(courseName);
+        this.instructorName = INSTRUCTOR_LISTS.canonical(instructorName);
+        this.message = message;
+    }
+
+    /**
+     * Parses a feedback file line. The message is the rest of the line, so it
+     * may contain '|' itself.
+     *
+     * @param line The line.
+     * @return The feedback, or null if the line does not have all six fields.
+     */
+    public static FeedbackRecord parse(String line) {
+        String[] parts = new String[5];
+        int start = 0;
+        for (int i = 0; i < parts.length; i++) {
+            int end = line.indexOf('|', start);
+            if (end < 0) {
+                return null;
+            }
+            parts[i] = line.substring(start, end);
+            start = end + 1;
+        }
+        return new FeedbackRecord(parts[0], parts[1], parts[2], parts[3], parts[4],
+                                  line.substring(start).trim());
+    }
+
+    /**
+     * Formats the feedback as a feedback file line.
+     *
+     * @return timestamp|studentName|studentUsername|courseName|instructorName|feedbackMessage
+     */
+    public String format() {
+        return timestamp + "|" +
+               studentName + "|" +
+               studentUsername + "|" +
+               courseName + "|" +
+               instructorName + "|" +
+               message;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public String getStudentUsername() {
+        return studentUsername;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public String getInstructorName() {
+        return instructorName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
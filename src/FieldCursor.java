@@ -0,0 +1,246 @@
+/**
+ * Walks the separator-delimited fields of a character sequence in place,
+ * without regular expressions or intermediate arrays. A cursor is reused by
+ * calling {@link #reset(CharSequence)} for every record; a second cursor can
+ * walk the sub-fields of the current field (for example the "course:grade:letter"
+ * entries inside a users.txt record).
+ */
+public class FieldCursor {
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Largest integers every value up to which is exactly representable
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final char separator;
+    private CharSequence source = "";
+    private int rangeStart;
+    private int limit;
+    private int position;
+    private int fieldStart;
+    private int fieldEnd;
+    // Set by parseMantissa for the number just read
+    private int lastFractionDigits;
+    private boolean lastNegative;
+
+    /**
+     * Creates a cursor for the given field separator.
+     *
+     * @param separator The character between fields, such as '|' or ','.
+     */
+    public FieldCursor(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Points the cursor at a whole record.
+     *
+     * @param source The record to walk.
+     * @return This cursor.
+     */
+    public FieldCursor reset(CharSequence source) {
+        return reset(source, 0, source.length());
+    }
+
+    /**
+     * Points the cursor at part of a record.
+     *
+     * @param source The text containing the fields.
+     * @param start The first character of the range.
+     * @param end One past the last character of the range.
+     * @return This cursor.
+     */
+    public FieldCursor reset(CharSequence source, int start, int end) {
+        this.source = source;
+        this.rangeStart = start;
+        this.limit = end;
+        this.position = start;
+        this.fieldStart = start;
+        this.fieldEnd = start;
+        return this;
+    }
+
+    /**
+     * Moves to the next field.
+     *
+     * @return true if there was another field, false at the end of the range.
+     */
+    public boolean next() {
+        if (position > limit) {
+            return false;
+        }
+        fieldStart = position;
+        int i = position;
+        while (i < limit && source.charAt(i) != separator) {
+            i++;
+        }
+        fieldEnd = i;
+        position = i + 1;
+        return true;
+    }
+
+    /**
+     * Counts the fields in the range the way String.split does, so trailing
+     * empty fields are not counted.
+     *
+     * @return The field count.
+     */
+    public int count() {
+        if (rangeStart == limit) {
+            return 1;
+        }
+        int fields = 1;
+        int lastNonEmpty = 0;
+        int currentLength = 0;
+        for (int i = rangeStart; i < limit; i++) {
+            if (source.charAt(i) == separator) {
+                if (currentLength > 0) {
+                    lastNonEmpty = fields;
+                }
+                fields++;
+                currentLength = 0;
+            } else {
+                currentLength++;
+            }
+        }
+        return currentLength > 0 ? fields : lastNonEmpty;
+    }
+
+    /**
+     * Gets the start of the current field in the source.
+     *
+     * @return The index of the first character.
+     */
+    public int start() {
+        return fieldStart;
+    }
+
+    /**
+     * Gets the end of the current field in the source.
+     *
+     * @return The index one past the last character.
+     */
+    public int end() {
+        return fieldEnd;
+    }
+
+    /**
+     * Checks whether the current field has no characters.
+     *
+     * @return true if the field is empty.
+     */
+    public boolean isEmpty() {
+        return fieldStart == fieldEnd;
+    }
+
+    /**
+     * Gets the current field as a String.
+     *
+     * @return The field value.
+     */
+    public String field() {
+        return source.subSequence(fieldStart, fieldEnd).toString();
+    }
+
+    /**
+     * Compares the current field with a value without creating a String.
+     *
+     * @param value The value to compare with.
+     * @return true if the field equals the value.
+     */
+    public boolean fieldEquals(String value) {
+        int length = fieldEnd - fieldStart;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(fieldStart + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current field as a float. Plain decimals such as "85.5" are
+     * parsed in place; anything else goes through Float.parseFloat, so the
+     * result is always the same as Float.parseFloat would give.
+     *
+     * @param defaultValue The value to return if the field is not a number.
+     * @return The parsed value or the default.
+     */
+    public float floatValue(float defaultValue) {
+        long mantissa = parseMantissa();
+        int fractionDigits = lastFractionDigits;
+        if (mantissa < 0 || mantissa > MAX_EXACT_FLOAT || fractionDigits >= FLOAT_POWERS_OF_TEN.length) {
+            try {
+                return Float.parseFloat(field());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        // Both operands are exact, so the single division is correctly rounded
+        float value = (float) mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+        return lastNegative ? -value : value;
+    }
+
+    /**
+     * Parses the current field as a double, with the same fast path and
+     * fallback as {@link #floatValue(float)}.
+     *
+     * @param defaultValue The value to return if the field is not a number.
+     * @return The parsed value or the default.
+     */
+    public double doubleValue(double defaultValue) {
+        long mantissa = parseMantissa();
+        int fractionDigits = lastFractionDigits;
+        if (mantissa < 0 || mantissa > MAX_EXACT_DOUBLE || fractionDigits >= DOUBLE_POWERS_OF_TEN.length) {
+            try {
+                return Double.parseDouble(field());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        double value = (double) mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+        return lastNegative ? -value : value;
+    }
+
+    /**
+     * Reads an optional sign, digits and at most one decimal point.
+     * Returns -1 if the field has any other shape or too many digits.
+     */
+    private long parseMantissa() {
+        int i = fieldStart;
+        lastNegative = false;
+        lastFractionDigits = 0;
+        if (i < fieldEnd && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+            lastNegative = source.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        boolean point = false;
+        for (; i < fieldEnd; i++) {
+            char c = source.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return -1;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    lastFractionDigits++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return -1;
+            }
+        }
+        return digits == 0 ? -1 : mantissa;
+    }
+}
@@ -0,0 +1,408 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Grade history in columns held outside the Java heap, for reports that
+ * scan millions of grades. Each column is a direct ByteBuffer:
+ *
+ *   timestamp   long   milliseconds of the ISO local date-time, read as UTC
+ *   student     int    ID in {@link #getStudentUsernames()}
+ *   course      int    ID in {@link #getCourseNames()}
+ *   instructor  int    ID in {@link #getInstructorNames()}
+ *   grade       float  numeric grade
+ *   letter      byte   letter grade ID, or 0xFF for a rare letter beyond the first 255
+ *
+ * The tables the IDs refer to belong to the columns and are dropped with
+ * them when the grades are reset or reread.
+ *
+ * Rows are read by index with primitive getters, so a scan creates no
+ * objects per row. Columns are filled from grade records or incrementally
+ * from the grade log: history segments are read once, and the active
+ * grades file from where the last read stopped. Lines whose timestamp
+ * cannot be parsed are skipped.
+ *
+ * A GradeColumns is appended to under the owner's lock. {@link #snapshot()}
+ * gives a fixed-size view that other threads can read while more rows
+ * are appended.
+ */
+public class GradeColumns {
+    private static final int OTHER_LETTER = 0xFF;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final SymbolTable studentUsernames;
+    private final SymbolTable courseNames;
+    private final SymbolTable instructorNames;
+    private final SymbolTable letterGrades;
+    private final boolean readOnly;
+    private int size;
+    private int capacity;
+    private ByteBuffer timestamps;
+    private ByteBuffer students;
+    private ByteBuffer courses;
+    private ByteBuffer instructors;
+    private ByteBuffer grades;
+    private ByteBuffer letters;
+
+    // What has been read from the grade log
+    private final Set<String> segmentsRead = new HashSet<>();
+    private String rolledSegment; // The segment the active file was rolled into, read up to rolledOffset
+    private long rolledOffset;
+    private long activeOffset;
+
+    /**
+     * Creates empty columns.
+     */
+    public GradeColumns() {
+        this.studentUsernames = new SymbolTable();
+        this.courseNames = new SymbolTable();
+        this.instructorNames = new SymbolTable();
+        this.letterGrades = new SymbolTable();
+        this.readOnly = false;
+        this.capacity = INITIAL_CAPACITY;
+        this.timestamps = column(Long.BYTES);
+        this.students = column(Integer.BYTES);
+        this.courses = column(Integer.BYTES);
+        this.instructors = column(Integer.BYTES);
+        this.grades = column(Float.BYTES);
+        this.letters = column(1);
+    }
+
+    private GradeColumns(GradeColumns source) {
+        this.studentUsernames = source.studentUsernames;
+        this.courseNames = source.courseNames;
+        this.instructorNames = source.instructorNames;
+        this.letterGrades = source.letterGrades;
+        this.readOnly = true;
+        this.size = source.size;
+        this.capacity = source.capacity;
+        this.timestamps = source.timestamps;
+        this.students = source.students;
+        this.courses = source.courses;
+        this.instructors = source.instructors;
+        this.grades = source.grades;
+        this.letters = source.letters;
+    }
+
+    /**
+     * Gets a read-only view of the rows added so far. It shares the column
+     * buffers, which are only ever written past its last row.
+     *
+     * @return The view.
+     */
+    public GradeColumns snapshot() {
+        return new GradeColumns(this);
+    }
+
+    /**
+     * Adds a grade.
+     *
+     * @param grade The grade.
+     * @return false if its timestamp cannot be parsed and it was skipped.
+     */
+    public boolean add(GradeRecord grade) {
+        return add(grade.getTimestamp(), grade.getStudentUsername(), grade.getCourseName(),
+                   grade.getInstructorName(), grade.getNumericGrade(), grade.getLetterGrade());
+    }
+
+    /**
+     * Reads a history segment, unless it has been read before. Segments do
+     * not change once written.
+     *
+     * @param segment The segment file.
+     * @throws IOException if the segment cannot be read.
+     */
+    public void readSegment(File segment) throws IOException {
+        String name = segment.getName();
+        if (segmentsRead.contains(name)) {
+            return;
+        }
+        long from = name.equals(rolledSegment) ? rolledOffset : 0;
+        readLog(segment, from, false);
+        segmentsRead.add(name);
+    }
+
+    /**
+     * Reads the complete lines added to the active grades file since the last call.
+     *
+     * @param activeFile The grades file being appended to.
+     * @throws IOException if the file cannot be read.
+     */
+    public void readActive(File activeFile) throws IOException {
+        if (!activeFile.exists()) {
+            return;
+        }
+        if (activeFile.length() < activeOffset) {
+            throw new IOException("Grades file shrank; the columns must be rebuilt");
+        }
+        activeOffset = readLog(activeFile, activeOffset, true);
+    }
+
+    /**
+     * Records that the active grades file was moved, unchanged, into a
+     * history segment, so that segment is read on from where the active
+     * file was left and the next active file from its start.
+     *
+     * @param segment The segment file the active file became.
+     */
+    public void activeRolledInto(File segment) {
+        rolledSegment = segment.getName();
+        rolledOffset = activeOffset;
+        activeOffset = 0;
+    }
+
+    /**
+     * Gets the number of grades.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets when a grade was given.
+     *
+     * @param row The row.
+     * @return Milliseconds of the local date-time read as UTC; see {@link #toMillis(LocalDateTime)}.
+     */
+    public long getTimestampMillis(int row) {
+        return timestamps.getLong(checkRow(row) * Long.BYTES);
+    }
+
+    /**
+     * Gets the student of a grade.
+     *
+     * @param row The row.
+     * @return The ID of the student's username in {@link #getStudentUsernames()}.
+     */
+    public int getStudentId(int row) {
+        return students.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * Gets the course of a grade.
+     *
+     * @param row The row.
+     * @return The course name ID in {@link #getCourseNames()}.
+     */
+    public int getCourseId(int row) {
+        return courses.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * Gets the instructor of a grade.
+     *
+     * @param row The row.
+     * @return The instructor name ID in {@link #getInstructorNames()}.
+     */
+    public int getInstructorId(int row) {
+        return instructors.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * Gets the numeric grade.
+     *
+     * @param row The row.
+     * @return The grade.
+     */
+    public float getNumericGrade(int row) {
+        return grades.getFloat(checkRow(row) * Float.BYTES);
+    }
+
+    /**
+     * Gets the letter grade.
+     *
+     * @param row The row.
+     * @return The letter grade, or null if it was not kept.
+     */
+    public String getLetterGrade(int row) {
+        int letter = letters.get(checkRow(row)) & 0xFF;
+        return letter == OTHER_LETTER ? null : letterGrades.get(letter);
+    }
+
+    /**
+     * Gets the usernames the student IDs refer to.
+     *
+     * @return The table.
+     */
+    public SymbolTable getStudentUsernames() {
+        return studentUsernames;
+    }
+
+    /**
+     * Gets the course names the course IDs refer to.
+     *
+     * @return The table.
+     */
+    public SymbolTable getCourseNames() {
+        return courseNames;
+    }
+
+    /**
+     * Gets the instructor names the instructor IDs refer to.
+     *
+     * @return The table.
+     */
+    public SymbolTable getInstructorNames() {
+        return instructorNames;
+    }
+
+    /**
+     * Averages the grades given in a time range per course, in one pass over
+     * the course, grade and timestamp columns.
+     *
+     * @param fromMillis The earliest timestamp included, or Long.MIN_VALUE.
+     * @param toMillis The latest timestamp included, or Long.MAX_VALUE.
+     * @return The courses with grades in the range, in course ID order.
+     */
+    public List<CourseSummary> summarizeByCourse(long fromMillis, long toMillis) {
+        int courseCount = courseNames.size();
+        long[] counts = new long[courseCount];
+        double[] sums = new double[courseCount];
+        for (int row = 0; row < size; row++) {
+            long timestamp = timestamps.getLong(row * Long.BYTES);
+            if (timestamp < fromMillis || timestamp > toMillis) {
+                continue;
+            }
+            int course = courses.getInt(row * Integer.BYTES);
+            counts[course]++;
+            sums[course] += grades.getFloat(row * Float.BYTES);
+        }
+        List<CourseSummary> summary = new ArrayList<>();
+        for (int course = 0; course < courseCount; course++) {
+            if (counts[course] > 0) {
+                summary.add(new CourseSummary(courseNames.get(course),
+                                              counts[course], sums[course] / counts[course]));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Converts a date-time to the value of the timestamp column.
+     *
+     * @param dateTime The local date-time.
+     * @return Its milliseconds, read as UTC.
+     */
+    public static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Reads grade lines from an offset; returns the offset after the last line read
+    private long readLog(File file, long from, boolean completeLinesOnly) throws IOException {
+        long end = from;
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            long length = file.length();
+            reader.seek(from);
+            while (reader.next()) {
+                if (completeLinesOnly && reader.nextOffset() > length) {
+                    break; // Still being written
+                }
+                end = reader.nextOffset();
+                if (reader.fieldCount() < 7) {
+                    continue;
+                }
+                float numericGrade = 0.0f;
+                try {
+                    numericGrade = Float.parseFloat(reader.field(5));
+                } catch (NumberFormatException e) {
+                    // Use default grade if parsing fails
+                }
+                add(reader.field(0), reader.field(2), reader.field(3), reader.field(4),
+                    numericGrade, reader.field(6));
+            }
+        }
+        return end;
+    }
+
+    private boolean add(String timestamp, String studentUsername, String courseName,
+                        String instructorName, float numericGrade, String letterGrade) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+        long millis;
+        try {
+            millis = toMillis(LocalDateTime.parse(timestamp));
+        } catch (Exception e) {
+            return false;
+        }
+        if (size == capacity) {
+            grow();
+        }
+        int letter = letterGrades.intern(letterGrade, OTHER_LETTER);
+        timestamps.putLong(size * Long.BYTES, millis);
+        students.putInt(size * Integer.BYTES, studentUsernames.intern(studentUsername));
+        courses.putInt(size * Integer.BYTES, courseNames.intern(courseName));
+        instructors.putInt(size * Integer.BYTES, instructorNames.intern(instructorName));
+        grades.putFloat(size * Float.BYTES, numericGrade);
+        letters.put(size, (byte) (letter < 0 ? OTHER_LETTER : letter));
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        int used = size;
+        capacity *= 2;
+        timestamps = copy(timestamps, used * Long.BYTES, Long.BYTES);
+        students = copy(students, used * Integer.BYTES, Integer.BYTES);
+        courses = copy(courses, used * Integer.BYTES, Integer.BYTES);
+        instructors = copy(instructors, used * Integer.BYTES, Integer.BYTES);
+        grades = copy(grades, used * Float.BYTES, Float.BYTES);
+        letters = copy(letters, used, 1);
+    }
+
+    // Copies a column into a new buffer; snapshots keep reading the old one
+    private ByteBuffer copy(ByteBuffer old, int usedBytes, int width) {
+        ByteBuffer grown = column(width);
+        ByteBuffer used = old.duplicate();
+        used.position(0).limit(usedBytes);
+        grown.put(used);
+        return grown;
+    }
+
+    private ByteBuffer column(int width) {
+        return ByteBuffer.allocateDirect(Math.multiplyExact(capacity, width)).order(ByteOrder.nativeOrder());
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + size);
+        }
+        return row;
+    }
+
+    /**
+     * The number of grades and the average grade of one course.
+     */
+    public static class CourseSummary {
+        private final String courseName;
+        private final long count;
+        private final double average;
+
+        CourseSummary(String courseName, long count, double average) {
+            this.courseName = courseName;
+            this.count = count;
+            this.average = average;
+        }
+
+        public String getCourseName() {
+            return courseName;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+    }
+}
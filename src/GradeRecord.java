@@ -0,0 +1,130 @@
+/**
+ * Represents one line of the grades log: a grade given to a student at a point in time.
+ */
+public class GradeRecord {
+    private final String timestamp;
+    private final String studentName;
+    private final String studentUsername;
+    private final String courseName;
+    private final String instructorName;
+    private final float numericGrade;
+    private final String letterGrade;
+
+    /**
+     * Constructor for GradeRecord.
+     *
+     * @param timestamp When the grade was given, as an ISO local date-time.
+     * @param studentName The name of the student.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor.
+     * @param numericGrade The numeric grade.
+     * @param letterGrade The letter grade.
+     */
+    public GradeRecord(String timestamp, String studentName, String studentUsername,
+                       String courseName, String instructorName,
+                       float numericGrade, String letterGrade) {
+        this.timestamp = timestamp;
+        this.studentName = studentName;
+        this.studentUsername = studentUsername;
+        this.courseName = SymbolTable.COURSE_NAMES.canonical(courseName);
+        this.instructorName = SymbolTable.INSTRUCTOR_NAMES.canonical(instructorName);
+        this.numericGrade = numericGrade;
+        this.letterGrade = letterGrade;
+    }
+
+    /**
+     * Parses the current record of a grades file.
+     *
+     * @param reader A reader positioned on a record.
+     * @return The grade, or null if the record does not have all seven fields.
+     */
+    public static GradeRecord parse(MappedRecordReader reader) {
+        if (reader.fieldCount() < 7) {
+            return null;
+        }
+        float numericGrade = 0.0f;
+        try {
+            numericGrade = Float.parseFloat(reader.field(5));
+        } catch (NumberFormatException e) {
+            // Use default grade if parsing fails
+        }
+        return new GradeRecord(reader.field(0), reader.field(1), reader.field(2),
+                               reader.field(3), reader.field(4), numericGrade, reader.field(6));
+    }
+
+    /**
+     * Parses a grades file line.
+     *
+     * @param line The line.
+     * @param fields A '|' cursor to parse with, reused between lines.
+     * @return The grade, or null if the line does not have all seven fields.
+     */
+    public static GradeRecord parse(String line, FieldCursor fields) {
+        if (fields.reset(line).count() < 7) {
+            return null;
+        }
+        String[] parts = new String[5];
+        for (int i = 0; i < parts.length; i++) {
+            fields.next();
+            parts[i] = fields.field();
+        }
+        fields.next();
+        float numericGrade = fields.floatValue(0.0f); // Use default grade if parsing fails
+        fields.next();
+        return new GradeRecord(parts[0], parts[1], parts[2], parts[3], parts[4],
+                               numericGrade, fields.field());
+    }
+
+    /**
+     * Formats the grade as a grades file line.
+     *
+     * @return timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade
+     */
+    public String format() {
+        return timestamp + "|" +
+               studentName + "|" +
+               studentUsername + "|" +
+               courseName + "|" +
+               instructorName + "|" +
+               numericGrade + "|" +
+               letterGrade;
+    }
+
+    /**
+     * Get the key under which later grades replace earlier ones.
+     *
+     * @return The student username and course name.
+     */
+    public String getKey() {
+        return studentUsername + "|" + courseName;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public String getStudentUsername() {
+        return studentUsername;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public String getInstructorName() {
+        return instructorName;
+    }
+
+    public float getNumericGrade() {
+        return numericGrade;
+    }
+
+    public String getLetterGrade() {
+        return letterGrade;
+    }
+}
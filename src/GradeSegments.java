@@ -0,0 +1,435 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the history of grades.txt as a set of segment files.
+ *
+ * When grades.txt grows large it is rolled: the file is moved, unchanged, into
+ * the segment directory as an immutable "history-N.txt" segment. A compaction
+ * pass then merges the new history into "latest-N.txt", which holds only the
+ * most recent grade per student and course. A manifest lists every segment
+ * with the timestamp range it covers, so readers open only the segments they
+ * need: the latest segment and anything newer for current grades, or the
+ * history segments overlapping a time range for past grades.
+ */
+public class GradeSegments {
+    private static final String MANIFEST_FILE = "manifest.txt";
+    private static final String MANIFEST_HEADER = "# Grade segments - type|file|firstTimestamp|lastTimestamp|records|sequence";
+    private static final String GRADES_HEADER = "# Grades Data - timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade";
+    private static final String HISTORY = "HISTORY";
+    private static final String LATEST = "LATEST";
+    private static final String HISTORY_PREFIX = "history-";
+    private static final String LATEST_PREFIX = "latest-";
+
+    private final File directory;
+    private final List<Segment> history = new ArrayList<>();
+    // Latest grade per student and course up to latest.sequence; null before the first compaction
+    private Segment latest;
+
+    private GradeSegments(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the segments of a directory, creating the directory if needed.
+     * History segments missing from the manifest, for example after a crash
+     * during a roll, are added back.
+     *
+     * @param directory The segment directory.
+     * @return The segments.
+     * @throws IOException if the manifest cannot be read.
+     */
+    public static GradeSegments open(File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Error creating " + directory.getPath());
+        }
+        GradeSegments segments = new GradeSegments(directory);
+        segments.readManifest();
+        if (segments.adoptUnlistedHistory()) {
+            segments.writeManifest();
+        }
+        return segments;
+    }
+
+    /**
+     * Moves the active grades file into a new history segment. Nothing may be
+     * writing to the file while it is rolled.
+     *
+     * @param activeFile The grades file; it no longer exists afterwards.
+     * @return true if a segment was created, false if the file had no grades.
+     * @throws IOException if the file cannot be moved or the manifest written.
+     */
+    public synchronized boolean roll(File activeFile) throws IOException {
+        if (!activeFile.exists()) {
+            return false;
+        }
+        Segment scanned = scan(activeFile, HISTORY, nextSequence());
+        if (scanned.records == 0) {
+            return false;
+        }
+        Files.move(activeFile.toPath(), new File(directory, scanned.fileName).toPath());
+        history.add(scanned);
+        writeManifest();
+        return true;
+    }
+
+    /**
+     * Merges the history segments that are newer than the latest segment into
+     * a new latest segment. Readers are only blocked while the manifest is
+     * switched over.
+     *
+     * @return true if a new latest segment was written.
+     * @throws IOException if a segment cannot be read or written.
+     */
+    public boolean compact() throws IOException {
+        Segment base;
+        List<Segment> pending;
+        synchronized (this) {
+            base = latest;
+            pending = newerThan(base);
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+
+        Map<String, GradeRecord> grades = new LinkedHashMap<>();
+        if (base != null) {
+            readLatestInto(new File(directory, base.fileName), grades);
+        }
+        for (Segment segment : pending) {
+            readLatestInto(new File(directory, segment.fileName), grades);
+        }
+
+        int sequence = pending.get(pending.size() - 1).sequence;
+        File compacted = new File(directory, String.format("%s%06d.txt", LATEST_PREFIX, sequence));
+        writeSegment(compacted, grades.values());
+        Segment next = scan(compacted, LATEST, sequence);
+
+        synchronized (this) {
+            latest = next;
+            writeManifest();
+            if (base != null) {
+                new File(directory, base.fileName).delete(); // Superseded; the history is kept
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the most recent grade per student and course.
+     *
+     * @param activeFile The grades file currently being appended to.
+     * @return The latest grades.
+     * @throws IOException if a segment cannot be read.
+     */
+    public synchronized Collection<GradeRecord> readLatest(File activeFile) throws IOException {
+        Map<String, GradeRecord> grades = new LinkedHashMap<>();
+        if (latest != null) {
+            readLatestInto(new File(directory, latest.fileName), grades);
+        }
+        for (Segment segment : newerThan(latest)) {
+            readLatestInto(new File(directory, segment.fileName), grades);
+        }
+        if (activeFile.exists()) {
+            readLatestInto(activeFile, grades);
+        }
+        return grades.values();
+    }
+
+    /**
+     * Reads every grade given in a time range, opening only the history
+     * segments whose range overlaps it.
+     *
+     * @param from The earliest timestamp to include, or null for no lower bound.
+     * @param to The latest timestamp to include, or null for no upper bound.
+     * @param activeFile The grades file currently being appended to.
+     * @return The grades in file order.
+     * @throws IOException if a segment cannot be read.
+     */
+    public synchronized List<GradeRecord> readHistory(String from, String to, File activeFile)
+            throws IOException {
+        List<GradeRecord> grades = new ArrayList<>();
+        for (Segment segment : history) {
+            if ((from == null || segment.lastTimestamp.compareTo(from) >= 0)
+                    && (to == null || segment.firstTimestamp.compareTo(to) <= 0)) {
+                readRange(new File(directory, segment.fileName), from, to, grades);
+            }
+        }
+        if (activeFile.exists()) {
+            readRange(activeFile, from, to, grades);
+        }
+        return grades;
+    }
+
+    /**
+     * Rescans the history segments after they were rewritten in place, for
+     * example converted to UTF-8, and compacts them into a new latest segment.
+     *
+     * @throws IOException if a segment cannot be read or written.
+     */
+    public void rebuild() throws IOException {
+        synchronized (this) {
+            List<Segment> rescanned = new ArrayList<>();
+            for (Segment segment : history) {
+                rescanned.add(scan(new File(directory, segment.fileName), HISTORY, segment.sequence));
+            }
+            history.clear();
+            history.addAll(rescanned);
+            if (latest != null) {
+                new File(directory, latest.fileName).delete();
+                latest = null;
+            }
+            writeManifest();
+        }
+        compact();
+    }
+
+    /**
+     * Deletes every segment and the manifest.
+     *
+     * @throws IOException if a segment cannot be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        List<Segment> segments = new ArrayList<>(history);
+        if (latest != null) {
+            segments.add(latest);
+        }
+        for (Segment segment : segments) {
+            File file = new File(directory, segment.fileName);
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Error deleting " + file.getPath());
+            }
+        }
+        history.clear();
+        latest = null;
+        new File(directory, MANIFEST_FILE).delete();
+    }
+
+    /**
+     * Gets the history segment files.
+     *
+     * @return The files, oldest first.
+     */
+    public synchronized List<File> getHistoryFiles() {
+        List<File> files = new ArrayList<>();
+        for (Segment segment : history) {
+            files.add(new File(directory, segment.fileName));
+        }
+        return files;
+    }
+
+    private List<Segment> newerThan(Segment base) {
+        List<Segment> newer = new ArrayList<>();
+        for (Segment segment : history) {
+            if (base == null || segment.sequence > base.sequence) {
+                newer.add(segment);
+            }
+        }
+        return newer;
+    }
+
+    private int nextSequence() {
+        int sequence = 0;
+        for (Segment segment : history) {
+            sequence = Math.max(sequence, segment.sequence);
+        }
+        return sequence + 1;
+    }
+
+    /**
+     * Adds a grade file to a map, keeping the newest grade per student and
+     * course. Timestamps are ISO date-times, so they compare as strings; on a
+     * tie the record read last wins.
+     */
+    private static void readLatestInto(File file, Map<String, GradeRecord> grades) throws IOException {
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            while (reader.next()) {
+                GradeRecord grade = GradeRecord.parse(reader);
+                if (grade == null) {
+                    continue;
+                }
+                String key = grade.getKey();
+                GradeRecord current = grades.get(key);
+                if (current == null || grade.getTimestamp().compareTo(current.getTimestamp()) >= 0) {
+                    grades.put(key, grade);
+                }
+            }
+        }
+    }
+
+    private static void readRange(File file, String from, String to, List<GradeRecord> grades)
+            throws IOException {
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            while (reader.next()) {
+                GradeRecord grade = GradeRecord.parse(reader);
+                if (grade != null
+                        && (from == null || grade.getTimestamp().compareTo(from) >= 0)
+                        && (to == null || grade.getTimestamp().compareTo(to) <= 0)) {
+                    grades.add(grade);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the timestamp range and record count of a grades file.
+     */
+    private static Segment scan(File file, String type, int sequence) throws IOException {
+        String prefix = HISTORY.equals(type) ? HISTORY_PREFIX : LATEST_PREFIX;
+        Segment segment = new Segment(type, String.format("%s%06d.txt", prefix, sequence), sequence);
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            while (reader.next()) {
+                if (reader.fieldCount() < 7) {
+                    continue;
+                }
+                String timestamp = reader.field(0);
+                if (segment.firstTimestamp.isEmpty() || timestamp.compareTo(segment.firstTimestamp) < 0) {
+                    segment.firstTimestamp = timestamp;
+                }
+                if (timestamp.compareTo(segment.lastTimestamp) > 0) {
+                    segment.lastTimestamp = timestamp;
+                }
+                segment.records++;
+            }
+        }
+        return segment;
+    }
+
+    private static void writeSegment(File file, Collection<GradeRecord> grades) throws IOException {
+        File tempFile = new File(file.getPath() + ".temp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            writer.write(GRADES_HEADER);
+            writer.newLine();
+            for (GradeRecord grade : grades) {
+                writer.write(grade.format());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readManifest() throws IOException {
+        File manifest = new File(directory, MANIFEST_FILE);
+        if (!manifest.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\|", -1);
+                if (parts.length < 6) {
+                    continue;
+                }
+                Segment segment = new Segment(parts[0], parts[1], Integer.parseInt(parts[5]));
+                segment.firstTimestamp = parts[2];
+                segment.lastTimestamp = parts[3];
+                segment.records = Integer.parseInt(parts[4]);
+                if (LATEST.equals(segment.type)) {
+                    latest = segment;
+                } else if (HISTORY.equals(segment.type)) {
+                    history.add(segment);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid grade segment manifest: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        File manifest = new File(directory, MANIFEST_FILE);
+        File tempFile = new File(manifest.getPath() + ".temp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            for (Segment segment : history) {
+                writer.write(segment.toManifestLine());
+                writer.newLine();
+            }
+            if (latest != null) {
+                writer.write(latest.toManifestLine());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Adds history segment files that are not in the manifest.
+     *
+     * @return true if any were found.
+     */
+    private boolean adoptUnlistedHistory() throws IOException {
+        File[] files = directory.listFiles((dir, name) ->
+            name.startsWith(HISTORY_PREFIX) && name.endsWith(".txt"));
+        if (files == null) {
+            return false;
+        }
+        boolean adopted = false;
+        for (File file : files) {
+            boolean listed = false;
+            for (Segment segment : history) {
+                listed |= segment.fileName.equals(file.getName());
+            }
+            if (listed) {
+                continue;
+            }
+            try {
+                String number = file.getName().substring(HISTORY_PREFIX.length(), file.getName().length() - 4);
+                history.add(scan(file, HISTORY, Integer.parseInt(number)));
+                adopted = true;
+            } catch (NumberFormatException e) {
+                // Not a segment written by this class
+            }
+        }
+        history.sort((a, b) -> Integer.compare(a.sequence, b.sequence));
+        return adopted;
+    }
+
+    /**
+     * A manifest entry.
+     */
+    private static class Segment {
+        final String type;
+        final String fileName;
+        final int sequence;
+        String firstTimestamp = "";
+        String lastTimestamp = "";
+        int records;
+
+        Segment(String type, String fileName, int sequence) {
+            this.type = type;
+            this.fileName = fileName;
+            this.sequence = sequence;
+        }
+
+        String toManifestLine() {
+            return type + "|" + fileName + "|" + firstTimestamp + "|" + lastTimestamp + "|" + records + "|" + sequence;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps all records in memory and persists nothing. Meant for tests and
+ * benchmarks that should not touch the data directory.
+ *
+ * Saved courses and users are kept as the objects passed in, so changes made
+ * to them afterwards are visible to the next load.
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+    private final ArrayList<Course> courses = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<GradeRecord> grades = new ArrayList<>();
+    private final GradeColumns gradeColumns = new GradeColumns();
+    private final List<FeedbackRecord> feedbacks = new ArrayList<>();
+
+    @Override
+    public synchronized ArrayList<Course> loadCourses() {
+        return new ArrayList<>(courses);
+    }
+
+    @Override
+    public synchronized boolean saveCourses(List<Course> courses) {
+        this.courses.clear();
+        this.courses.addAll(courses);
+        return true;
+    }
+
+    @Override
+    public synchronized List<User> loadUsers() {
+        return new ArrayList<>(users);
+    }
+
+    @Override
+    public synchronized boolean saveUsers(List<User> users) {
+        this.users.clear();
+        this.users.addAll(users);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean logUserUpdate(User user) {
+        int position = indexOf(user.getUsername());
+        if (position >= 0) {
+            users.set(position, user);
+        } else {
+            users.add(user);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean logUserRename(String oldUsername, String newUsername) {
+        // The stored object is the renamed one, or is replaced by the update that follows
+        return true;
+    }
+
+    @Override
+    public synchronized boolean logUserDelete(User user) {
+        int position = indexOf(user.getUsername());
+        if (position >= 0) {
+            users.remove(position);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isUserLogCheckpointDue() {
+        return false;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Long> saveFeedbackAsync(FeedbackRecord feedback) {
+        feedbacks.add(feedback);
+        return CompletableFuture.completedFuture((long) feedbacks.size() - 1);
+    }
+
+    @Override
+    public synchronized List<FeedbackRecord> loadFeedbacks() {
+        return new ArrayList<>(feedbacks);
+    }
+
+    @Override
+    public long getFeedbackStamp() {
+        return 0; // Only this engine holds the feedback
+    }
+
+    @Override
+    public synchronized CompletableFuture<Long> saveGradeAsync(String studentName, String studentUsername,
+                                                               String courseName, String instructorName,
+                                                               float numericGrade, String letterGrade) {
+        String timestamp = java.time.LocalDateTime.now().toString();
+        GradeRecord grade = new GradeRecord(timestamp, studentName, studentUsername, courseName,
+                                            instructorName, numericGrade, letterGrade);
+        grades.add(grade);
+        gradeColumns.add(grade);
+        return CompletableFuture.completedFuture((long) grades.size() - 1);
+    }
+
+    @Override
+    public synchronized Collection<GradeRecord> loadLatestGrades() {
+        Map<String, GradeRecord> latest = new LinkedHashMap<>();
+        for (GradeRecord grade : grades) {
+            latest.put(grade.getKey(), grade); // Grades are kept in the order they were given
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    @Override
+    public synchronized GradeColumns loadGradeColumns() {
+        return gradeColumns.snapshot();
+    }
+
+    @Override
+    public synchronized List<GradeRecord> loadGradeHistory(String from, String to) {
+        List<GradeRecord> history = new ArrayList<>();
+        for (GradeRecord grade : grades) {
+            if ((from == null || grade.getTimestamp().compareTo(from) >= 0)
+                    && (to == null || grade.getTimestamp().compareTo(to) <= 0)) {
+                history.add(grade);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Gets the stored feedback records.
+     *
+     * @return The records in feedbacks.txt format, oldest first.
+     */
+    public synchronized List<String> getFeedbacks() {
+        List<String> records = new ArrayList<>(feedbacks.size());
+        for (FeedbackRecord feedback : feedbacks) {
+            records.add(feedback.format());
+        }
+        return records;
+    }
+
+    @Override
+    public void flushPendingWrites() {
+        // Everything is stored as soon as it is saved
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private int indexOf(String username) {
+        for (int i = 0; i < users.size(); i++) {
+            if (users.get(i).getUsername().equals(username)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,41 +1,35 @@
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class Instructor extends User {
 
     private String instructorName;
-    private String assignedCourses;
+    private LinkedHashSet<String> assignedCourseNames;
     List<Course> assignedCourse;
 
     public Instructor(String username, String password, String instructorName, String assignedCourses) {
         super(username, password);
-        this.instructorName = instructorName;
-        this.assignedCourses = assignedCourses;
+        this.instructorName = SymbolTable.INSTRUCTOR_NAMES.canonical(instructorName);
+        this.assignedCourseNames = Course.parseNameList(assignedCourses, SymbolTable.COURSE_NAMES);
         this.assignedCourse = new ArrayList<>(); // Fixed: Initialized the list
     }
 
     public Instructor(String username, String password) {
         super(username, password);
         this.instructorName = "Unknown";
-        this.assignedCourses = "None";
+        this.assignedCourseNames = new LinkedHashSet<>();
         this.assignedCourse = new ArrayList<>(); // Fixed: Initialized the list
     }
 
     public void assignCourse(String course) {
-        // Check if the instructor has any courses first
-        if (this.assignedCourses.equals("None")) {
-            this.assignedCourses = course;
-        } else {
-            // Check if the course is already assigned to prevent duplicates
-            String[] courses = this.assignedCourses.split(",");
-            for (String c : courses) {
-                if (c.trim().equals(course)) {
-                    // Course already assigned, no need to add it again
-                    return;
-                }
-            }
-            this.assignedCourses += ", " + course;
+        // Check if the course is already assigned to prevent duplicates
+        if (!assignedCourseNames.add(SymbolTable.COURSE_NAMES.canonical(course.trim()))) {
+            return;
         }
+        markDirty();
     }
 
     public String getInstructorName() {
@@ -43,15 +37,28 @@ public class Instructor extends User {
     }
 
     public void setInstructorName(String instructorName) {
-        this.instructorName = instructorName;
+        this.instructorName = SymbolTable.INSTRUCTOR_NAMES.canonical(instructorName);
+        markDirty();
     }
 
+    // Get the assigned courses comma-separated, as stored in users.txt, or "None"
     public String getAssignedCourses() {
-        return assignedCourses;
+        return Course.formatNameList(assignedCourseNames);
     }
 
     public void setAssignedCourses(String assignedCourses) {
-        this.assignedCourses = assignedCourses;
+        this.assignedCourseNames = Course.parseNameList(assignedCourses, SymbolTable.COURSE_NAMES);
+        markDirty();
+    }
+
+    // Get the assigned course names as a read-only set, in the order they were assigned
+    public Set<String> getAssignedCourseNames() {
+        return Collections.unmodifiableSet(assignedCourseNames);
+    }
+
+    // Check whether a course is assigned to the instructor
+    public boolean isAssignedTo(String course) {
+        return course != null && assignedCourseNames.contains(course.trim());
     }
 
     public void assignCourse(Course course) {
@@ -1,5 +1,6 @@
 import java.awt.*;
 import java.util.*;
+import java.util.List;
 import javax.swing.*;
 
 /**
@@ -303,19 +304,9 @@ public class InstructorPanel extends JPanel {
         
         coursesListModel.clear();
         
-        // Get assigned courses and handle different formats
-        String assignedCoursesStr = instructor.getAssignedCourses();
-        System.out.println("Raw assigned courses: " + assignedCoursesStr);
-        
-        // Split by comma, and handle potential formats
-        String[] courses = assignedCoursesStr.split(",");
-        
-        for (String course : courses) {
-            String trimmed = course.trim();
-            if (!trimmed.equalsIgnoreCase("None") && !trimmed.isEmpty()) {
-                coursesListModel.addElement(trimmed);
-                System.out.println("Added course to list: " + trimmed);
-            }
+        // Get assigned courses, already split and trimmed by the instructor
+        for (String course : instructor.getAssignedCourseNames()) {
+            coursesListModel.addElement(course);
         }
         
         // Debug output
@@ -340,7 +331,6 @@ public class InstructorPanel extends JPanel {
         }
         
         Admin admin = mainFrame.getAdmin();
-        java.util.List<User> users = admin.getUsers();
         
         StringBuilder sb = new StringBuilder();
         sb.append("Course: ").append(selectedCourse).append("\n");
@@ -348,16 +338,9 @@ public class InstructorPanel extends JPanel {
         
         boolean foundStudents = false;
         
-        for (User user : users) {
-            if (user instanceof Student) {
-                Student student = (Student) user;
-                ArrayList<String> courses = student.getCourses();
-                
-                if (courses.contains(selectedCourse)) {
-                    foundStudents = true;
-                    sb.append("- ").append(student.getStudentName()).append("\n");
-                }
-            }
+        for (Student student : admin.getUserDirectory().getEnrolledStudents(selectedCourse)) {
+            foundStudents = true;
+            sb.append("- ").append(student.getStudentName()).append("\n");
         }
         
         if (!foundStudents) {
@@ -380,17 +363,10 @@ public class InstructorPanel extends JPanel {
         studentCombo.removeAllItems();
         studentDisplayToUsername.clear();
         
-        for (User user : admin.getUsers()) {
-            if (user instanceof Student) {
-                Student student = (Student) user;
-                ArrayList<String> courses = student.getCourses();
-                
-                if (courses.contains(selectedCourse)) {
-                    String displayName = student.getStudentName();
-                    studentDisplayToUsername.put(displayName, student.getUsername());
-                    studentCombo.addItem(displayName);
-                }
-            }
+        for (Student student : admin.getUserDirectory().getEnrolledStudents(selectedCourse)) {
+            String displayName = student.getStudentName();
+            studentDisplayToUsername.put(displayName, student.getUsername());
+            studentCombo.addItem(displayName);
         }
     }
     
@@ -404,12 +380,8 @@ public class InstructorPanel extends JPanel {
         
         courseCombo.removeAllItems();
         
-        String[] courses = instructor.getAssignedCourses().split(",");
-        for (String course : courses) {
-            String trimmed = course.trim();
-            if (!trimmed.equalsIgnoreCase("None") && !trimmed.isEmpty()) {
-                courseCombo.addItem(trimmed);
-            }
+        for (String course : instructor.getAssignedCourseNames()) {
+            courseCombo.addItem(course);
         }
         
         // If courses are available, populate student list for first course
@@ -428,12 +400,8 @@ public class InstructorPanel extends JPanel {
         
         materialsCourseCombo.removeAllItems();
         
-        String[] courses = instructor.getAssignedCourses().split(",");
-        for (String course : courses) {
-            String trimmed = course.trim();
-            if (!trimmed.equalsIgnoreCase("None") && !trimmed.isEmpty()) {
-                materialsCourseCombo.addItem(trimmed);
-            }
+        for (String course : instructor.getAssignedCourseNames()) {
+            materialsCourseCombo.addItem(course);
         }
     }
     
@@ -471,44 +439,41 @@ public class InstructorPanel extends JPanel {
             }
             
             Admin admin = mainFrame.getAdmin();
-            boolean found = false;
+            Student student = admin.getUserDirectory().getStudent(studentUsername);
+            boolean found = student != null;
             
-            for (User user : admin.getUsers()) {
-                if (user instanceof Student && user.getUsername().equals(studentUsername)) {
-                    found = true;
-                    Student student = (Student) user;
+            if (found) {
+                // Check if student is registered for this course
+                List<String> studentCourses = student.getCourses();
+                if (!studentCourses.contains(courseName)) {
+                    JOptionPane.showMessageDialog(this, 
+                        "Student is not enrolled in this course",
+                        "Add Grade Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                
+                // Set grade for the course
+                int courseIndex = studentCourses.indexOf(courseName);
+                if (courseIndex != -1) {
+                    student.updateCourse(courseIndex, courseName, numericGrade, letterGrade);
                     
-                    // Check if student is registered for this course
-                    ArrayList<String> studentCourses = student.getCourses();
-                    if (!studentCourses.contains(courseName)) {
-                        JOptionPane.showMessageDialog(this, 
-                            "Student is not enrolled in this course",
-                            "Add Grade Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
+                    // Save the changes
+                    admin.saveUser(student);
                     
-                    // Set grade for the course
-                    int courseIndex = studentCourses.indexOf(courseName);
-                    if (courseIndex != -1) {
-                        student.getNumericGrades().set(courseIndex, numericGrade);
-                        student.getLetterGrades().set(courseIndex, letterGrade);
-                        
-                        // Save the changes
-                        admin.saveUsers();
-                        
-                        // Also save to grades.txt with proper formatting
-                        boolean gradesSaved = DataManager.saveGrade(
-                            student.getStudentName(),
-                            student.getUsername(),
-                            courseName,
-                            instructor.getInstructorName(),
-                            numericGrade,
-                            letterGrade
-                        );
-                        
-                        if (gradesSaved) {
+                    // Also save to grades.txt with proper formatting; the result is
+                    // reported once the grade is on disk, without blocking the UI
+                    String studentName = student.getStudentName();
+                    DataManager.saveGradeAsync(
+                        studentName,
+                        student.getUsername(),
+                        courseName,
+                        instructor.getInstructorName(),
+                        numericGrade,
+                        letterGrade
+                    ).whenComplete((offset, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error == null) {
                             JOptionPane.showMessageDialog(this, 
-                                "Grade added successfully for " + student.getStudentName(),
+                                "Grade added successfully for " + studentName,
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                             
                             // Clear input fields
@@ -519,8 +484,7 @@ public class InstructorPanel extends JPanel {
                                 "Grade added to student record but could not be saved to grades file.",
                                 "Partial Success", JOptionPane.WARNING_MESSAGE);
                         }
-                    }
-                    break;
+                    }));
                 }
             }
             
@@ -0,0 +1,255 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends records to a log file from a background thread.
+ *
+ * Records handed to {@link #append(String)} are queued and written in batches
+ * ("group commit"): a batch is written and forced to disk once it reaches
+ * {@link #MAX_BATCH_BYTES} or {@link #MAX_DELAY_MILLIS} after its first record,
+ * whichever comes first. The file stays open between batches, so many appends
+ * cost one write and one fsync instead of an open/close each.
+ *
+ * {@link #getForeignLength()} tells the appender's own writes apart from
+ * growth of the file by other writers, without waiting for the writer.
+ */
+public class LogAppender implements Closeable {
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+    private static final long MAX_DELAY_MILLIS = 5;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final File file;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    // Queued by close() as the last entry the writer thread handles
+    private final PendingRecord closeMarker = new PendingRecord(null, true);
+    private boolean closed = false;
+    // File size after the last successful batch; only used by the writer thread
+    private long position;
+    // Bytes this appender has written, replaced before each batch reaches the file
+    private volatile OwnBytes ownBytes = new OwnBytes(0, 0, 0);
+
+    /**
+     * Opens a log file for appending and starts its writer thread.
+     *
+     * @param file The log file; created if it does not exist.
+     * @throws IOException if the file cannot be opened.
+     */
+    public LogAppender(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.position = channel.size();
+        this.writerThread = new Thread(this::run, "log-appender-" + file.getName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record to be appended as one line.
+     *
+     * @param record The record, without a line terminator.
+     * @return A future completed with the byte offset of the record once it is
+     *         on disk, or completed exceptionally if it could not be written.
+     */
+    public CompletableFuture<Long> append(String record) {
+        return enqueue(new PendingRecord(record.getBytes(StandardCharsets.UTF_8), false));
+    }
+
+    /**
+     * Writes out everything queued so far.
+     *
+     * @return A future completed once all earlier records are on disk.
+     */
+    public CompletableFuture<Long> flush() {
+        return enqueue(new PendingRecord(null, true));
+    }
+
+    /**
+     * Gets the length of the file less the bytes this appender wrote to it.
+     * A batch is counted before it reaches the file, so the result does not
+     * change while this appender writes; it changes when someone else
+     * writes to or replaces the file.
+     *
+     * @return The length.
+     */
+    public long getForeignLength() {
+        while (true) {
+            OwnBytes own = ownBytes;
+            long length = file.length();
+            if (ownBytes == own) {
+                return length - own.visibleIn(length);
+            }
+            // A batch started while the length was read; read both again
+        }
+    }
+
+    /**
+     * Gets the number of bytes this appender has written to the file.
+     *
+     * @return The count, including a batch being written.
+     */
+    public long getOwnBytes() {
+        OwnBytes own = ownBytes;
+        return own.written + own.inFlight;
+    }
+
+    /**
+     * Writes out the queued records, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(closeMarker);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private synchronized CompletableFuture<Long> enqueue(PendingRecord pending) {
+        if (closed) {
+            pending.result.completeExceptionally(new IOException(file.getName() + " is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.result;
+    }
+
+    private void run() {
+        List<PendingRecord> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            PendingRecord first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                continue; // close() is the only way to stop the writer
+            }
+            batch.add(first);
+            int batchBytes = first.length();
+            boolean endOfBatch = first.barrier;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MILLIS);
+
+            // Collect more records until the batch is full or its time is up
+            while (!endOfBatch && batchBytes < MAX_BATCH_BYTES) {
+                long wait = deadline - System.nanoTime();
+                PendingRecord next;
+                try {
+                    next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    next = null;
+                }
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                batchBytes += next.length();
+                endOfBatch = next.barrier;
+            }
+
+            running = batch.get(batch.size() - 1) != closeMarker;
+            writeBatch(batch, batchBytes);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch with a single write and force, then completes its futures.
+     */
+    private void writeBatch(List<PendingRecord> batch, int batchBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(batchBytes);
+        long[] offsets = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRecord pending = batch.get(i);
+            offsets[i] = position + buffer.position();
+            if (pending.bytes != null) {
+                buffer.put(pending.bytes).put(LINE_SEPARATOR);
+            }
+        }
+        buffer.flip();
+
+        long written = ownBytes.written;
+        ownBytes = new OwnBytes(written, position, batchBytes);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            position += batchBytes;
+            ownBytes = new OwnBytes(written + batchBytes, position, 0);
+        } catch (IOException e) {
+            for (PendingRecord pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+            ownBytes = new OwnBytes(written + buffer.position(), position + buffer.position(), 0);
+            try {
+                position = channel.size();
+            } catch (IOException ignored) {
+                // Offsets of later records may be off until the next successful write
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(offsets[i]);
+        }
+    }
+
+    /**
+     * The bytes written before the current batch and the batch being written,
+     * which may be on disk in part.
+     */
+    private static class OwnBytes {
+        final long written;
+        final long batchStart;
+        final long inFlight;
+
+        OwnBytes(long written, long batchStart, long inFlight) {
+            this.written = written;
+            this.batchStart = batchStart;
+            this.inFlight = inFlight;
+        }
+
+        long visibleIn(long length) {
+            return written + Math.max(0, Math.min(inFlight, length - batchStart));
+        }
+    }
+
+    /**
+     * A queued record, or a barrier that ends the current batch.
+     */
+    private static class PendingRecord {
+        final byte[] bytes;
+        final boolean barrier;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingRecord(byte[] bytes, boolean barrier) {
+            this.bytes = bytes;
+            this.barrier = barrier;
+        }
+
+        int length() {
+            return bytes == null ? 0 : bytes.length + LINE_SEPARATOR.length;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores all records in a {@link LogStructuredStore}, so saving a changed
+ * user, a grade or a feedback message writes only that record, however many
+ * records there are.
+ *
+ * Records keep their text file format and are keyed by:
+ * <pre>
+ * course/&lt;position&gt;                              courses.txt record
+ * user/&lt;username&gt;                                users.txt record
+ * grade/&lt;timestamp&gt;|&lt;username&gt;|&lt;course&gt;         grades.txt record
+ * feedback/&lt;timestamp&gt;|&lt;username&gt;|&lt;course&gt;      feedbacks.txt record
+ * </pre>
+ * Users are therefore loaded in username order, and grades and feedback in
+ * the order they were given.
+ */
+public class LogStructuredStorageEngine implements StorageEngine {
+    private static final String COURSE_PREFIX = "course/";
+    private static final String USER_PREFIX = "user/";
+    private static final String GRADE_PREFIX = "grade/";
+    private static final String FEEDBACK_PREFIX = "feedback/";
+
+    private final LogStructuredStore store;
+    // What is stored, so saves only write what changed
+    private List<String> storedCourses;
+    private Set<String> storedUsernames;
+
+    /**
+     * Opens the engine on a store directory, creating it if needed.
+     *
+     * @param directory The store directory, for example data/lsm.
+     * @throws IOException if the store cannot be opened.
+     */
+    public LogStructuredStorageEngine(File directory) throws IOException {
+        this.store = LogStructuredStore.open(directory);
+    }
+
+    @Override
+    public synchronized ArrayList<Course> loadCourses() {
+        ArrayList<Course> courses = new ArrayList<>();
+        try {
+            storedCourses = new ArrayList<>(store.scanPrefix(COURSE_PREFIX).values());
+        } catch (IOException e) {
+            System.out.println("Error loading courses: " + e.getMessage());
+            storedCourses = null;
+            return courses;
+        }
+        FieldCursor fields = new FieldCursor('|');
+        for (String record : storedCourses) {
+            Course course = TextFileStorageEngine.parseCourse(record, fields);
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        return courses;
+    }
+
+    @Override
+    public synchronized boolean saveCourses(List<Course> courses) {
+        try {
+            if (storedCourses == null) {
+                storedCourses = new ArrayList<>(store.scanPrefix(COURSE_PREFIX).values());
+            }
+            Map<String, String> batch = new TreeMap<>();
+            List<String> records = new ArrayList<>(courses.size());
+            for (int i = 0; i < courses.size(); i++) {
+                String record = TextFileStorageEngine.formatCourse(courses.get(i));
+                records.add(record);
+                if (i >= storedCourses.size() || !storedCourses.get(i).equals(record)) {
+                    batch.put(courseKey(i), record);
+                }
+            }
+            for (int i = courses.size(); i < storedCourses.size(); i++) {
+                batch.put(courseKey(i), null);
+            }
+            store.write(batch);
+            storedCourses = records;
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving courses: " + e.getMessage());
+            storedCourses = null;
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized List<User> loadUsers() {
+        List<User> users = new ArrayList<>();
+        storedUsernames = new HashSet<>();
+        TextFileStorageEngine.UserRecordParser parser = new TextFileStorageEngine.UserRecordParser();
+        try {
+            for (String record : store.scanPrefix(USER_PREFIX).values()) {
+                User user = parser.parse(record, 0);
+                if (user != null) {
+                    user.markClean();
+                    users.add(user);
+                    storedUsernames.add(user.getUsername());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading users: " + e.getMessage());
+            storedUsernames = null;
+        }
+        return users;
+    }
+
+    @Override
+    public synchronized boolean saveUsers(List<User> users) {
+        try {
+            if (storedUsernames == null) {
+                storedUsernames = new HashSet<>();
+                for (String key : store.scanPrefix(USER_PREFIX).keySet()) {
+                    storedUsernames.add(key.substring(USER_PREFIX.length()));
+                }
+            }
+            Map<String, String> batch = new TreeMap<>();
+            Set<String> usernames = new HashSet<>();
+            for (User user : users) {
+                usernames.add(user.getUsername());
+                if (user.isDirty() || !storedUsernames.contains(user.getUsername())) {
+                    String record = TextFileStorageEngine.formatUser(user);
+                    if (record != null) {
+                        batch.put(USER_PREFIX + user.getUsername(), record);
+                    }
+                }
+            }
+            for (String username : storedUsernames) {
+                if (!usernames.contains(username)) {
+                    batch.put(USER_PREFIX + username, null);
+                }
+            }
+            store.write(batch);
+            storedUsernames = usernames;
+            for (User user : users) {
+                user.markClean();
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving users: " + e.getMessage());
+            storedUsernames = null;
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean logUserUpdate(User user) {
+        String record = TextFileStorageEngine.formatUser(user);
+        if (record == null) {
+            return false;
+        }
+        try {
+            store.put(USER_PREFIX + user.getUsername(), record);
+        } catch (IOException e) {
+            System.out.println("Error saving user: " + e.getMessage());
+            return false;
+        }
+        if (storedUsernames != null) {
+            storedUsernames.add(user.getUsername());
+        }
+        user.markClean();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean logUserRename(String oldUsername, String newUsername) {
+        try {
+            String record = store.get(USER_PREFIX + oldUsername);
+            if (record == null) {
+                return true; // Stored under the new name by the update that follows
+            }
+            // Move the record under the new name: TYPE|username|rest
+            int start = record.indexOf('|') + 1;
+            int end = record.indexOf('|', start);
+            String renamed = record.substring(0, start) + newUsername
+                + (end >= 0 ? record.substring(end) : "");
+            Map<String, String> batch = new TreeMap<>();
+            batch.put(USER_PREFIX + oldUsername, null);
+            batch.put(USER_PREFIX + newUsername, renamed);
+            store.write(batch);
+        } catch (IOException e) {
+            System.out.println("Error renaming user: " + e.getMessage());
+            return false;
+        }
+        if (storedUsernames != null) {
+            storedUsernames.remove(oldUsername);
+            storedUsernames.add(newUsername);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean logUserDelete(User user) {
+        String username = user.getUsername();
+        try {
+            store.delete(USER_PREFIX + username);
+        } catch (IOException e) {
+            System.out.println("Error deleting user: " + e.getMessage());
+            return false;
+        }
+        if (storedUsernames != null) {
+            storedUsernames.remove(username);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isUserLogCheckpointDue() {
+        return false; // Every change is already stored on its own
+    }
+
+    @Override
+    public CompletableFuture<Long> saveFeedbackAsync(FeedbackRecord feedback) {
+        return put(FEEDBACK_PREFIX + feedback.getTimestamp() + "|" + feedback.getStudentUsername()
+                   + "|" + feedback.getCourseName(), feedback.format(), "Error saving feedback: ");
+    }
+
+    @Override
+    public CompletableFuture<Long> saveGradeAsync(String studentName, String studentUsername,
+                                                  String courseName, String instructorName,
+                                                  float numericGrade, String letterGrade) {
+        String timestamp = java.time.LocalDateTime.now().toString();
+        GradeRecord grade = new GradeRecord(timestamp, studentName, studentUsername, courseName,
+                                            instructorName, numericGrade, letterGrade);
+        return put(GRADE_PREFIX + timestamp + "|" + grade.getKey(), grade.format(), "Error saving grade: ");
+    }
+
+    @Override
+    public Collection<GradeRecord> loadLatestGrades() {
+        Map<String, GradeRecord> latest = new LinkedHashMap<>();
+        // Keys start with the timestamp, so later grades come later
+        for (GradeRecord grade : loadGradeHistory(null, null)) {
+            latest.put(grade.getKey(), grade);
+        }
+        return latest.values();
+    }
+
+    @Override
+    public List<GradeRecord> loadGradeHistory(String from, String to) {
+        List<GradeRecord> grades = new ArrayList<>();
+        String fromKey = GRADE_PREFIX + (from == null ? "" : from);
+        // Keys continue after the timestamp, so the bound is extended and checked exactly below
+        String toKey = GRADE_PREFIX + (to == null ? "" : to) + Character.MAX_VALUE;
+        try {
+            SortedMap<String, String> records = store.scan(fromKey, toKey);
+            FieldCursor fields = new FieldCursor('|');
+            for (String record : records.values()) {
+                GradeRecord grade = GradeRecord.parse(record, fields);
+                if (grade != null && (to == null || grade.getTimestamp().compareTo(to) <= 0)) {
+                    grades.add(grade);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading grade history: " + e.getMessage());
+        }
+        return grades;
+    }
+
+    @Override
+    public GradeColumns loadGradeColumns() {
+        // Built from a scan each time; the store has no append position to read on from
+        GradeColumns columns = new GradeColumns();
+        for (GradeRecord grade : loadGradeHistory(null, null)) {
+            columns.add(grade);
+        }
+        return columns.snapshot();
+    }
+
+    @Override
+    public List<FeedbackRecord> loadFeedbacks() {
+        List<FeedbackRecord> feedbacks = new ArrayList<>();
+        try {
+            for (String record : store.scanPrefix(FEEDBACK_PREFIX).values()) {
+                FeedbackRecord feedback = FeedbackRecord.parse(record);
+                if (feedback != null) {
+                    feedbacks.add(feedback);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading feedback: " + e.getMessage());
+        }
+        return feedbacks;
+    }
+
+    @Override
+    public long getFeedbackStamp() {
+        return 0; // The store is opened by one engine at a time
+    }
+
+    @Override
+    public void flushPendingWrites() {
+        // Writes are on disk in the store's log once they return
+    }
+
+    /**
+     * Writes the in-memory part of the store to a run file and closes its log.
+     */
+    @Override
+    public void close() {
+        try {
+            store.flush();
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error closing storage: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Long> put(String key, String value, String errorPrefix) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            result.complete(store.put(key, value));
+        } catch (IOException e) {
+            System.out.println(errorPrefix + e.getMessage());
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static String courseKey(int position) {
+        return COURSE_PREFIX + String.format("%09d", position);
+    }
+}
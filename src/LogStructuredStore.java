@@ -0,0 +1,649 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A sorted string key-value store built as a log-structured merge tree.
+ *
+ * Writes go to a write-ahead log ("wal.log") and an in-memory sorted table.
+ * When the table grows past a few megabytes it is written out as an
+ * immutable sorted run file ("run-N.dat") and the log is emptied. Reads
+ * merge the table with the runs, newest first. Once there are more than a
+ * handful of runs they are merged into one, dropping overwritten values and
+ * deleted keys. "runs.txt" lists the live runs, oldest first.
+ *
+ * Run layout (numbers big-endian): int magic, int entryCount, the entries
+ * (byte live, int keyLength, key, and for live entries int valueLength,
+ * value; strings in UTF-8), a sparse index of every 64th key (int count,
+ * then int keyLength, key, long offset) and finally long indexOffset.
+ */
+public class LogStructuredStore {
+    private static final String LOG_FILE = "wal.log";
+    private static final String MANIFEST_FILE = "runs.txt";
+    private static final String MANIFEST_HEADER = "# Sorted run files, oldest first";
+    private static final int RUN_MAGIC = 0x434D5352; // "CMSR"
+    private static final int INDEX_INTERVAL = 64;
+    private static final long MEMTABLE_FLUSH_BYTES = 4L * 1024 * 1024;
+    private static final int MAX_RUNS = 4;
+
+    private final File directory;
+    // Deleted keys map to null until the deletion reaches the oldest run
+    private final TreeMap<String, String> memtable = new TreeMap<>();
+    private long memtableBytes;
+    private final List<Run> runs = new ArrayList<>();
+    private int nextRunNumber = 1;
+    private DataOutputStream log;
+    private FileChannel logChannel;
+    private long sequence;
+
+    private LogStructuredStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the store in a directory, creating it if needed, and replays the
+     * write-ahead log into memory.
+     *
+     * @param directory The store directory.
+     * @return The store.
+     * @throws IOException if the store cannot be read.
+     */
+    public static LogStructuredStore open(File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Error creating " + directory.getPath());
+        }
+        LogStructuredStore store = new LogStructuredStore(directory);
+        store.readManifest();
+        store.replayLog();
+        store.openLog();
+        return store;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not stored.
+     * @throws IOException if a run cannot be read.
+     */
+    public synchronized String get(String key) throws IOException {
+        if (memtable.containsKey(key)) {
+            return memtable.get(key);
+        }
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            Entry entry = runs.get(i).find(key);
+            if (entry != null) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets all keys in a range with their values, in key order.
+     *
+     * @param from The first key to include.
+     * @param to The first key after the range.
+     * @return The live keys in the range.
+     * @throws IOException if a run cannot be read.
+     */
+    public synchronized SortedMap<String, String> scan(String from, String to) throws IOException {
+        TreeMap<String, String> result = new TreeMap<>();
+        // Oldest first, so newer values overwrite older ones
+        for (Run run : runs) {
+            try (RunReader reader = run.reader(from)) {
+                Entry entry;
+                while ((entry = reader.next()) != null && entry.key.compareTo(to) < 0) {
+                    if (entry.key.compareTo(from) >= 0) {
+                        result.put(entry.key, entry.value);
+                    }
+                }
+            }
+        }
+        result.putAll(memtable.subMap(from, to));
+        result.values().removeIf(value -> value == null);
+        return result;
+    }
+
+    /**
+     * Gets all keys starting with a prefix, see {@link #scan(String, String)}.
+     *
+     * @param prefix The key prefix.
+     * @return The live keys with the prefix.
+     * @throws IOException if a run cannot be read.
+     */
+    public SortedMap<String, String> scanPrefix(String prefix) throws IOException {
+        return scan(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    /**
+     * Stores a value.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The sequence number of the write.
+     * @throws IOException if the write cannot be logged.
+     */
+    public long put(String key, String value) throws IOException {
+        return write(Collections.singletonMap(key, value));
+    }
+
+    /**
+     * Deletes a key.
+     *
+     * @param key The key.
+     * @return The sequence number of the write.
+     * @throws IOException if the write cannot be logged.
+     */
+    public long delete(String key) throws IOException {
+        return write(Collections.singletonMap(key, null));
+    }
+
+    /**
+     * Stores several values and deletions with a single log sync.
+     *
+     * @param batch The keys to write; a null value deletes the key.
+     * @return The sequence number of the last write.
+     * @throws IOException if the writes cannot be logged.
+     */
+    public synchronized long write(Map<String, String> batch) throws IOException {
+        if (log == null) {
+            throw new IOException("Store is closed");
+        }
+        if (batch.isEmpty()) {
+            return sequence;
+        }
+        for (Map.Entry<String, String> entry : batch.entrySet()) {
+            writeEntry(log, entry.getKey(), entry.getValue());
+        }
+        log.flush();
+        logChannel.force(false);
+
+        for (Map.Entry<String, String> entry : batch.entrySet()) {
+            memtable.put(entry.getKey(), entry.getValue());
+            memtableBytes += 2L * (entry.getKey().length()
+                + (entry.getValue() == null ? 0 : entry.getValue().length())) + 64;
+            sequence++;
+        }
+        if (memtableBytes >= MEMTABLE_FLUSH_BYTES) {
+            flush();
+        }
+        return sequence;
+    }
+
+    /**
+     * Writes the in-memory table to a new run and empties the log. Runs are
+     * merged once there are too many of them.
+     *
+     * @throws IOException if the run cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (memtable.isEmpty()) {
+            return;
+        }
+        File runFile = new File(directory, runName(nextRunNumber++));
+        writeRun(runFile, memtable.size(), new EntrySource() {
+            private final Iterator<Map.Entry<String, String>> entries = memtable.entrySet().iterator();
+
+            @Override
+            public Entry next() {
+                if (!entries.hasNext()) {
+                    return null;
+                }
+                Map.Entry<String, String> entry = entries.next();
+                return new Entry(entry.getKey(), entry.getValue());
+            }
+        });
+        runs.add(Run.open(runFile));
+        writeManifest();
+
+        // The run holds everything the log did
+        memtable.clear();
+        memtableBytes = 0;
+        logChannel.truncate(0);
+        logChannel.force(false);
+
+        if (runs.size() > MAX_RUNS) {
+            compact();
+        }
+    }
+
+    /**
+     * Merges all runs into one, keeping only the newest value of each key and
+     * dropping deleted keys.
+     *
+     * @throws IOException if the merged run cannot be written.
+     */
+    public synchronized void compact() throws IOException {
+        if (runs.size() < 2) {
+            return;
+        }
+        List<RunReader> readers = new ArrayList<>();
+        // Ordered by key, then newest run first, so the first entry of a key wins
+        PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> {
+            int order = a.entry.key.compareTo(b.entry.key);
+            return order != 0 ? order : Integer.compare(b.age, a.age);
+        });
+        File merged = new File(directory, runName(nextRunNumber++));
+        try {
+            long upperBound = 0;
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = runs.get(i).reader(null);
+                readers.add(reader);
+                Entry first = reader.next();
+                if (first != null) {
+                    queue.add(new Cursor(reader, first, i));
+                }
+                upperBound += runs.get(i).entryCount;
+            }
+
+            writeRun(merged, upperBound, () -> {
+                while (!queue.isEmpty()) {
+                    Cursor newest = queue.poll();
+                    Entry entry = newest.entry;
+                    advance(queue, newest);
+                    while (!queue.isEmpty() && queue.peek().entry.key.equals(entry.key)) {
+                        advance(queue, queue.poll()); // Overwritten by a newer run
+                    }
+                    if (entry.value != null) {
+                        return entry;
+                    }
+                }
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            merged.delete();
+            throw e;
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        List<Run> replaced = new ArrayList<>(runs);
+        runs.clear();
+        runs.add(Run.open(merged));
+        writeManifest();
+        for (Run run : replaced) {
+            run.file.delete();
+        }
+    }
+
+    /**
+     * Closes the write-ahead log. Unflushed writes stay in the log and are
+     * replayed when the store is opened again.
+     *
+     * @throws IOException if the log cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private static void advance(PriorityQueue<Cursor> queue, Cursor cursor) throws IOException {
+        Entry next = cursor.reader.next();
+        if (next != null) {
+            cursor.entry = next;
+            queue.add(cursor);
+        }
+    }
+
+    private static String runName(int number) {
+        return String.format("run-%06d.dat", number);
+    }
+
+    /**
+     * Writes entries in key order to a new run file.
+     *
+     * @param expectedEntries The number of entries, or an upper bound when
+     *        the source skips some; the real count is patched in at the end.
+     */
+    private static void writeRun(File file, long expectedEntries, EntrySource source) throws IOException {
+        File tempFile = new File(file.getPath() + ".temp");
+        try {
+            List<Entry> index = new ArrayList<>();
+            int count = 0;
+            try (CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(tempFile));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(counter, 64 * 1024))) {
+                out.writeInt(RUN_MAGIC);
+                out.writeInt((int) Math.min(Integer.MAX_VALUE, expectedEntries));
+                Entry entry;
+                while ((entry = source.next()) != null) {
+                    if (count % INDEX_INTERVAL == 0) {
+                        out.flush();
+                        index.add(new Entry(entry.key, null, counter.count));
+                    }
+                    writeEntry(out, entry.key, entry.value);
+                    count++;
+                }
+                out.flush();
+                long indexOffset = counter.count;
+                out.writeInt(index.size());
+                for (Entry indexEntry : index) {
+                    writeString(out, indexEntry.key);
+                    out.writeLong(indexEntry.offset);
+                }
+                out.writeLong(indexOffset);
+            }
+            try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+                out.seek(4);
+                out.writeInt(count);
+                out.getChannel().force(false);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, String key, String value) throws IOException {
+        out.writeByte(value != null ? 1 : 0);
+        writeString(out, key);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        boolean live = in.readByte() != 0;
+        String key = readString(in);
+        return new Entry(key, live ? readString(in) : null);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupted record length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readManifest() throws IOException {
+        File manifest = new File(directory, MANIFEST_FILE);
+        if (!manifest.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifest))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                runs.add(Run.open(new File(directory, line)));
+                try {
+                    int number = Integer.parseInt(line.substring(4, line.length() - 4));
+                    nextRunNumber = Math.max(nextRunNumber, number + 1);
+                } catch (RuntimeException e) {
+                    // Not a run name written by this class; it is still read
+                }
+            }
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        File manifest = new File(directory, MANIFEST_FILE);
+        File tempFile = new File(manifest.getPath() + ".temp");
+        try (PrintWriter writer = new PrintWriter(tempFile)) {
+            writer.println(MANIFEST_HEADER);
+            for (Run run : runs) {
+                writer.println(run.file.getName());
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error writing " + MANIFEST_FILE);
+            }
+        }
+        Files.move(tempFile.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void replayLog() throws IOException {
+        File logFile = new File(directory, LOG_FILE);
+        if (!logFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+            while (true) {
+                Entry entry = readEntry(in);
+                memtable.put(entry.key, entry.value);
+                memtableBytes += 2L * (entry.key.length() + (entry.value == null ? 0 : entry.value.length())) + 64;
+                sequence++;
+            }
+        } catch (EOFException e) {
+            // End of the log, or a write torn by a crash; it was never acknowledged
+        }
+    }
+
+    private void openLog() throws IOException {
+        File logFile = new File(directory, LOG_FILE);
+        if (!memtable.isEmpty()) {
+            // Drop any torn tail by writing the replayed entries to a fresh log
+            File tempFile = new File(logFile.getPath() + ".temp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                for (Map.Entry<String, String> entry : memtable.entrySet()) {
+                    writeEntry(out, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE,
+                                      StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(logChannel)));
+    }
+
+    /**
+     * A key with its value (null if deleted) and, in run indexes, its offset.
+     */
+    private static class Entry {
+        final String key;
+        final String value;
+        final long offset;
+
+        Entry(String key, String value) {
+            this(key, value, -1);
+        }
+
+        Entry(String key, String value, long offset) {
+            this.key = key;
+            this.value = value;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Supplies entries in key order, then null.
+     */
+    private interface EntrySource {
+        Entry next() throws IOException;
+    }
+
+    /**
+     * The current entry of a run being merged.
+     */
+    private static class Cursor {
+        final RunReader reader;
+        final int age;
+        Entry entry;
+
+        Cursor(RunReader reader, Entry entry, int age) {
+            this.reader = reader;
+            this.entry = entry;
+            this.age = age;
+        }
+    }
+
+    /**
+     * An immutable sorted run file with its sparse key index.
+     */
+    private static class Run {
+        final File file;
+        final int entryCount;
+        final String[] indexKeys;
+        final long[] indexOffsets;
+
+        private Run(File file, int entryCount, String[] indexKeys, long[] indexOffsets) {
+            this.file = file;
+            this.entryCount = entryCount;
+            this.indexKeys = indexKeys;
+            this.indexOffsets = indexOffsets;
+        }
+
+        static Run open(File file) throws IOException {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                if (in.length() < 16 || in.readInt() != RUN_MAGIC) {
+                    throw new IOException("Not a sorted run file: " + file.getName());
+                }
+                int entryCount = in.readInt();
+                in.seek(in.length() - 8);
+                long indexOffset = in.readLong();
+                in.seek(indexOffset);
+                DataInputStream index = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(in.getChannel())));
+                int size = index.readInt();
+                String[] keys = new String[size];
+                long[] offsets = new long[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = readString(index);
+                    offsets[i] = index.readLong();
+                }
+                return new Run(file, entryCount, keys, offsets);
+            }
+        }
+
+        /**
+         * Opens a reader at the last indexed key at or before a key.
+         *
+         * @param from The key to start near, or null to read the whole run.
+         */
+        RunReader reader(String from) throws IOException {
+            long offset = 8;
+            int skipped = 0;
+            if (from != null && indexKeys.length > 0) {
+                int position = Arrays.binarySearch(indexKeys, from);
+                int block = position >= 0 ? position : -position - 2;
+                if (block >= 0) {
+                    offset = indexOffsets[block];
+                    skipped = block * INDEX_INTERVAL;
+                }
+            }
+            return new RunReader(file, offset, entryCount - skipped);
+        }
+
+        /**
+         * Finds a key by scanning at most one index block.
+         */
+        Entry find(String key) throws IOException {
+            if (indexKeys.length == 0 || key.compareTo(indexKeys[0]) < 0) {
+                return null;
+            }
+            try (RunReader reader = reader(key)) {
+                Entry entry;
+                while ((entry = reader.next()) != null) {
+                    int order = entry.key.compareTo(key);
+                    if (order == 0) {
+                        return entry;
+                    }
+                    if (order > 0) {
+                        break;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the entries of a run sequentially from an offset.
+     */
+    private static class RunReader implements Closeable {
+        private final RandomAccessFile file;
+        private final DataInputStream in;
+        private int remaining;
+
+        RunReader(File runFile, long offset, int remaining) throws IOException {
+            this.file = new RandomAccessFile(runFile, "r");
+            file.seek(offset);
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel()), 64 * 1024));
+            this.remaining = remaining;
+        }
+
+        /**
+         * Reads the next entry.
+         *
+         * @return The entry, or null at the end of the run.
+         */
+        Entry next() throws IOException {
+            if (remaining <= 0) {
+                return null;
+            }
+            remaining--;
+            return readEntry(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Counts the bytes written, to record index offsets.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
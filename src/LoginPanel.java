@@ -105,28 +105,25 @@ public class LoginPanel extends JPanel {
             }
             
             // Check other admin users
-            for (User user : admin.getUsers()) {
-                if (user instanceof Admin && user.authenticate(username, password)) {
-                    mainFrame.updateAdminPanel((Admin) user);
-                    mainFrame.switchPanel("Admin");
-                    return;
-                }
+            Admin otherAdmin = admin.getUserDirectory().authenticate(Admin.class, username, password);
+            if (otherAdmin != null) {
+                mainFrame.updateAdminPanel(otherAdmin);
+                mainFrame.switchPanel("Admin");
+                return;
             }
         } else if (userType.equals("Instructor")) {
-            for (User user : admin.getUsers()) {
-                if (user instanceof Instructor && user.authenticate(username, password)) {
-                    mainFrame.updateInstructorPanel((Instructor) user);
-                    mainFrame.switchPanel("Instructor");
-                    return;
-                }
+            Instructor instructor = admin.getUserDirectory().authenticate(Instructor.class, username, password);
+            if (instructor != null) {
+                mainFrame.updateInstructorPanel(instructor);
+                mainFrame.switchPanel("Instructor");
+                return;
             }
         } else if (userType.equals("Student")) {
-            for (User user : admin.getUsers()) {
-                if (user instanceof Student && user.authenticate(username, password)) {
-                    mainFrame.updateStudentPanel((Student) user);
-                    mainFrame.switchPanel("Student");
-                    return;
-                }
+            Student student = admin.getUserDirectory().authenticate(Student.class, username, password);
+            if (student != null) {
+                mainFrame.updateStudentPanel(student);
+                mainFrame.switchPanel("Student");
+                return;
             }
         }
         
@@ -1,6 +1,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * Main class for the Course Management System. Handles user interactions through
@@ -14,6 +15,8 @@ public class Main {
      * @param args Command-line arguments (not used).
      */
     public static void main(String[] args) {
+        DataManager.selectStorageEngine(System.getProperty("cms.storage"));
+        
         // Launch the GUI version of the application
         javax.swing.SwingUtilities.invokeLater(() -> {
             new CourseManagementGUI();
@@ -151,17 +154,15 @@ public class Main {
         String instructorName = input.nextLine();
         
         // Check if username already exists
-        for (User user : admin.getUsers()) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("\nUsername already exists. Please choose a different username.");
-                waitForEnter(input);
-                return;
-            }
+        if (admin.getUserDirectory().contains(username)) {
+            System.out.println("\nUsername already exists. Please choose a different username.");
+            waitForEnter(input);
+            return;
         }
         
         // Show available courses or "None" option
         CourseManager courseManager = new CourseManager();
-        ArrayList<Course> courses = courseManager.getCourses();
+        List<Course> courses = courseManager.getCourses();
         
         System.out.println("\nSelect specialization:");
         System.out.println("1. None");
@@ -264,14 +265,11 @@ public class Main {
             displayAdminMenu(input, admin);
         } else {
             // Check other admin users
-            boolean found = false;
-            for (User user : admin.getUsers()) {
-                if (user instanceof Admin && user.authenticate(username, password)) {
-                    found = true;
-                    System.out.println("\nLogin successful. Welcome, " + ((Admin) user).getAdminName());
-                    displayAdminMenu(input, (Admin) user);
-                    break;
-                }
+            Admin otherAdmin = admin.getUserDirectory().authenticate(Admin.class, username, password);
+            boolean found = otherAdmin != null;
+            if (found) {
+                System.out.println("\nLogin successful. Welcome, " + otherAdmin.getAdminName());
+                displayAdminMenu(input, otherAdmin);
             }
             
             if (!found) {
@@ -294,14 +292,11 @@ public class Main {
         System.out.print("Enter password: ");
         String password = input.nextLine();
         
-        boolean found = false;
-        for (User user : admin.getUsers()) {
-            if (user instanceof Instructor && user.authenticate(username, password)) {
-                found = true;
-                System.out.println("\nLogin successful. Welcome, " + ((Instructor) user).getInstructorName());
-                displayInstructorMenu(input, admin, (Instructor) user);
-                break;
-            }
+        Instructor instructor = admin.getUserDirectory().authenticate(Instructor.class, username, password);
+        boolean found = instructor != null;
+        if (found) {
+            System.out.println("\nLogin successful. Welcome, " + instructor.getInstructorName());
+            displayInstructorMenu(input, admin, instructor);
         }
         
         if (!found) {
@@ -323,14 +318,11 @@ public class Main {
         System.out.print("Enter password: ");
         String password = input.nextLine();
         
-        boolean found = false;
-        for (User user : admin.getUsers()) {
-            if (user instanceof Student && user.authenticate(username, password)) {
-                found = true;
-                System.out.println("\nLogin successful. Welcome, " + ((Student) user).getStudentName());
-                displayStudentMenu(input, admin, (Student) user);
-                break;
-            }
+        Student student = admin.getUserDirectory().authenticate(Student.class, username, password);
+        boolean found = student != null;
+        if (found) {
+            System.out.println("\nLogin successful. Welcome, " + student.getStudentName());
+            displayStudentMenu(input, admin, student);
         }
         
         if (!found) {
@@ -455,12 +447,10 @@ public class Main {
         System.out.print("Enter username: ");
         String username = input.nextLine();
         
-        for (User user : admin.getUsers()) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("\nUsername already exists. Please choose a different username.");
-                waitForEnter(input);
-                return;
-            }
+        if (admin.getUserDirectory().contains(username)) {
+            System.out.println("\nUsername already exists. Please choose a different username.");
+            waitForEnter(input);
+            return;
         }
         
         System.out.print("Enter password: ");
@@ -504,12 +494,10 @@ public class Main {
         System.out.print("Enter username: ");
         String username = input.nextLine();
         
-        for (User user : admin.getUsers()) {
-            if (user.getUsername().equals(username)) {
-                System.out.println("\nUsername already exists. Please choose a different username.");
-                waitForEnter(input);
-                return;
-            }
+        if (admin.getUserDirectory().contains(username)) {
+            System.out.println("\nUsername already exists. Please choose a different username.");
+            waitForEnter(input);
+            return;
         }
         
         System.out.print("Enter password: ");
@@ -527,7 +515,7 @@ public class Main {
             
             if (addCourses.equals("y") || addCourses.equals("yes")) {
                 CourseManager manager = new CourseManager();
-                ArrayList<Course> courses = manager.getCourses();
+                List<Course> courses = manager.getCourses();
                 
                 if (courses.isEmpty()) {
                     System.out.println("No courses available to add.");
@@ -708,16 +696,14 @@ public class Main {
     private static void viewAssignedCourses(Instructor instructor) {
         printHeader("Assigned Courses");
         
-        String[] courses = instructor.getAssignedCourses().split(",");
+        Set<String> courses = instructor.getAssignedCourseNames();
         
-        if (courses.length == 0 || (courses.length == 1 && courses[0].trim().equalsIgnoreCase("None"))) {
+        if (courses.isEmpty()) {
             System.out.println("You have no assigned courses.");
         } else {
-            for (int i = 0; i < courses.length; i++) {
-                String course = courses[i].trim();
-                if (!course.equalsIgnoreCase("None")) {
-                    System.out.println((i + 1) + ". " + course);
-                }
+            int i = 0;
+            for (String course : courses) {
+                System.out.println((++i) + ". " + course);
             }
         }
     }
@@ -791,10 +777,11 @@ public class Main {
                 }
                 case 4 -> {
                     student.viewGrades();
+                    showGradeRecords(student);
                     waitForEnter(input);
                 }
                 case 5 -> {
-                    submitFeedback(input, student);
+                    submitFeedback(input, manager, student);
                     waitForEnter(input);
                 }
                 case 6 -> updateStudentInfo(input, admin, student);
@@ -803,6 +790,36 @@ public class Main {
         }
     }
     
+    /**
+     * Prints who gave the student's most recent grade in each course and when.
+     * The grade log is read through DataManager, so grades rolled out of
+     * grades.txt are included.
+     * 
+     * @param student The Student instance.
+     */
+    private static void showGradeRecords(Student student) {
+        List<GradeRecord> records = new ArrayList<>();
+        for (GradeRecord grade : DataManager.loadLatestGrades()) {
+            if (grade.getStudentUsername().equals(student.getUsername())) {
+                records.add(grade);
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        
+        System.out.println("\nGraded by:");
+        System.out.printf("%-30s %-25s %-20s\n", "Course", "Instructor", "Date");
+        System.out.println("-".repeat(75));
+        for (GradeRecord grade : records) {
+            String timestamp = grade.getTimestamp();
+            System.out.printf("%-30s %-25s %-20s\n",
+                grade.getCourseName(),
+                grade.getInstructorName(),
+                timestamp.length() > 10 ? timestamp.substring(0, 10) : timestamp);
+        }
+    }
+    
     /**
      * Registers a student for a course.
      * 
@@ -834,7 +851,7 @@ public class Main {
             try {
                 student.addCourse(courseName, 0.0f, "N/A");
                 System.out.println("\nSuccessfully registered for " + courseName);
-                admin.saveUsers(); // Save the changes
+                admin.saveUser(student); // Save the changes
             } catch (IllegalArgumentException e) {
                 System.out.println("\nError: " + e.getMessage());
             }
@@ -847,12 +864,13 @@ public class Main {
      * Allows student to submit feedback.
      * 
      * @param input The Scanner for user input.
+     * @param manager The CourseManager instance.
      * @param student The Student instance.
      */
-    private static void submitFeedback(Scanner input, Student student) {
+    private static void submitFeedback(Scanner input, CourseManager manager, Student student) {
         printHeader("Submit Feedback");
         
-        ArrayList<String> enrolledCourses = student.getCourses();
+        List<String> enrolledCourses = student.getCourses();
         if (enrolledCourses.isEmpty()) {
             System.out.println("You are not enrolled in any courses.");
             return;
@@ -876,7 +894,7 @@ public class Main {
         String selectedCourse = enrolledCourses.get(courseIndex);
         
         // Find instructor for the selected course
-        String instructorName = findInstructorForCourse(selectedCourse);
+        String instructorName = findInstructorForCourse(manager, selectedCourse);
         
         // Get feedback message
         System.out.println("You are providing feedback for: " + selectedCourse);
@@ -895,20 +913,13 @@ public class Main {
     /**
      * Finds the instructor(s) assigned to a course.
      * 
+     * @param manager The CourseManager instance.
      * @param courseName The name of the course.
      * @return The name of the instructor(s) or "Unknown" if not found.
      */
-    private static String findInstructorForCourse(String courseName) {
-        CourseManager manager = new CourseManager();
-        ArrayList<Course> courses = manager.getCourses();
-        
-        for (Course course : courses) {
-            if (course.getName().equals(courseName)) {
-                return course.getInstructorName();
-            }
-        }
-        
-        return "Unknown";
+    private static String findInstructorForCourse(CourseManager manager, String courseName) {
+        String instructorName = manager.getInstructorName(courseName);
+        return instructorName != null ? instructorName : "Unknown";
     }
     
     /**
@@ -933,7 +944,14 @@ public class Main {
         System.out.print("Enter new name (or leave blank to keep current): ");
         String newName = input.nextLine();
         
+        if (!newUsername.trim().isEmpty() && admin.isUsernameTaken(newUsername, student)) {
+            System.out.println("\nError: Username already exists.");
+            waitForEnter(input);
+            return;
+        }
+        
         try {
+            String oldUsername = student.getUsername();
             if (!newUsername.trim().isEmpty()) {
                 student.setUsername(newUsername);
             }
@@ -947,7 +965,7 @@ public class Main {
             }
             
             System.out.println("\nPersonal information updated successfully.");
-            admin.saveUsers(); // Save the changes
+            admin.saveUser(student, oldUsername); // Save the changes
         } catch (IllegalArgumentException e) {
             System.out.println("\nError: " + e.getMessage());
         }
@@ -971,6 +989,7 @@ public class Main {
             System.out.println("4. Show All Courses");
             System.out.println("5. Show All Instructors");
             System.out.println("6. Show Courses Near Start/End");
+            System.out.println("7. Find Courses by Branch/Room/Price");
             System.out.println("0. Back");
             System.out.print("Choose: ");
             
@@ -991,6 +1010,7 @@ public class Main {
                 case 4 -> manager.showAllCourses();
                 case 5 -> manager.showAllInstructors();
                 case 6 -> manager.showCoursesNearStartOrEnd();
+                case 7 -> manager.findCoursesFromInput(input);
                 case 0 -> System.out.println("Returning...");
                 default -> System.out.println("Invalid choice.");
             }
@@ -1011,11 +1031,9 @@ public class Main {
         
         System.out.println("Courses starting within 30 days:");
         boolean hasUpcomingCourses = false;
-        for (Course course : manager.getCourses()) {
-            if (isWithin30Days(course.getStartDate(), true)) {
-                System.out.println("- " + course.getName() + " (Starting: " + course.getStartDate() + ")");
-                hasUpcomingCourses = true;
-            }
+        for (Course course : manager.getCoursesStartingWithin(30, java.time.LocalDate.now())) {
+            System.out.println("- " + course.getName() + " (Starting: " + course.getStartDate() + ")");
+            hasUpcomingCourses = true;
         }
         
         if (!hasUpcomingCourses) {
@@ -1024,41 +1042,29 @@ public class Main {
         
         System.out.println("\nCourses ending within 30 days:");
         boolean hasEndingCourses = false;
-        for (Course course : manager.getCourses()) {
-            if (isWithin30Days(course.getEndDate(), false)) {
-                System.out.println("- " + course.getName() + " (Ending: " + course.getEndDate() + ")");
-                hasEndingCourses = true;
-            }
+        for (Course course : manager.getCoursesEndingWithin(30, java.time.LocalDate.now())) {
+            System.out.println("- " + course.getName() + " (Ending: " + course.getEndDate() + ")");
+            hasEndingCourses = true;
         }
         
         if (!hasEndingCourses) {
             System.out.println("No courses ending within 30 days.");
         }
         
-        waitForEnter(new Scanner(System.in));
-    }
-    
-    /**
-     * Checks if a date is within 30 days from today.
-     * 
-     * @param dateString The date string in yyyy-MM-dd format.
-     * @param isStartDate true if checking start date, false if checking end date.
-     * @return true if the date is within 30 days, false otherwise.
-     */
-    private static boolean isWithin30Days(String dateString, boolean isStartDate) {
-        try {
-            java.time.LocalDate date = java.time.LocalDate.parse(dateString);
-            java.time.LocalDate today = java.time.LocalDate.now();
-            
-            long daysUntil = java.time.temporal.ChronoUnit.DAYS.between(today, date);
-            
-            // For start dates, we want dates that are coming up (positive days)
-            // For end dates, we want dates that are approaching (positive days)
-            return daysUntil >= 0 && daysUntil <= 30;
-        } catch (Exception e) {
-            // If there's a parsing error, just return false
-            return false;
+        System.out.println("\nGrades given in the last 30 days:");
+        long since = GradeColumns.toMillis(java.time.LocalDate.now().minusDays(30).atStartOfDay());
+        List<GradeColumns.CourseSummary> gradeSummary =
+            DataManager.loadGradeColumns().summarizeByCourse(since, Long.MAX_VALUE);
+        for (GradeColumns.CourseSummary summary : gradeSummary) {
+            System.out.printf("- %s: %d grade(s), average %.1f%n",
+                summary.getCourseName(), summary.getCount(), summary.getAverage());
         }
+        
+        if (gradeSummary.isEmpty()) {
+            System.out.println("No grades given in the last 30 days.");
+        }
+        
+        waitForEnter(new Scanner(System.in));
     }
     
     /**
@@ -1113,12 +1119,10 @@ public class Main {
         // List all instructors
         System.out.println("Available Instructors:");
         int instructorCount = 0;
-        for (User user : admin.getUsers()) {
-            if (user instanceof Instructor) {
-                instructorCount++;
-                System.out.println(instructorCount + ". " + ((Instructor) user).getInstructorName() + 
-                                  " (" + user.getUsername() + ")");
-            }
+        for (Instructor instructor : admin.getUserDirectory().getInstructors()) {
+            instructorCount++;
+            System.out.println(instructorCount + ". " + instructor.getInstructorName() + 
+                              " (" + instructor.getUsername() + ")");
         }
         
         if (instructorCount == 0) {
@@ -1153,17 +1157,12 @@ public class Main {
         }
         
         // Find instructor and assign course
-        boolean found = false;
-        Instructor targetInstructor = null;
-        for (User user : admin.getUsers()) {
-            if (user instanceof Instructor && user.getUsername().equals(instructorUsername)) {
-                found = true;
-                targetInstructor = (Instructor) user;
-                targetInstructor.assignCourse(courseName);
-                System.out.println("\nCourse '" + courseName + "' assigned to instructor " + 
-                                  targetInstructor.getInstructorName());
-                break;
-            }
+        Instructor targetInstructor = admin.getUserDirectory().getInstructor(instructorUsername);
+        boolean found = targetInstructor != null;
+        if (found) {
+            targetInstructor.assignCourse(courseName);
+            System.out.println("\nCourse '" + courseName + "' assigned to instructor " + 
+                              targetInstructor.getInstructorName());
         }
         
         if (!found) {
@@ -1172,18 +1171,11 @@ public class Main {
             return;
         }
         
-        // Also update the course record with the instructor's name
-        ArrayList<Course> courses = manager.getCourses();
-        for (Course course : courses) {
-            if (course.getName().equals(courseName)) {
-                course.addInstructor(targetInstructor.getInstructorName());
-                break;
-            }
-        }
+        // Also update the course record with the instructor's name; this saves the courses
+        manager.addInstructorToCourse(courseName, targetInstructor.getInstructorName());
         
         // Save changes
-        admin.saveUsers(); // Save instructor changes
-        DataManager.saveCourses(courses); // Save course changes
+        admin.saveUser(targetInstructor); // Save instructor changes
         
         System.out.println("Course and instructor records updated successfully.");
         waitForEnter(input);
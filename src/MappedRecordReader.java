@@ -0,0 +1,287 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads pipe-delimited records (such as grades.txt and feedbacks.txt) straight
+ * out of a memory-mapped file. Only the field boundaries of the current record
+ * are tracked; a field is decoded into a String only when a caller asks for it.
+ * Empty lines and lines starting with '#' are skipped.
+ *
+ * Files up to 4 MB are read into a heap buffer instead of being mapped. A
+ * mapping stays alive until its buffer is garbage collected, and some
+ * platforms refuse to replace or delete a file while it is mapped. Reading
+ * small files onto the heap means grades.txt (rolled at 1 MB) and the other
+ * data files can be replaced right after they were read.
+ */
+public class MappedRecordReader implements Closeable {
+    private static final byte SEPARATOR = '|';
+    // Files larger than this are mapped rather than read onto the heap
+    private static final long MAP_THRESHOLD_BYTES = 4 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final Charset charset;
+    private ByteBuffer buffer;
+
+    private int recordStart;
+    private int recordEnd;
+    private int nextPosition;
+    // Start of each field, plus one extra entry holding recordEnd + 1
+    private int[] fieldStarts = new int[8];
+    private int rawFieldCount;
+    private int fieldCount;
+
+    private MappedRecordReader(RandomAccessFile file, Charset charset) throws IOException {
+        this.file = file;
+        this.charset = charset;
+        long size = file.length();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File too large to map: " + size + " bytes");
+        }
+        FileChannel channel = file.getChannel();
+        if (size > MAP_THRESHOLD_BYTES) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } else {
+            this.buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Opens a UTF-8 encoded file for reading.
+     *
+     * @param file The file to read.
+     * @return The reader, positioned before the first record.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static MappedRecordReader open(File file) throws IOException {
+        return open(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a file for reading with the given character encoding.
+     *
+     * @param file The file to read.
+     * @param charset The encoding used when fields are turned into Strings.
+     * @return The reader, positioned before the first record.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static MappedRecordReader open(File file, Charset charset) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            return new MappedRecordReader(randomAccessFile, charset);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances to the next record, skipping empty lines and comments.
+     *
+     * @return true if a record is available, false at the end of the file.
+     */
+    public boolean next() {
+        if (buffer == null) {
+            return false;
+        }
+        int limit = buffer.limit();
+        while (nextPosition < limit) {
+            int start = nextPosition;
+            int end = start;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            nextPosition = end + 1;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (isBlank(start, end) || buffer.get(start) == '#') {
+                continue;
+            }
+            recordStart = start;
+            recordEnd = end;
+            splitFields();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of fields in the current record. As with String.split,
+     * trailing empty fields are not counted.
+     *
+     * @return The field count.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets the number of '|' separators in the current record.
+     *
+     * @return The separator count.
+     */
+    public int separatorCount() {
+        return rawFieldCount - 1;
+    }
+
+    /**
+     * Decodes one field of the current record.
+     *
+     * @param index The zero-based field index.
+     * @return The field value.
+     * @throws IndexOutOfBoundsException if the record has no such field.
+     */
+    public String field(int index) {
+        checkField(index);
+        return decode(fieldStarts[index], fieldStarts[index + 1] - 1);
+    }
+
+    /**
+     * Compares one field of the current record against already encoded bytes
+     * without decoding the field.
+     *
+     * @param index The zero-based field index.
+     * @param value The expected value, encoded with {@link #encode(String)}.
+     * @return true if the field holds exactly these bytes.
+     */
+    public boolean fieldEquals(int index, byte[] value) {
+        if (index < 0 || index >= rawFieldCount) {
+            return false;
+        }
+        int start = fieldStarts[index];
+        int length = fieldStarts[index + 1] - 1 - start;
+        if (length != value.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a value with this reader's charset for use with fieldEquals.
+     *
+     * @param value The value to encode.
+     * @return The encoded bytes.
+     */
+    public byte[] encode(String value) {
+        return value.getBytes(charset);
+    }
+
+    /**
+     * Decodes the whole current record, without its line terminator.
+     *
+     * @return The record text.
+     */
+    public String line() {
+        return decode(recordStart, recordEnd);
+    }
+
+    /**
+     * Moves the reader to a byte offset, which must be the start of a line.
+     * The next call to {@link #next()} reads the record there or after it.
+     *
+     * @param offset The offset.
+     */
+    public void seek(long offset) {
+        nextPosition = (int) Math.min(offset, buffer == null ? 0 : buffer.limit());
+    }
+
+    /**
+     * Gets the byte offset just past the current record's line terminator,
+     * where the next line starts. If the last line of the file has no
+     * terminator this is one past the end of the file.
+     *
+     * @return The offset.
+     */
+    public long nextOffset() {
+        return nextPosition;
+    }
+
+    /**
+     * Gets the byte offset of the current record in the file.
+     *
+     * @return The offset of the first byte of the record.
+     */
+    public long recordOffset() {
+        return recordStart;
+    }
+
+    /**
+     * Closes the file. A mapping is released once it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        file.close();
+    }
+
+    private void splitFields() {
+        rawFieldCount = 0;
+        addFieldStart(recordStart);
+        for (int i = recordStart; i < recordEnd; i++) {
+            if (buffer.get(i) == SEPARATOR) {
+                addFieldStart(i + 1);
+            }
+        }
+        // Sentinel so every field ends one byte before the next start
+        if (fieldStarts.length == rawFieldCount) {
+            growFieldStarts();
+        }
+        fieldStarts[rawFieldCount] = recordEnd + 1;
+
+        fieldCount = rawFieldCount;
+        while (fieldCount > 0 && fieldStarts[fieldCount] - 1 == fieldStarts[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private void addFieldStart(int position) {
+        if (fieldStarts.length == rawFieldCount) {
+            growFieldStarts();
+        }
+        fieldStarts[rawFieldCount++] = position;
+    }
+
+    private void growFieldStarts() {
+        int[] grown = new int[fieldStarts.length * 2];
+        System.arraycopy(fieldStarts, 0, grown, 0, fieldStarts.length);
+        fieldStarts = grown;
+    }
+
+    private void checkField(int index) {
+        if (index < 0 || index >= rawFieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + rawFieldCount);
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, charset);
+    }
+}
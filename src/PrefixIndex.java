@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sorted-array prefix index for type-ahead lookups.
+ *
+ * Values are added under one or more keys, such as a username, a display name
+ * and the words of that name. Keys are kept lower-cased and sorted, so the
+ * keys starting with a prefix are a contiguous range found by binary search
+ * and a lookup costs O(log n + limit) however many values there are.
+ *
+ * @param <T> The type of the indexed values.
+ */
+public class PrefixIndex<T> {
+    private final List<Entry<T>> entries = new ArrayList<>();
+    private final Set<T> values = new HashSet<>();
+    private boolean sorted = true;
+
+    /**
+     * Adds a value under a key.
+     *
+     * @param key The key; case is ignored.
+     * @param value The value to return for prefixes of the key.
+     */
+    public void add(String key, T value) {
+        if (key == null || key.trim().isEmpty()) {
+            return;
+        }
+        entries.add(new Entry<>(fold(key.trim()), value));
+        values.add(value);
+        sorted = false;
+    }
+
+    /**
+     * Adds a value under a name and under each word of the name, so it is
+     * found by the start of any of its words.
+     *
+     * @param name The name.
+     * @param value The value.
+     */
+    public void addWords(String name, T value) {
+        if (name == null) {
+            return;
+        }
+        add(name, value);
+        String[] words = name.trim().split("\\s+");
+        for (int i = 1; i < words.length; i++) {
+            add(words[i], value);
+        }
+    }
+
+    /**
+     * Finds the values with a key starting with a prefix.
+     *
+     * @param prefix The prefix; case is ignored, empty matches everything.
+     * @param limit The maximum number of values to return.
+     * @return Up to limit distinct values, in key order.
+     */
+    public List<T> search(String prefix, int limit) {
+        if (!sorted) {
+            Collections.sort(entries);
+            sorted = true;
+        }
+        String folded = fold(prefix == null ? "" : prefix.trim());
+        Set<T> matches = new LinkedHashSet<>();
+        for (int i = lowerBound(folded); i < entries.size() && matches.size() < limit; i++) {
+            Entry<T> entry = entries.get(i);
+            if (!entry.key.startsWith(folded)) {
+                break;
+            }
+            matches.add(entry.value);
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Checks whether a value has been added.
+     *
+     * @param value The value.
+     * @return true if the value is in the index.
+     */
+    public boolean contains(T value) {
+        return values.contains(value);
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    // First entry whose key is not less than the prefix
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).key.compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String fold(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        final String key;
+        final T value;
+
+        Entry(String key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            return key.compareTo(other.key);
+        }
+    }
+}
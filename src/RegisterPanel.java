@@ -1,5 +1,5 @@
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.List;
 import javax.swing.*;
 
 /**
@@ -132,7 +132,7 @@ public class RegisterPanel extends JPanel {
         specializationCombo.addItem("None");
         
         CourseManager courseManager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = courseManager.getCourses();
+        List<Course> courses = courseManager.getCourses();
         
         if (!courses.isEmpty()) {
             for (Course course : courses) {
@@ -159,6 +159,13 @@ public class RegisterPanel extends JPanel {
         
         Admin admin = mainFrame.getAdmin();
         
+        if (admin.getUserDirectory().contains(username)) {
+            JOptionPane.showMessageDialog(this, 
+                "Username already exists. Please choose a different username.",
+                "Registration Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
         try {
             if (userType.equals("Admin")) {
                 Admin newAdmin = new Admin(username, password, name);
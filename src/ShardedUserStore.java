@@ -0,0 +1,301 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Stores users in several shard files instead of a single users.txt.
+ *
+ * Users are partitioned by role and by the hash of their username into
+ * "admin-N.txt", "instructor-N.txt" and "student-N.txt" inside the shard
+ * directory, with the number of shards per role kept in "shards.txt". Each
+ * shard has the same slotted layout as users.txt (see {@link UserRecordFile}),
+ * shards are loaded in parallel, and a save only touches shards that hold a
+ * changed, added or removed user. A user stays in the shard that holds its
+ * record when it is renamed; new users go to the shard of their username.
+ * Added and removed users are registered with {@link #track(User)} and
+ * {@link #remove(User)}, like with a single UserRecordFile.
+ */
+public class ShardedUserStore {
+    private static final String MANIFEST_FILE = "shards.txt";
+    private static final String[] ROLES = {"admin", "instructor", "student"};
+    
+    // Loads shards for every store; threads are started on first use and kept
+    private static final ExecutorService LOADERS = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "user-shard-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final File directory;
+    private final int shardsPerRole;
+    // Slot tables indexed by shard number; null until a shard is loaded or written
+    private final UserRecordFile[] shards;
+
+    private ShardedUserStore(File directory, int shardsPerRole) {
+        this.directory = directory;
+        this.shardsPerRole = shardsPerRole;
+        this.shards = new UserRecordFile[ROLES.length * shardsPerRole];
+    }
+
+    /**
+     * Checks whether a directory holds sharded users.
+     *
+     * @param directory The shard directory.
+     * @return true if the directory has a shard manifest.
+     */
+    public static boolean exists(File directory) {
+        return new File(directory, MANIFEST_FILE).exists();
+    }
+
+    /**
+     * Opens the shards of a directory.
+     *
+     * @param directory The shard directory.
+     * @return The store.
+     * @throws IOException if the manifest is missing or invalid.
+     */
+    public static ShardedUserStore open(File directory) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(directory, MANIFEST_FILE)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int shardsPerRole = Integer.parseInt(line);
+                if (shardsPerRole < 1) {
+                    break;
+                }
+                return new ShardedUserStore(directory, shardsPerRole);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException("Invalid shard manifest in " + directory.getPath());
+    }
+
+    /**
+     * Creates a sharded store in a directory and writes all users to it.
+     *
+     * @param directory The shard directory; created if needed.
+     * @param shardsPerRole The number of shard files per role.
+     * @param users The users to write.
+     * @param formatter Turns a user into its record line.
+     * @return The store.
+     * @throws IOException if the shards cannot be written.
+     */
+    public static ShardedUserStore create(File directory, int shardsPerRole, List<User> users,
+                                          Function<User, String> formatter) throws IOException {
+        if (shardsPerRole < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Error creating " + directory.getPath());
+        }
+        ShardedUserStore store = new ShardedUserStore(directory, shardsPerRole);
+        store.save(users, formatter, false);
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(directory, MANIFEST_FILE)), StandardCharsets.UTF_8)))) {
+            writer.println("# Number of user shard files per role");
+            writer.println(shardsPerRole);
+            if (writer.checkError()) {
+                throw new IOException("Error writing shard manifest");
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Loads all shards in parallel and merges them, admins first, then
+     * instructors, then students.
+     *
+     * @param parsers Creates a record parser for each loading thread.
+     * @return The users of all shards.
+     * @throws IOException if a shard cannot be read.
+     */
+    public List<User> load(Supplier<Function<String, User>> parsers) throws IOException {
+        List<Future<List<User>>> results = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shards.length; shard++) {
+                final int index = shard;
+                results.add(LOADERS.submit(() -> loadShard(index, parsers.get())));
+            }
+
+            List<User> users = new ArrayList<>();
+            for (Future<List<User>> result : results) {
+                users.addAll(result.get());
+            }
+            return users;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading user shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            // Does nothing for shards that are done; stops the rest after a failure
+            for (Future<List<User>> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Writes the shards that hold changed, added or removed users.
+     *
+     * @param users All users.
+     * @param formatter Turns a user into its record line.
+     * @param incremental false to rewrite every shard in full, for example when
+     *        the list is not the one that was loaded.
+     * @return The number of shards that had records written.
+     * @throws IOException if a shard cannot be written.
+     */
+    public int save(List<User> users, Function<User, String> formatter, boolean incremental)
+            throws IOException {
+        List<List<User>> partitions = new ArrayList<>(shards.length);
+        for (int shard = 0; shard < shards.length; shard++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (User user : users) {
+            int shard = ownerOf(user);
+            if (shard >= 0) {
+                partitions.get(shard).add(user);
+            }
+        }
+
+        int written = 0;
+        for (int shard = 0; shard < shards.length; shard++) {
+            List<User> partition = partitions.get(shard);
+            UserRecordFile records = shards[shard];
+            if (incremental && records != null && records.canUpdate()) {
+                try {
+                    if (records.update(partition, formatter) > 0) {
+                        written++;
+                    }
+                    continue;
+                } catch (IOException e) {
+                    System.out.println("Error updating user shard, rewriting it: " + e.getMessage());
+                }
+            }
+            shards[shard] = UserRecordFile.write(shardFile(shard), partition, formatter);
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Moves a slot to the object that replaced its user, see
+     * {@link UserRecordFile#replace(User, User)}.
+     *
+     * @param oldUser The user that owned the slot.
+     * @param newUser The user taking it over.
+     */
+    public void replace(User oldUser, User newUser) {
+        // The old user may have been renamed since it was loaded, so its slot
+        // is not necessarily in the shard its current username maps to
+        for (UserRecordFile records : shards) {
+            if (records != null && records.replace(oldUser, newUser)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Registers a user added to the list with the shard it will be saved in,
+     * see {@link UserRecordFile#track(User)}.
+     *
+     * @param user The user.
+     */
+    public void track(User user) {
+        int shard = ownerOf(user);
+        if (shard >= 0 && shards[shard] != null) {
+            shards[shard].track(user);
+        }
+        // A shard without a file yet is written in full at the next save
+    }
+
+    /**
+     * Registers a user removed from the list with the shard holding its
+     * record, see {@link UserRecordFile#remove(User)}.
+     *
+     * @param user The user.
+     */
+    public void remove(User user) {
+        for (UserRecordFile records : shards) {
+            if (records != null && records.remove(user)) {
+                return;
+            }
+        }
+    }
+
+    private List<User> loadShard(int shard, Function<String, User> parser) throws IOException {
+        List<User> users = new ArrayList<>();
+        File file = shardFile(shard);
+        if (file.exists()) {
+            shards[shard] = UserRecordFile.load(file, parser, users);
+        }
+        return users;
+    }
+
+    /**
+     * Gets the shard holding a user's record, or else the shard for its role
+     * and username.
+     *
+     * @return The shard number, or -1 for unsupported user types.
+     */
+    private int ownerOf(User user) {
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (shards[shard] != null && shards[shard].holds(user)) {
+                return shard;
+            }
+        }
+        return shardOf(user);
+    }
+
+    /**
+     * Picks the shard for a user from its role and username.
+     *
+     * @return The shard number, or -1 for unsupported user types.
+     */
+    private int shardOf(User user) {
+        int role;
+        if (user instanceof Admin) {
+            role = 0;
+        } else if (user instanceof Instructor) {
+            role = 1;
+        } else if (user instanceof Student) {
+            role = 2;
+        } else {
+            return -1;
+        }
+        return role * shardsPerRole + Math.floorMod(user.getUsername().hashCode(), shardsPerRole);
+    }
+
+    private File shardFile(int shard) {
+        return new File(directory, ROLES[shard / shardsPerRole] + "-" + (shard % shardsPerRole) + ".txt");
+    }
+}
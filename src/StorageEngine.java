@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores the courses, users, grades and feedback of the Course Management System.
+ *
+ * DataManager forwards to the active engine, so the rest of the application
+ * does not depend on how records are kept. Implementations:
+ * {@link TextFileStorageEngine} (the data/*.txt files, the default),
+ * {@link InMemoryStorageEngine} (nothing persisted, for tests and benchmarks)
+ * and {@link LogStructuredStorageEngine} (sorted run files for large data sets).
+ */
+public interface StorageEngine {
+
+    /**
+     * Loads all courses.
+     *
+     * @return The courses, or an empty list if there are none.
+     */
+    ArrayList<Course> loadCourses();
+
+    /**
+     * Replaces the stored courses.
+     *
+     * @param courses The courses to save.
+     * @return true if successful, false otherwise.
+     */
+    boolean saveCourses(List<Course> courses);
+
+    /**
+     * Loads all users. The returned list is the one saveUsers can save incrementally.
+     *
+     * @return The users, or an empty list if there are none.
+     */
+    List<User> loadUsers();
+
+    /**
+     * Replaces the stored users.
+     *
+     * @param users The users to save.
+     * @return true if successful, false otherwise.
+     */
+    boolean saveUsers(List<User> users);
+
+    /**
+     * Records an added or changed user.
+     *
+     * @param user The user whose current state should be stored.
+     * @return true if successful, false otherwise.
+     */
+    boolean logUserUpdate(User user);
+
+    /**
+     * Records a username change. The user is recorded with logUserUpdate afterwards.
+     *
+     * @param oldUsername The username the user was stored under.
+     * @param newUsername The new username.
+     * @return true if successful, false otherwise.
+     */
+    boolean logUserRename(String oldUsername, String newUsername);
+
+    /**
+     * Records a user deletion.
+     *
+     * @param user The deleted user.
+     * @return true if successful, false otherwise.
+     */
+    boolean logUserDelete(User user);
+
+    /**
+     * Checks whether enough user changes have been recorded that the users
+     * should be written out in full with saveUsers.
+     *
+     * @return true if a checkpoint is due.
+     */
+    boolean isUserLogCheckpointDue();
+
+    /**
+     * Stores a feedback message.
+     *
+     * @param feedback The feedback, stamped with the time it was given.
+     * @return A future completed with the position of the record once it is stored.
+     */
+    CompletableFuture<Long> saveFeedbackAsync(FeedbackRecord feedback);
+
+    /**
+     * Loads all feedback messages.
+     *
+     * @return The feedback, oldest first.
+     */
+    List<FeedbackRecord> loadFeedbacks();
+
+    /**
+     * Gets a stamp of the stored feedback that changes when feedback is
+     * stored or removed other than through this engine, for example by
+     * another copy of the application sharing the files. Feedback saved
+     * through this engine leaves it unchanged.
+     *
+     * @return The stamp.
+     */
+    long getFeedbackStamp();
+
+    /**
+     * Stores a grade.
+     *
+     * @param studentName The name of the student.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor.
+     * @param numericGrade The numeric grade.
+     * @param letterGrade The letter grade.
+     * @return A future completed with the position of the record once it is stored.
+     */
+    CompletableFuture<Long> saveGradeAsync(String studentName, String studentUsername,
+                                           String courseName, String instructorName,
+                                           float numericGrade, String letterGrade);
+
+    /**
+     * Loads the most recent grade per student and course.
+     *
+     * @return The latest grades.
+     */
+    Collection<GradeRecord> loadLatestGrades();
+
+    /**
+     * Loads every grade given in a time range.
+     *
+     * @param from The earliest timestamp (ISO date-time) to include, or null for no lower bound.
+     * @param to The latest timestamp (ISO date-time) to include, or null for no upper bound.
+     * @return The grades in the order they were given.
+     */
+    List<GradeRecord> loadGradeHistory(String from, String to);
+
+    /**
+     * Loads the whole grade history as off-heap columns for reports.
+     *
+     * @return A read-only snapshot of the columns.
+     */
+    GradeColumns loadGradeColumns();
+
+    /**
+     * Waits until all queued feedback and grade records are stored.
+     */
+    void flushPendingWrites();
+
+    /**
+     * Stores anything still queued and releases open files.
+     */
+    void close();
+}
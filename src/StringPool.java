@@ -0,0 +1,117 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one canonical instance of free-text strings that many records repeat
+ * (the instructor lists on feedback), so they share one String instead of
+ * each holding its own copy, without giving them IDs.
+ *
+ * The pool holds its strings weakly: a string that no record refers to any
+ * more is dropped at the next garbage collection, so strings seen once do
+ * not accumulate the way they would in a {@link SymbolTable}. The pool does
+ * not lock, so records built on several threads at once, as the user shards
+ * are loaded, do not wait for each other.
+ */
+public class StringPool {
+    // Keys are the entries themselves, so the map holds no strong reference to a string
+    private final Map<Object, Entry> strings = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+
+    /**
+     * Gets the canonical instance of a string, adding it if it is new.
+     *
+     * @param string The string, or null.
+     * @return The instance equal to it that the pool holds, or null.
+     */
+    public String canonical(String string) {
+        if (string == null) {
+            return null;
+        }
+        removeCollected();
+        Entry held = strings.get(new Lookup(string));
+        String canonical = held == null ? null : held.get();
+        if (canonical != null) {
+            return canonical;
+        }
+        Entry entry = new Entry(string, collected);
+        while (true) {
+            held = strings.putIfAbsent(entry, entry);
+            if (held == null) {
+                return string;
+            }
+            canonical = held.get();
+            if (canonical != null) {
+                return canonical; // Added by another thread since the lookup
+            }
+            strings.remove(held, held); // Collected but not yet removed
+        }
+    }
+
+    /**
+     * Gets the number of strings held.
+     *
+     * @return The count, including strings not yet collected.
+     */
+    public int size() {
+        removeCollected();
+        return strings.size();
+    }
+
+    private void removeCollected() {
+        Object entry;
+        while ((entry = collected.poll()) != null) {
+            strings.remove(entry, entry);
+        }
+    }
+
+    // A weakly held string; once collected it is only equal to itself
+    private static final class Entry extends WeakReference<String> {
+        private final int hash;
+
+        Entry(String string, ReferenceQueue<String> queue) {
+            super(string, queue);
+            this.hash = string.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            String string = get();
+            if (string == null) {
+                return false;
+            }
+            if (other instanceof Entry) {
+                return string.equals(((Entry) other).get());
+            }
+            return other instanceof Lookup && string.equals(((Lookup) other).string);
+        }
+    }
+
+    // A string being looked up, equal to the entry that holds an equal string
+    private static final class Lookup {
+        private final String string;
+
+        Lookup(String string) {
+            this.string = string;
+        }
+
+        @Override
+        public int hashCode() {
+            return string.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry && string.equals(((Entry) other).get());
+        }
+    }
+}
@@ -1,17 +1,25 @@
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
  * Student class representing a student user in the course management system.
  * Extends User to inherit username and password functionality. Manages
  * student-specific data like name, courses, and grades.
+ *
+ * {@link #getCourses()}, {@link #getNumericGrades()} and
+ * {@link #getLetterGrades()} return read-only views of the same enrollments,
+ * in course order; modifying them throws UnsupportedOperationException.
+ * Courses and grades are changed through {@link #addCourse},
+ * {@link #updateCourse}, {@link #setNumericGrade} and {@link #setLetterGrade},
+ * which keep the three in step, mark the student for saving and update the
+ * course rosters.
  */
 public class Student extends User {
 
     private String studentName;
-    private ArrayList<String> courses;
-    private ArrayList<Float> numericGrades;
-    private ArrayList<String> letterGrades;
+    private final StudentEnrollments courses; // Courses with their numeric and letter grades
+    private transient EnrollmentIndex enrollments; // Set while the student is in a UserDirectory
 
     /**
      * Constructor to initialize a student with username, password, and name.
@@ -28,9 +36,7 @@ public class Student extends User {
             throw new IllegalArgumentException("Student name cannot be null or empty");
         }
         this.studentName = studentName;
-        this.courses = new ArrayList<>();
-        this.numericGrades = new ArrayList<>();
-        this.letterGrades = new ArrayList<>();
+        this.courses = new StudentEnrollments();
     }
 
     /**
@@ -53,33 +59,34 @@ public class Student extends User {
             throw new IllegalArgumentException("Student name cannot be null or empty");
         }
         this.studentName = studentName;
+        markDirty();
     }
 
     /**
      * Gets the list of registered courses.
      *
-     * @return The list of course names.
+     * @return A read-only view of the course names.
      */
-    public ArrayList<String> getCourses() {
-        return courses;
+    public List<String> getCourses() {
+        return courses.courses();
     }
 
     /**
      * Gets the list of numeric grades.
      *
-     * @return The list of numeric grades.
+     * @return A read-only view of the numeric grades, in course order.
      */
-    public ArrayList<Float> getNumericGrades() {
-        return numericGrades;
+    public List<Float> getNumericGrades() {
+        return courses.numericGrades();
     }
 
     /**
      * Gets the list of letter grades.
      *
-     * @return The list of letter grades.
+     * @return A read-only view of the letter grades, in course order.
      */
-    public ArrayList<String> getLetterGrades() {
-        return letterGrades;
+    public List<String> getLetterGrades() {
+        return courses.letterGrades();
     }
 
     /**
@@ -101,9 +108,11 @@ public class Student extends User {
         if (numericGrade < 0 || numericGrade > 100) {
             throw new IllegalArgumentException("Numeric grade must be between 0 and 100");
         }
-        courses.add(course);
-        numericGrades.add(numericGrade);
-        letterGrades.add(letterGrade);
+        courses.add(course, numericGrade, letterGrade);
+        if (enrollments != null) {
+            enrollments.enroll(course, getUsername());
+        }
+        markDirty();
     }
 
     /**
@@ -129,9 +138,14 @@ public class Student extends User {
         if (newNumericGrade < 0 || newNumericGrade > 100) {
             throw new IllegalArgumentException("Numeric grade must be between 0 and 100");
         }
-        courses.set(index, newCourse);
-        numericGrades.set(index, newNumericGrade);
-        letterGrades.set(index, newLetterGrade);
+        String oldCourse = courses.set(index, newCourse, newNumericGrade, newLetterGrade);
+        if (enrollments != null && !oldCourse.equals(newCourse)) {
+            if (courses.indexOf(oldCourse) == -1) {
+                enrollments.unenroll(oldCourse, getUsername());
+            }
+            enrollments.enroll(newCourse, getUsername());
+        }
+        markDirty();
     }
 
     /**
@@ -151,7 +165,8 @@ public class Student extends User {
         }
         int index = courses.indexOf(course);
         if (index != -1) {
-            numericGrades.set(index, grade);
+            courses.setNumericGrade(index, grade);
+            markDirty();
         } else {
             throw new IllegalArgumentException("Course not found");
         }
@@ -173,7 +188,8 @@ public class Student extends User {
         }
         int index = courses.indexOf(course);
         if (index != -1) {
-            letterGrades.set(index, grade);
+            courses.setLetterGrade(index, grade);
+            markDirty();
         } else {
             throw new IllegalArgumentException("Course not found");
         }
@@ -192,10 +208,12 @@ public class Student extends User {
             int choice = input.nextInt();
             input.nextLine(); // Clear buffer
             String course = manager.getCourseNameByIndex(choice - 1);
-            if (course != null && !courses.contains(course)) {
-                courses.add(course);
-                numericGrades.add(0.0f); // Default grade
-                letterGrades.add("N/A"); // Default letter grade
+            if (course != null && courses.indexOf(course) == -1) {
+                courses.add(course, 0.0f, "N/A"); // Default grades
+                if (enrollments != null) {
+                    enrollments.enroll(course, getUsername());
+                }
+                markDirty();
                 System.out.println("Course registered: " + course);
             } else {
                 System.out.println("Invalid course or already registered.");
@@ -212,12 +230,12 @@ public class Student extends User {
      * Displays the student's registered courses.
      */
     public void viewCourses() {
-        if (courses.isEmpty()) {
+        if (courses.size() == 0) {
             System.out.println("No courses registered.");
         } else {
             System.out.println("Registered Courses:");
             for (int i = 0; i < courses.size(); i++) {
-                System.out.println("- " + courses.get(i));
+                System.out.println("- " + courses.getCourse(i));
             }
         }
     }
@@ -226,7 +244,7 @@ public class Student extends User {
      * Displays the student's grades for all courses.
      */
     public void viewGrades() {
-        if (courses.isEmpty()) {
+        if (courses.size() == 0) {
             System.out.println("No grades available.");
         } else {
             System.out.println("Grades:");
@@ -235,9 +253,9 @@ public class Student extends User {
             
             for (int i = 0; i < courses.size(); i++) {
                 System.out.printf("%-30s %-15.2f %-10s\n", 
-                    courses.get(i), 
-                    numericGrades.get(i), 
-                    letterGrades.get(i));
+                    courses.getCourse(i), 
+                    courses.getNumericGrade(i), 
+                    courses.getLetterGrade(i));
             }
         }
     }
@@ -280,6 +298,16 @@ public class Student extends User {
         }
     }
 
+    /**
+     * Sets the enrollment index the student reports course changes to.
+     * Called by UserDirectory when the student is added or removed.
+     *
+     * @param enrollments The index, or null to stop reporting.
+     */
+    void setEnrollmentIndex(EnrollmentIndex enrollments) {
+        this.enrollments = enrollments;
+    }
+
     /**
      * Get the student's password.
      * 
@@ -297,11 +325,8 @@ public class Student extends User {
     public ArrayList<CourseGrade> getCourseGrades() {
         ArrayList<CourseGrade> courseGrades = new ArrayList<>();
         for (int i = 0; i < courses.size(); i++) {
-            String course = courses.get(i);
-            float grade = 0.0f;
-            if (i < numericGrades.size()) {
-                grade = numericGrades.get(i);
-            }
+            String course = courses.getCourse(i);
+            float grade = courses.getNumericGrade(i);
             String instructor = "N/A"; // Replace with your instructor data if available
             courseGrades.add(new CourseGrade(course, grade, instructor));
         }
@@ -0,0 +1,330 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A student's courses and grades, kept in parallel primitive arrays: course
+ * IDs from {@link SymbolTable#COURSE_NAMES}, a float[] of numeric grades and a
+ * byte[] of letter grade IDs. Students have the course names and letter
+ * grades in common, so each enrollment costs 9 bytes rather than three
+ * list slots and a boxed Float.
+ *
+ * Letter grade IDs come from one table shared by all students, capped at
+ * 255 letters; any further letter is kept as a string for its enrollment.
+ * Finding a course compares IDs; with more than a few courses an
+ * open-addressing table maps each course ID to its first slot. The list views returned by {@link #courses()},
+ * {@link #numericGrades()} and {@link #letterGrades()} are read-only and
+ * follow later changes.
+ */
+public class StudentEnrollments implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final SymbolTable COURSE_NAMES = SymbolTable.COURSE_NAMES;
+    private static final SymbolTable LETTER_GRADES = new SymbolTable();
+
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+    private static final int OTHER_LETTER = 0xFF; // The letter grade is in otherLetters
+
+    private transient int size;
+    private transient int[] courseIds = new int[4];
+    private transient float[] grades = new float[4];
+    private transient byte[] letters = new byte[4];
+    private transient String[] otherLetters; // Letter grades whose IDs do not fit in a byte
+    private transient int[] slotTable; // Course ID -> first slot + 1, built when searches need it
+
+    private transient List<String> courseView;
+    private transient List<Float> gradeView;
+    private transient List<String> letterView;
+
+    /**
+     * Gets the number of enrollments.
+     *
+     * @return The count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the course at a position.
+     *
+     * @param index The position.
+     * @return The course name.
+     */
+    public String getCourse(int index) {
+        checkIndex(index);
+        return COURSE_NAMES.get(courseIds[index]);
+    }
+
+    /**
+     * Gets the numeric grade at a position.
+     *
+     * @param index The position.
+     * @return The grade.
+     */
+    public float getNumericGrade(int index) {
+        checkIndex(index);
+        return grades[index];
+    }
+
+    /**
+     * Gets the letter grade at a position.
+     *
+     * @param index The position.
+     * @return The letter grade.
+     */
+    public String getLetterGrade(int index) {
+        checkIndex(index);
+        int letter = letters[index] & 0xFF;
+        return letter == OTHER_LETTER ? otherLetters[index] : LETTER_GRADES.get(letter);
+    }
+
+    /**
+     * Finds the first position of a course.
+     *
+     * @param course The course name.
+     * @return The position, or -1 if the student does not have the course.
+     */
+    public int indexOf(String course) {
+        int id = course == null ? -1 : COURSE_NAMES.find(course);
+        if (id < 0) {
+            return -1;
+        }
+        if (size <= LINEAR_SEARCH_LIMIT) {
+            for (int i = 0; i < size; i++) {
+                if (courseIds[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        if (slotTable == null) {
+            buildSlotTable();
+        }
+        int mask = slotTable.length - 1;
+        for (int i = hash(id) & mask; slotTable[i] != 0; i = (i + 1) & mask) {
+            int slot = slotTable[i] - 1;
+            if (courseIds[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an enrollment at the end.
+     *
+     * @param course The course name.
+     * @param numericGrade The numeric grade.
+     * @param letterGrade The letter grade.
+     */
+    public void add(String course, float numericGrade, String letterGrade) {
+        if (size == courseIds.length) {
+            int capacity = size * 2;
+            courseIds = Arrays.copyOf(courseIds, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            letters = Arrays.copyOf(letters, capacity);
+            if (otherLetters != null) {
+                otherLetters = Arrays.copyOf(otherLetters, capacity);
+            }
+        }
+        courseIds[size] = COURSE_NAMES.intern(course);
+        grades[size] = numericGrade;
+        size++;
+        storeLetter(size - 1, letterGrade);
+        if (slotTable != null) {
+            if (size * 2 > slotTable.length) {
+                buildSlotTable(); // Keep the table at most half full
+            } else {
+                insertSlot(slotTable, size - 1);
+            }
+        }
+    }
+
+    /**
+     * Replaces the enrollment at a position.
+     *
+     * @param index The position.
+     * @param course The new course name.
+     * @param numericGrade The new numeric grade.
+     * @param letterGrade The new letter grade.
+     * @return The course name that was replaced.
+     */
+    public String set(int index, String course, float numericGrade, String letterGrade) {
+        String oldCourse = getCourse(index);
+        int id = COURSE_NAMES.intern(course);
+        if (courseIds[index] != id) {
+            courseIds[index] = id;
+            slotTable = null; // The old course may have a later slot to point to instead
+        }
+        grades[index] = numericGrade;
+        storeLetter(index, letterGrade);
+        return oldCourse;
+    }
+
+    /**
+     * Sets the numeric grade at a position.
+     *
+     * @param index The position.
+     * @param numericGrade The new grade.
+     */
+    public void setNumericGrade(int index, float numericGrade) {
+        checkIndex(index);
+        grades[index] = numericGrade;
+    }
+
+    /**
+     * Sets the letter grade at a position.
+     *
+     * @param index The position.
+     * @param letterGrade The new letter grade.
+     */
+    public void setLetterGrade(int index, String letterGrade) {
+        checkIndex(index);
+        storeLetter(index, letterGrade);
+    }
+
+    /**
+     * Gets the course names as a read-only list.
+     *
+     * @return The view.
+     */
+    public List<String> courses() {
+        if (courseView == null) {
+            courseView = new CourseView();
+        }
+        return courseView;
+    }
+
+    /**
+     * Gets the numeric grades as a read-only list.
+     *
+     * @return The view.
+     */
+    public List<Float> numericGrades() {
+        if (gradeView == null) {
+            gradeView = new View<Float>() {
+                @Override
+                public Float get(int index) {
+                    return getNumericGrade(index);
+                }
+            };
+        }
+        return gradeView;
+    }
+
+    /**
+     * Gets the letter grades as a read-only list.
+     *
+     * @return The view.
+     */
+    public List<String> letterGrades() {
+        if (letterView == null) {
+            letterView = new View<String>() {
+                @Override
+                public String get(int index) {
+                    return getLetterGrade(index);
+                }
+            };
+        }
+        return letterView;
+    }
+
+    private void storeLetter(int index, String letterGrade) {
+        int letter = LETTER_GRADES.intern(letterGrade, OTHER_LETTER);
+        if (letter >= 0) {
+            letters[index] = (byte) letter;
+            if (otherLetters != null) {
+                otherLetters[index] = null;
+            }
+            return;
+        }
+        if (otherLetters == null) {
+            otherLetters = new String[courseIds.length];
+        }
+        letters[index] = (byte) OTHER_LETTER;
+        otherLetters[index] = letterGrade;
+    }
+
+    private void buildSlotTable() {
+        int capacity = Integer.highestOneBit(size * 2 - 1) << 1; // At most half full
+        int[] table = new int[capacity];
+        for (int slot = 0; slot < size; slot++) {
+            insertSlot(table, slot);
+        }
+        slotTable = table;
+    }
+
+    private void insertSlot(int[] table, int slot) {
+        int mask = table.length - 1;
+        int i = hash(courseIds[slot]) & mask;
+        while (table[i] != 0 && courseIds[table[i] - 1] != courseIds[slot]) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == 0) {
+            table[i] = slot + 1; // Keep the first slot for repeated courses
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        // IDs are only valid in this run, so the strings are written
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(getCourse(i));
+            out.writeFloat(grades[i]);
+            out.writeUTF(getLetterGrade(i));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        courseIds = new int[Math.max(4, count)];
+        grades = new float[courseIds.length];
+        letters = new byte[courseIds.length];
+        for (int i = 0; i < count; i++) {
+            add(in.readUTF(), in.readFloat(), in.readUTF());
+        }
+    }
+
+    private abstract class View<E> extends AbstractList<E> implements RandomAccess {
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class CourseView extends View<String> {
+        @Override
+        public String get(int index) {
+            return getCourse(index);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof String ? StudentEnrollments.this.indexOf((String) o) : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
+}
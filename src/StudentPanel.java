@@ -1,5 +1,6 @@
 import java.awt.*;
 import java.util.*;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.table.*;
 
@@ -315,10 +316,10 @@ public class StudentPanel extends JPanel {
         }
         
         CourseManager manager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = manager.getCourses();
+        List<Course> courses = manager.getCourses();
         
         // Filter out courses the student is already registered for
-        ArrayList<String> enrolledCourses = student.getCourses();
+        Set<String> enrolledCourses = new HashSet<>(student.getCourses());
         
         ArrayList<Course> availableCourses = new ArrayList<>();
         for (Course course : courses) {
@@ -327,18 +328,10 @@ public class StudentPanel extends JPanel {
             }
         }
         
-        Object[][] data = new Object[availableCourses.size()][5];
-        for (int i = 0; i < availableCourses.size(); i++) {
-            Course course = availableCourses.get(i);
-            data[i][0] = course.getName();
-            data[i][1] = course.getInstructorName();
-            data[i][2] = course.getStartDate();
-            data[i][3] = course.getEndDate();
-            data[i][4] = course.getDescription();
-        }
-        
-        availableCoursesTable.setModel(new javax.swing.table.DefaultTableModel(data, 
-            new String[]{"Course Name", "Instructor(s)", "Start Date", "End Date", "Description"}));
+        availableCoursesTable.setModel(new CourseTableModel(availableCourses,
+            new String[] {"Course Name", "Instructor(s)", "Start Date", "End Date", "Description"},
+            CourseTableModel.NAME, CourseTableModel.INSTRUCTORS, CourseTableModel.START_DATE,
+            CourseTableModel.END_DATE, CourseTableModel.DESCRIPTION));
     }
     
     /**
@@ -349,7 +342,7 @@ public class StudentPanel extends JPanel {
             return;
         }
         
-        ArrayList<String> courseNames = student.getCourses();
+        List<String> courseNames = student.getCourses();
         CourseManager manager = mainFrame.getCourseManager();
         
         Object[][] data = new Object[courseNames.size()][2];
@@ -357,12 +350,9 @@ public class StudentPanel extends JPanel {
             String courseName = courseNames.get(i);
             
             // Find instructor name from the course manager
-            String instructorName = "N/A";
-            for (Course course : manager.getCourses()) {
-                if (course.getName().equals(courseName)) {
-                    instructorName = course.getInstructorName();
-                    break;
-                }
+            String instructorName = manager.getInstructorName(courseName);
+            if (instructorName == null) {
+                instructorName = "N/A";
             }
             
             data[i][0] = courseName;
@@ -405,13 +395,7 @@ public class StudentPanel extends JPanel {
         
         // Get additional course details
         CourseManager manager = mainFrame.getCourseManager();
-        Course fullCourse = null;
-        for (Course c : manager.getCourses()) {
-            if (c.getName().equals(courseName)) {
-                fullCourse = c;
-                break;
-            }
-        }
+        Course fullCourse = manager.getCourse(courseName);
         
         StringBuilder details = new StringBuilder();
         details.append("Course: ").append(courseName).append("\n\n");
@@ -483,23 +467,23 @@ public class StudentPanel extends JPanel {
         // Find instructor for the selected course
         String instructorName = findInstructorForCourse(selectedCourse);
         
-        // Save the feedback
-        boolean success = DataManager.saveFeedback(
+        // Save the feedback; the result is reported once it is on disk, without blocking the UI
+        DataManager.saveFeedbackAsync(
             student.getStudentName(), 
             student.getUsername(), 
             selectedCourse, 
             instructorName, 
             feedback
-        );
-        
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Feedback submitted successfully!");
-            feedbackArea.setText("");
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                "Submission failed. Please try again later.",
-                "Submission Error", JOptionPane.ERROR_MESSAGE);
-        }
+        ).whenComplete((offset, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                JOptionPane.showMessageDialog(this, "Feedback submitted successfully!");
+                feedbackArea.setText("");
+            } else {
+                JOptionPane.showMessageDialog(this, 
+                    "Submission failed. Please try again later.",
+                    "Submission Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
     }
     
     /**
@@ -509,16 +493,8 @@ public class StudentPanel extends JPanel {
      * @return The name of the instructor.
      */
     private String findInstructorForCourse(String courseName) {
-        CourseManager manager = mainFrame.getCourseManager();
-        ArrayList<Course> courses = manager.getCourses();
-        
-        for (Course course : courses) {
-            if (course.getName().equals(courseName)) {
-                return course.getInstructorName();
-            }
-        }
-        
-        return "Unknown";
+        String instructorName = mainFrame.getCourseManager().getInstructorName(courseName);
+        return instructorName != null ? instructorName : "Unknown";
     }
     
     /**
@@ -538,7 +514,7 @@ public class StudentPanel extends JPanel {
                         JComboBox<String> courseComboBox = (JComboBox<String>) innerComp;
                         courseComboBox.removeAllItems();
                         
-                        ArrayList<String> courses = student.getCourses();
+                        List<String> courses = student.getCourses();
                         
                         if (courses.isEmpty()) {
                             courseComboBox.addItem("No courses available");
@@ -590,7 +566,7 @@ public class StudentPanel extends JPanel {
         
         try {
             student.addCourse(courseName, 0.0f, "N/A");
-            mainFrame.getAdmin().saveUsers(); // Save the changes
+            mainFrame.getAdmin().saveUser(student); // Save the changes
             JOptionPane.showMessageDialog(this, "Successfully registered for " + courseName);
             updateAvailableCoursesTable();
             updateMyCoursesTable();
@@ -621,12 +597,20 @@ public class StudentPanel extends JPanel {
             return;
         }
         
+        if (mainFrame.getAdmin().isUsernameTaken(newUsername, student)) {
+            JOptionPane.showMessageDialog(this, 
+                "Username already exists",
+                "Update Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
         try {
+            String oldUsername = student.getUsername();
             student.setUsername(newUsername);
             student.setPassword(newPassword);
             student.setStudentName(newName);
             
-            mainFrame.getAdmin().saveUsers(); // Save the changes
+            mainFrame.getAdmin().saveUser(student, oldUsername); // Save the changes
             JOptionPane.showMessageDialog(this, "Profile updated successfully!");
         } catch (IllegalArgumentException e) {
             JOptionPane.showMessageDialog(this, 
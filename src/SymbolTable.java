@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns small int IDs to strings and keeps one canonical instance of each,
+ * so records that repeat the same few strings (course names, instructor
+ * names, letter grades) can share one String or store an int instead, and
+ * compare them by identity or ID.
+ *
+ * IDs are handed out from 0 in the order strings are first seen and are
+ * never reused, so a table only grows. The shared {@link #COURSE_NAMES} and
+ * {@link #INSTRUCTOR_NAMES} tables are filled as DataManager loads the
+ * catalog, users, grades and feedback, and hold about as many names as the
+ * catalog has. Other tables belong to the data that holds their IDs and are
+ * dropped with it, as GradeColumns does, or are capped with
+ * {@link #intern(String, int)}. IDs are only meaningful within one run;
+ * anything written to disk stores the strings. Lookups of strings already
+ * in the table do not lock. null is numbered like any other string, so a
+ * missing name gets an ID that maps back to null. Free text that may not
+ * repeat goes in a {@link StringPool} instead.
+ */
+public class SymbolTable {
+    /** Course names, shared by Course, Instructor, Student and the grade and feedback records. */
+    public static final SymbolTable COURSE_NAMES = new SymbolTable();
+    /** Single instructor names, shared by Course, Instructor, the grade records and the feedback index. */
+    public static final SymbolTable INSTRUCTOR_NAMES = new SymbolTable();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[16];
+    private volatile int nullId = -1; // ConcurrentHashMap cannot hold a null key
+    private int size; // Guarded by this
+
+    /**
+     * Gets the ID of a string, assigning the next one if it is new.
+     *
+     * @param symbol The string, or null.
+     * @return Its ID.
+     */
+    public int intern(String symbol) {
+        return intern(symbol, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the ID of a string, assigning the next one only while the table
+     * holds fewer than a number of strings.
+     *
+     * @param symbol The string, or null.
+     * @param maxSize The most strings the table may hold.
+     * @return Its ID, or -1 if it is new and the table is full.
+     */
+    public int intern(String symbol, int maxSize) {
+        int id = find(symbol);
+        return id >= 0 ? id : add(symbol, maxSize);
+    }
+
+    /**
+     * Gets the canonical instance of a string, adding it if it is new.
+     *
+     * @param symbol The string, or null.
+     * @return The instance equal to it that the table holds, or null.
+     */
+    public String canonical(String symbol) {
+        return symbol == null ? null : get(intern(symbol));
+    }
+
+    /**
+     * Gets the ID of a string without assigning one.
+     *
+     * @param symbol The string, or null.
+     * @return Its ID, or -1 if it has none.
+     */
+    public int find(String symbol) {
+        if (symbol == null) {
+            return nullId;
+        }
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the string with an ID.
+     *
+     * @param id An ID returned by {@link #intern(String)}.
+     * @return The string.
+     */
+    public String get(int id) {
+        return symbols[id];
+    }
+
+    /**
+     * Gets the number of strings with IDs.
+     *
+     * @return The count.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String symbol, int maxSize) {
+        int id = find(symbol);
+        if (id >= 0) {
+            return id; // Added by another thread since the unlocked lookup
+        }
+        if (size >= maxSize) {
+            return -1;
+        }
+        String[] current = symbols;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = symbol;
+        symbols = current; // Publish the array before the ID can be looked up
+        if (symbol == null) {
+            nullId = size;
+        } else {
+            ids.put(symbol, size);
+        }
+        return size++;
+    }
+}
@@ -0,0 +1,1415 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores the Course Management System data in text files under data/:
+ * courses.txt, users.txt (or user shards) with its mutation log, and the
+ * feedbacks.txt and grades.txt logs. This is the default storage engine.
+ */
+public class TextFileStorageEngine implements StorageEngine {
+    private static final String DATA_DIR = "data";
+    private static final String COURSES_FILE = DATA_DIR + "/courses.txt";
+    private static final String USERS_FILE = DATA_DIR + "/users.txt";
+    private static final String FEEDBACK_FILE = DATA_DIR + "/feedbacks.txt";
+    private static final String GRADES_FILE = DATA_DIR + "/grades.txt";
+    private static final String USERS_LOG_FILE = DATA_DIR + "/users.log";
+    private static final String COURSES_BINARY_FILE = DATA_DIR + "/courses.dat";
+    private static final String USERS_BINARY_FILE = DATA_DIR + "/users.dat";
+    private static final String USERS_SHARD_DIR = DATA_DIR + "/users";
+    private static final String GRADES_SEGMENT_DIR = DATA_DIR + "/grades";
+    
+    // Text files at least this large get a binary snapshot, which loads several times faster
+    private static final long BINARY_SNAPSHOT_THRESHOLD_BYTES = 1024 * 1024;
+    
+    // users.txt is moved into shard files at the first checkpoint after it reaches this size
+    private static final long USERS_SHARD_THRESHOLD_BYTES = 8 * 1024 * 1024;
+    private static final int USER_SHARDS_PER_ROLE = 4;
+    
+    // User mutation log record types: PUT|record, RENAME|old|new, DELETE|username
+    private static final String LOG_PUT = "PUT";
+    private static final String LOG_RENAME = "RENAME";
+    private static final String LOG_DELETE = "DELETE";
+    
+    // Number of logged user changes after which a full snapshot is written
+    private static final int USERS_LOG_CHECKPOINT_THRESHOLD = 500;
+    private int userLogRecords = 0;
+    
+    // Record slots of users.txt or of the user shards, so saves only rewrite
+    // the users that changed; they belong to the list returned by loadUsers
+    private UserRecordFile userRecords;
+    private ShardedUserStore userShards;
+    private List<User> loadedUsers;
+    
+    // Background writers for feedbacks.txt and grades.txt, opened on first use
+    private LogAppender feedbackAppender;
+    private LogAppender gradeAppender;
+    private boolean shutdownHookRegistered = false;
+    // Bytes that feedback appenders closed since feedbacks.txt was last replaced had written to it
+    private long closedFeedbackBytes; // Guarded by this
+    
+    // grades.txt is rolled into a history segment once it grows past this size
+    private static final long GRADES_ROLL_THRESHOLD_BYTES = 1024 * 1024;
+    private GradeSegments gradeSegments;
+    // Grade history columns; built on first use and then read on from where they stopped
+    private GradeColumns gradeColumns;
+    // Rolls and compacts the grades log off the writer thread, one job at a time
+    private final ExecutorService gradeCompactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grade-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean gradeRollScheduled = new AtomicBoolean(false);
+    
+    /**
+     * Saves a list of courses to a text file.
+     * 
+     * @param courses The list of courses to save.
+     * @return true if successful, false otherwise.
+     */
+    @Override
+    public boolean saveCourses(List<Course> courses) {
+        ensureDataDirectoryExists();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(COURSES_FILE, StandardCharsets.UTF_8))) {
+            // Write header
+            writer.println("# Courses Data - name|instructorName|room|branch|price|startDate|endDate|description");
+            
+            // Write each course as a pipe-delimited line
+            for (Course course : courses) {
+                writer.println(formatCourse(course));
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving courses: " + e.getMessage());
+            return false;
+        }
+        
+        // Keep the binary snapshot in step once it has been enabled
+        File binaryFile = new File(COURSES_BINARY_FILE);
+        if (binaryFile.exists()) {
+            try {
+                BinarySnapshot.writeCourses(courses, binaryFile);
+            } catch (IOException e) {
+                System.out.println("Error saving binary courses snapshot: " + e.getMessage());
+                binaryFile.delete(); // Never leave a stale snapshot behind
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Loads courses from a text file.
+     * 
+     * @return The list of courses or an empty list if the file doesn't exist.
+     */
+    @Override
+    public ArrayList<Course> loadCourses() {
+        File file = new File(COURSES_FILE);
+        ArrayList<Course> courses = new ArrayList<>();
+        
+        File binaryFile = new File(COURSES_BINARY_FILE);
+        if (isBinarySnapshotCurrent(binaryFile, file)) {
+            try {
+                return BinarySnapshot.readCourses(binaryFile);
+            } catch (IOException e) {
+                System.out.println("Error loading binary courses snapshot, using text file: " + e.getMessage());
+            }
+        }
+        
+        if (!file.exists()) {
+            return courses;
+        }
+        
+        try (BufferedReader reader = new BufferedReader(new FileReader(COURSES_FILE, StandardCharsets.UTF_8))) {
+            String line;
+            FieldCursor fields = new FieldCursor('|');
+            // Skip header line
+            reader.readLine(); 
+            
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue; // Skip empty lines and comments
+                }
+                
+                Course course = parseCourse(line, fields);
+                if (course != null) {
+                    courses.add(course);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading courses: " + e.getMessage());
+            return courses;
+        }
+        
+        // Let the next start read a large file from a binary snapshot
+        if (file.length() >= BINARY_SNAPSHOT_THRESHOLD_BYTES) {
+            try {
+                BinarySnapshot.writeCourses(courses, binaryFile);
+            } catch (IOException e) {
+                System.out.println("Error saving binary courses snapshot: " + e.getMessage());
+                binaryFile.delete();
+            }
+        }
+        return courses;
+    }
+    
+    /**
+     * Formats a course as a pipe-delimited courses.txt record.
+     * 
+     * @param course The course to format.
+     * @return name|instructorName|room|branch|price|startDate|endDate|description
+     */
+    static String formatCourse(Course course) {
+        return course.getName() + "|" +
+               course.getInstructorName() + "|" +
+               course.getRoom() + "|" +
+               course.getBranch() + "|" + 
+               course.getPrice() + "|" +
+               course.getStartDate() + "|" +
+               course.getEndDate() + "|" +
+               course.getDescription();
+    }
+    
+    /**
+     * Parses a courses.txt record.
+     * 
+     * @param line The record.
+     * @param fields A '|' cursor to parse with, reused between records.
+     * @return The course, or null if the record has fewer than seven fields.
+     */
+    static Course parseCourse(String line, FieldCursor fields) {
+        int fieldCount = fields.reset(line).count();
+        if (fieldCount < 7) {
+            return null;
+        }
+        fields.next();
+        String name = fields.field();
+        fields.next();
+        String instructorName = fields.field();
+        fields.next();
+        String room = fields.field();
+        fields.next();
+        String branch = fields.field();
+        fields.next();
+        double price = fields.doubleValue(0.0); // Use default price if parsing fails
+        fields.next();
+        String startDate = fields.field();
+        fields.next();
+        String endDate = fields.field();
+        
+        // Add a default empty description
+        String description = fieldCount > 7 && fields.next() ? fields.field() : "";
+        
+        return new Course(name, instructorName, room, branch, price, startDate, endDate, description);
+    }
+    
+    /**
+     * Saves a list of users to a text file.
+     * Only users that changed since they were loaded or last saved are written;
+     * the file is rewritten in full when it has been compacted or changed by
+     * someone else. A binary snapshot, if there is one, is deleted first; the
+     * next load of the text file writes it again. Once users.txt has reached 8 MB the users are moved into
+     * shard files instead. The user mutation log is checkpointed afterwards,
+     * unless the user shards could not be loaded: the log then still holds
+     * changes that are in no file.
+     * 
+     * @param users The list of users to save.
+     * @return true if successful, false otherwise.
+     */
+    @Override
+    public boolean saveUsers(List<User> users) {
+        ensureDataDirectoryExists();
+        File usersFile = new File(USERS_FILE);
+        File binaryFile = new File(USERS_BINARY_FILE);
+        
+        if (userShards != null) {
+            try {
+                userShards.save(users, TextFileStorageEngine::formatUser, users == loadedUsers);
+            } catch (IOException e) {
+                System.out.println("Error saving user shards: " + e.getMessage());
+                return false;
+            }
+            return truncateUserLog();
+        }
+        if (ShardedUserStore.exists(new File(USERS_SHARD_DIR))) {
+            System.out.println("Error saving users: the user shards were not loaded, keeping the user log");
+            return false;
+        }
+        if (usersFile.length() >= USERS_SHARD_THRESHOLD_BYTES) {
+            return convertUsersToShards(users, USER_SHARDS_PER_ROLE);
+        }
+        
+        // The snapshot would no longer match users.txt; loading the text file writes a new one
+        if (binaryFile.exists() && !binaryFile.delete()) {
+            System.out.println("Error deleting binary users snapshot; users.txt will be newer and win");
+        }
+        
+        boolean updated = false;
+        if (userRecords != null && users == loadedUsers && userRecords.canUpdate()) {
+            try {
+                userRecords.update(users, TextFileStorageEngine::formatUser);
+                updated = true;
+            } catch (IOException e) {
+                System.out.println("Error updating users file, rewriting it: " + e.getMessage());
+            }
+        }
+        
+        if (!updated) {
+            try {
+                userRecords = UserRecordFile.write(usersFile, users, TextFileStorageEngine::formatUser);
+                loadedUsers = users;
+            } catch (IOException e) {
+                System.out.println("Error saving users: " + e.getMessage());
+                userRecords = null;
+                return false;
+            }
+        }
+        
+        // Drop the log entries the file now contains
+        return truncateUserLog();
+    }
+    
+    /**
+     * Appends an added or changed user to the user mutation log.
+     * The change is applied on top of users.txt the next time users are loaded.
+     * 
+     * @param user The user whose current state should be recorded.
+     * @return true if successful, false otherwise.
+     */
+    @Override
+    public boolean logUserUpdate(User user) {
+        if (userRecords != null) {
+            userRecords.track(user); // A new user's changes are reported from now on
+        }
+        if (userShards != null) {
+            userShards.track(user);
+        }
+        user.markDirty(); // Written to users.txt at the next checkpoint
+        String record = formatUser(user);
+        if (record == null) {
+            return false;
+        }
+        return appendUserLog(LOG_PUT + "|" + record);
+    }
+    
+    /**
+     * Appends a username change to the user mutation log.
+     * 
+     * @param oldUsername The username the user was stored under.
+     * @param newUsername The new username.
+     * @return true if successful, false otherwise.
+     */
+    @Override
+    public boolean logUserRename(String oldUsername, String newUsername) {
+        return appendUserLog(LOG_RENAME + "|" + oldUsername + "|" + newUsername);
+    }
+    
+    /**
+     * Appends a user deletion to the user mutation log.
+     * 
+     * @param user The deleted user.
+     * @return true if successful, false otherwise.
+     */
+    @Override
+    public boolean logUserDelete(User user) {
+        if (userRecords != null) {
+            userRecords.remove(user); // Its slot is blanked at the next checkpoint
+        }
+        if (userShards != null) {
+            userShards.remove(user);
+        }
+        return appendUserLog(LOG_DELETE + "|" + user.getUsername());
+    }
+    
+    /**
+     * Checks whether the user mutation log has grown enough that the users
+     * should be written out as a fresh snapshot with saveUsers.
+     * 
+     * @return true if a checkpoint is due.
+     */
+    @Override
+    public boolean isUserLogCheckpointDue() {
+        return userLogRecords >= USERS_LOG_CHECKPOINT_THRESHOLD;
+    }
+    
+    /**
+     * Appends one record to the user mutation log.
+     * 
+     * @param record The log record, without line terminator.
+     * @return true if successful, false otherwise.
+     */
+    private boolean appendUserLog(String record) {
+        ensureDataDirectoryExists();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_LOG_FILE, StandardCharsets.UTF_8, true))) {
+            writer.println(record);
+            if (writer.checkError()) {
+                throw new IOException("Error writing " + USERS_LOG_FILE);
+            }
+            userLogRecords++;
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error logging user change: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Empties the user mutation log after a snapshot has been written.
+     * 
+     * @return true if successful, false otherwise.
+     */
+    private boolean truncateUserLog() {
+        File logFile = new File(USERS_LOG_FILE);
+        userLogRecords = 0;
+        if (!logFile.exists()) {
+            return true;
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(logFile))) {
+            return !writer.checkError();
+        } catch (IOException e) {
+            System.out.println("Error truncating user log: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Formats a user as a pipe-delimited users.txt record.
+     * 
+     * @param user The user to format.
+     * @return The record, or null if the user type is not supported.
+     */
+    static String formatUser(User user) {
+        if (user instanceof Admin) {
+            Admin admin = (Admin) user;
+            return "ADMIN|" + 
+                   admin.getUsername() + "|" + 
+                   admin.getPassword() + "|" + // Store actual password
+                   admin.getAdminName() + "|";
+        } 
+        else if (user instanceof Instructor) {
+            Instructor instructor = (Instructor) user;
+            return "INSTRUCTOR|" + 
+                   instructor.getUsername() + "|" + 
+                   instructor.getPassword() + "|" + // Store actual password
+                   instructor.getInstructorName() + "|" + 
+                   instructor.getAssignedCourses();
+        } 
+        else if (user instanceof Student) {
+            Student student = (Student) user;
+            StringBuilder courseData = new StringBuilder();
+            // Format: course1:grade1:letterGrade1,course2:grade2:letterGrade2
+            List<String> courses = student.getCourses();
+            List<Float> grades = student.getNumericGrades();
+            List<String> letterGrades = student.getLetterGrades();
+            
+            for (int i = 0; i < courses.size(); i++) {
+                if (i > 0) {
+                    courseData.append(",");
+                }
+                courseData.append(courses.get(i))
+                         .append(":")
+                         .append(grades.get(i))
+                         .append(":")
+                         .append(letterGrades.get(i));
+            }
+            
+            return "STUDENT|" + 
+                   student.getUsername() + "|" + 
+                   student.getPassword() + "|" + // Store actual password
+                   student.getStudentName() + "|" + 
+                   courseData.toString();
+        }
+        return null;
+    }
+    
+    /**
+     * Loads users from a text file.
+     * Any changes recorded in the user mutation log since the last snapshot
+     * are replayed on top of the file contents.
+     * 
+     * @return The list of users or an empty list if the file doesn't exist.
+     */
+    @Override
+    public List<User> loadUsers() {
+        File file = new File(USERS_FILE);
+        List<User> users = new ArrayList<>();
+        userRecords = null;
+        userShards = null;
+        loadedUsers = null;
+        
+        File shardDirectory = new File(USERS_SHARD_DIR);
+        if (ShardedUserStore.exists(shardDirectory)) {
+            try {
+                ShardedUserStore store = ShardedUserStore.open(shardDirectory);
+                users = store.load(() -> {
+                    UserRecordParser parser = new UserRecordParser();
+                    return line -> parser.parse(line, 0);
+                });
+                userShards = store;
+            } catch (IOException e) {
+                System.out.println("Error loading user shards: " + e.getMessage());
+            }
+            loadedUsers = users;
+            replayUserLog(users);
+            return users;
+        }
+        
+        File binaryFile = new File(USERS_BINARY_FILE);
+        if (isBinarySnapshotCurrent(binaryFile, file)) {
+            try {
+                users = BinarySnapshot.readUsers(binaryFile);
+                replayUserLog(users);
+                return users;
+            } catch (IOException e) {
+                System.out.println("Error loading binary users snapshot, using text file: " + e.getMessage());
+                users = new ArrayList<>();
+            }
+        }
+        
+        if (file.exists()) {
+            UserRecordParser parser = new UserRecordParser();
+            try {
+                userRecords = UserRecordFile.load(file, line -> parser.parse(line, 0), users);
+            } catch (IOException e) {
+                System.out.println("Error loading users: " + e.getMessage());
+                return users;
+            }
+            
+            // Let the next start read a large file from a binary snapshot; it mirrors
+            // users.txt alone, so it is written before the log is replayed
+            if (file.length() >= BINARY_SNAPSHOT_THRESHOLD_BYTES) {
+                try {
+                    BinarySnapshot.writeUsers(users, binaryFile);
+                } catch (IOException e) {
+                    System.out.println("Error saving binary users snapshot: " + e.getMessage());
+                    binaryFile.delete();
+                }
+            }
+        }
+        
+        loadedUsers = users;
+        replayUserLog(users);
+        return users;
+    }
+    
+    /**
+     * Applies the records of the user mutation log to a freshly loaded user list.
+     * 
+     * @param users The users loaded from the snapshot, updated in place.
+     */
+    private void replayUserLog(List<User> users) {
+        File logFile = new File(USERS_LOG_FILE);
+        userLogRecords = 0;
+        if (!logFile.exists()) {
+            return;
+        }
+        
+        // Position of each user in the list, so replay does not rescan it
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            positions.put(users.get(i).getUsername(), i);
+        }
+        
+        boolean removed = false;
+        UserRecordParser parser = new UserRecordParser();
+        FieldCursor names = new FieldCursor('|');
+        try (BufferedReader reader = new BufferedReader(new FileReader(logFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('|');
+                if (separator == -1) {
+                    continue; // Skip empty or truncated lines
+                }
+                String operation = line.substring(0, separator);
+                userLogRecords++;
+                
+                switch (operation) {
+                    case LOG_PUT: {
+                        User user = parser.parse(line, separator + 1);
+                        if (user == null) {
+                            break;
+                        }
+                        Integer position = positions.get(user.getUsername());
+                        if (position != null) {
+                            if (userRecords != null) {
+                                userRecords.replace(users.get(position), user);
+                            }
+                            if (userShards != null) {
+                                userShards.replace(users.get(position), user);
+                            }
+                            users.set(position, user);
+                        } else {
+                            if (userRecords != null) {
+                                userRecords.track(user);
+                            }
+                            if (userShards != null) {
+                                userShards.track(user);
+                            }
+                            positions.put(user.getUsername(), users.size());
+                            users.add(user);
+                        }
+                        break;
+                    }
+                    case LOG_RENAME: {
+                        names.reset(line, separator + 1, line.length());
+                        if (names.count() < 2) {
+                            break;
+                        }
+                        names.next();
+                        String oldUsername = names.field();
+                        names.next();
+                        String newUsername = names.field();
+                        Integer position = positions.get(oldUsername);
+                        if (position == null) {
+                            break;
+                        }
+                        if (positions.containsKey(newUsername)) {
+                            // Two users would share the name and later records could not tell them apart
+                            System.out.println("Skipping rename of " + oldUsername + " in user log: "
+                                               + newUsername + " already exists");
+                            break;
+                        }
+                        positions.remove(oldUsername);
+                        users.get(position).setUsername(newUsername);
+                        positions.put(newUsername, position);
+                        break;
+                    }
+                    case LOG_DELETE: {
+                        Integer position = positions.remove(line.substring(separator + 1));
+                        if (position != null) {
+                            if (userRecords != null) {
+                                userRecords.remove(users.get(position));
+                            }
+                            if (userShards != null) {
+                                userShards.remove(users.get(position));
+                            }
+                            users.set(position, null);
+                            removed = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error replaying user log: " + e.getMessage());
+        }
+        
+        if (removed) {
+            users.removeIf(Objects::isNull);
+        }
+    }
+    
+    /**
+     * Moves the users into shard files under data/users, split by role and
+     * username hash, so they can be loaded in parallel and saved shard by shard.
+     * From then on loadUsers and saveUsers use the shards; users.txt and the
+     * binary users snapshot are removed.
+     * 
+     * @param users The users to write, normally Admin's loaded list.
+     * @param shardsPerRole The number of shard files per role.
+     * @return true if successful, false otherwise.
+     */
+    private boolean convertUsersToShards(List<User> users, int shardsPerRole) {
+        ensureDataDirectoryExists();
+        try {
+            userShards = ShardedUserStore.create(new File(USERS_SHARD_DIR), shardsPerRole, 
+                                                 users, TextFileStorageEngine::formatUser);
+            userRecords = null;
+            loadedUsers = users;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error converting users to shards: " + e.getMessage());
+            return false;
+        }
+        new File(USERS_FILE).delete();
+        new File(USERS_BINARY_FILE).delete();
+        return truncateUserLog();
+    }
+    
+    /**
+     * Checks whether a binary snapshot should be preferred over its text file.
+     * Binary snapshots are written once a text file of at least 1 MB has been
+     * loaded. Saving courses writes courses.dat again; saving users deletes
+     * users.dat until the next load. A text file edited by hand after the
+     * last save is newer and wins.
+     * 
+     * @param binaryFile The binary snapshot.
+     * @param textFile The text file it mirrors.
+     * @return true if the binary snapshot exists and is up to date.
+     */
+    private static boolean isBinarySnapshotCurrent(File binaryFile, File textFile) {
+        return binaryFile.exists() && 
+               (!textFile.exists() || binaryFile.lastModified() >= textFile.lastModified());
+    }
+    
+    /**
+     * Ensures the data directory exists.
+     * 
+     * @return true if the directory exists or was created successfully.
+     */
+    public static boolean ensureDataDirectoryExists() {
+        File directory = new File(DATA_DIR);
+        if (!directory.exists()) {
+            return directory.mkdir();
+        }
+        return true;
+    }
+    
+    /**
+     * Ensures the feedback file exists with proper UTF-8 encoding and header.
+     * 
+     * @return true if successful, false otherwise.
+     */
+    private static boolean ensureFeedbackFileExists() {
+        ensureDataDirectoryExists();
+        
+        File file = new File(FEEDBACK_FILE);
+        if (!file.exists()) {
+            try (OutputStreamWriter writer = new OutputStreamWriter(
+                     new FileOutputStream(file), "UTF-8");
+                 BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
+                
+                // Write a header line to ensure the file has the proper encoding from the start
+                bufferedWriter.write("# Feedback Data - timestamp|studentName|studentUsername|courseName|instructorName|feedbackMessage");
+                bufferedWriter.newLine();
+                return true;
+            } catch (IOException e) {
+                System.out.println("Error creating feedback file: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Queues feedback to be appended to the feedback file.
+     * 
+     * @param feedback The feedback to append.
+     * @return A future completed with the byte offset of the record once it is on disk.
+     */
+    @Override
+    public CompletableFuture<Long> saveFeedbackAsync(FeedbackRecord feedback) {
+        // Format: timestamp|studentName|studentUsername|courseName|instructorName|feedback
+        String record = feedback.format();
+        CompletableFuture<Long> result;
+        try {
+            result = getFeedbackAppender().append(record);
+        } catch (IOException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((offset, e) -> {
+            if (e != null) {
+                System.out.println("Error saving feedback: " + e.getMessage());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Loads the feedback file, after writing out queued feedback.
+     * 
+     * @return The feedback, oldest first, or an empty list if it cannot be read.
+     */
+    @Override
+    public List<FeedbackRecord> loadFeedbacks() {
+        flushPendingWrites();
+        List<FeedbackRecord> feedbacks = new ArrayList<>();
+        File file = new File(FEEDBACK_FILE);
+        if (!file.exists()) {
+            return feedbacks;
+        }
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            while (reader.next()) {
+                // Empty lines and comments are skipped by the reader
+                FeedbackRecord feedback = FeedbackRecord.parse(reader.line());
+                if (feedback != null) {
+                    feedbacks.add(feedback);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading feedback: " + e.getMessage());
+        }
+        return feedbacks;
+    }
+
+    /**
+     * Gets the length of feedbacks.txt less what this engine appended to it.
+     * The appender counts a batch before it reaches the file, so the stamp
+     * stays the same while this engine writes and there is no need to wait
+     * for the writer; the stamp is read on the EDT before searches.
+     * 
+     * @return The stamp, or -1 if there is no feedback file.
+     */
+    @Override
+    public long getFeedbackStamp() {
+        File file = new File(FEEDBACK_FILE);
+        if (!file.exists()) {
+            return -1;
+        }
+        synchronized (this) {
+            long length = feedbackAppender == null ? file.length() : feedbackAppender.getForeignLength();
+            return length - closedFeedbackBytes;
+        }
+    }
+    
+    /**
+     * Ensures the grades file exists with proper UTF-8 encoding and header.
+     * 
+     * @return true if successful, false otherwise.
+     */
+    private static boolean ensureGradeFileExists() {
+        ensureDataDirectoryExists();
+        
+        File file = new File(GRADES_FILE);
+        if (!file.exists()) {
+            try (OutputStreamWriter writer = new OutputStreamWriter(
+                     new FileOutputStream(file), "UTF-8");
+                 BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
+                
+                // Write a header line to ensure the file has the proper encoding from the start
+                bufferedWriter.write("# Grades Data - timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade");
+                bufferedWriter.newLine();
+                return true;
+            } catch (IOException e) {
+                System.out.println("Error creating grades file: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Queues a grade to be appended to the grades file.
+     * 
+     * @param studentName The name of the student.
+     * @param studentUsername The username of the student.
+     * @param courseName The name of the course.
+     * @param instructorName The name of the instructor.
+     * @param numericGrade The numeric grade.
+     * @param letterGrade The letter grade.
+     * @return A future completed with the byte offset of the record once it is on disk.
+     */
+    @Override
+    public CompletableFuture<Long> saveGradeAsync(String studentName, String studentUsername, 
+                                                         String courseName, String instructorName, 
+                                                         float numericGrade, String letterGrade) {
+        // Format: timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade
+        String timestamp = java.time.LocalDateTime.now().toString();
+        String gradeLine = new GradeRecord(timestamp, studentName, studentUsername, courseName,
+                                           instructorName, numericGrade, letterGrade).format();
+        
+        CompletableFuture<Long> result;
+        try {
+            result = getGradeAppender().append(gradeLine);
+        } catch (IOException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((offset, e) -> {
+            if (e != null) {
+                System.out.println("Error saving grade: " + e.getMessage());
+            } else if (offset >= GRADES_ROLL_THRESHOLD_BYTES
+                       && gradeRollScheduled.compareAndSet(false, true)) {
+                // Runs on the writer thread, which the roll has to wait for, so hand it off
+                gradeCompactor.execute(this::rollAndCompactGrades);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Rolls grades.txt into an immutable history segment and then compacts the
+     * history into a segment holding only the latest grade per student and course.
+     * This normally happens on its own once grades.txt passes 1 MB.
+     * 
+     * @return A future completed once the new segments are written.
+     */
+    public CompletableFuture<Void> rollGradeLog() {
+        gradeRollScheduled.set(true);
+        return CompletableFuture.runAsync(this::rollAndCompactGrades, gradeCompactor);
+    }
+    
+    /**
+     * Runs on the compactor thread.
+     */
+    private void rollAndCompactGrades() {
+        try {
+            GradeSegments segments;
+            synchronized (this) {
+                segments = getGradeSegments();
+                // Grades saved meanwhile wait for the lock and go to the new file
+                closeGradeAppender();
+                gradeRollScheduled.set(false);
+                boolean rolled = segments.roll(new File(GRADES_FILE));
+                ensureGradeFileExists();
+                if (rolled) {
+                    EncodingValidator.invalidate(new File(GRADES_FILE));
+                    if (gradeColumns != null) {
+                        List<File> historyFiles = segments.getHistoryFiles();
+                        gradeColumns.activeRolledInto(historyFiles.get(historyFiles.size() - 1));
+                    }
+                }
+            }
+            // Compaction only reads immutable segments, so grades can be saved meanwhile
+            segments.compact();
+        } catch (IOException e) {
+            System.out.println("Error compacting grades: " + e.getMessage());
+        } finally {
+            gradeRollScheduled.set(false);
+        }
+    }
+    
+    /**
+     * Loads the most recent grade per student and course, from the compacted
+     * segment, newer history segments and grades.txt.
+     * 
+     * @return The latest grades, or an empty list if they cannot be read.
+     */
+    @Override
+    public Collection<GradeRecord> loadLatestGrades() {
+        flushPendingWrites();
+        try {
+            synchronized (this) {
+                return getGradeSegments().readLatest(new File(GRADES_FILE));
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading grades: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Loads every grade given in a time range, reading only the history
+     * segments that overlap it.
+     * 
+     * @param from The earliest timestamp (ISO date-time) to include, or null for no lower bound.
+     * @param to The latest timestamp (ISO date-time) to include, or null for no upper bound.
+     * @return The grades in the order they were given, or an empty list if they cannot be read.
+     */
+    @Override
+    public List<GradeRecord> loadGradeHistory(String from, String to) {
+        flushPendingWrites();
+        try {
+            synchronized (this) {
+                return getGradeSegments().readHistory(from, to, new File(GRADES_FILE));
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading grade history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Loads the grade history as off-heap columns. Only history segments and
+     * grades.txt lines added since the last call are read; the columns are
+     * rebuilt if grades.txt was replaced.
+     * 
+     * @return A read-only snapshot of the columns, or empty columns if the grades cannot be read.
+     */
+    @Override
+    public GradeColumns loadGradeColumns() {
+        flushPendingWrites();
+        synchronized (this) {
+            try {
+                return readGradeColumns();
+            } catch (IOException e) {
+                gradeColumns = null; // Start over from the segments
+            }
+            try {
+                return readGradeColumns();
+            } catch (IOException e) {
+                gradeColumns = null;
+                System.out.println("Error loading grade columns: " + e.getMessage());
+                return new GradeColumns();
+            }
+        }
+    }
+    
+    private synchronized GradeColumns readGradeColumns() throws IOException {
+        GradeSegments segments = getGradeSegments();
+        if (gradeColumns == null) {
+            gradeColumns = new GradeColumns();
+        }
+        for (File segment : segments.getHistoryFiles()) {
+            gradeColumns.readSegment(segment);
+        }
+        gradeColumns.readActive(new File(GRADES_FILE));
+        return gradeColumns.snapshot();
+    }
+    
+    /**
+     * Drops the grade columns when grades.txt is replaced; they are rebuilt on next use.
+     */
+    private synchronized void discardGradeColumns() {
+        gradeColumns = null;
+    }
+    
+    /**
+     * Gets the grade segments, opening them on first use.
+     */
+    private synchronized GradeSegments getGradeSegments() throws IOException {
+        if (gradeSegments == null) {
+            ensureDataDirectoryExists();
+            gradeSegments = GradeSegments.open(new File(GRADES_SEGMENT_DIR));
+        }
+        return gradeSegments;
+    }
+    
+    /**
+     * Waits until all queued feedback and grade records are on disk.
+     * Call this before reading feedbacks.txt or grades.txt directly.
+     */
+    @Override
+    public void flushPendingWrites() {
+        LogAppender feedback;
+        LogAppender grades;
+        synchronized (this) {
+            feedback = feedbackAppender;
+            grades = gradeAppender;
+        }
+        try {
+            if (feedback != null) {
+                feedback.flush().join();
+            }
+            if (grades != null) {
+                grades.flush().join();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error flushing pending writes: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes out queued feedback and grades and closes the log files.
+     * They are reopened if the engine is used again.
+     */
+    @Override
+    public void close() {
+        closeFeedbackAppender();
+        closeGradeAppender();
+    }
+    
+    /**
+     * Gets the feedback file writer, opening it on first use.
+     */
+    private synchronized LogAppender getFeedbackAppender() throws IOException {
+        if (feedbackAppender == null) {
+            ensureFeedbackFileExists();
+            feedbackAppender = new LogAppender(new File(FEEDBACK_FILE));
+            registerShutdownHook();
+        }
+        return feedbackAppender;
+    }
+    
+    /**
+     * Gets the grades file writer, opening it on first use.
+     */
+    private synchronized LogAppender getGradeAppender() throws IOException {
+        if (gradeAppender == null) {
+            ensureGradeFileExists();
+            gradeAppender = new LogAppender(new File(GRADES_FILE));
+            registerShutdownHook();
+        }
+        return gradeAppender;
+    }
+    
+    /**
+     * Writes out and closes the feedback file writer before the file is replaced.
+     * It is reopened on the next save.
+     */
+    private synchronized void closeFeedbackAppender() {
+        if (feedbackAppender != null) {
+            try {
+                feedbackAppender.close();
+            } catch (IOException e) {
+                System.out.println("Error closing feedback file: " + e.getMessage());
+            }
+            closedFeedbackBytes += feedbackAppender.getOwnBytes();
+            feedbackAppender = null;
+        }
+    }
+    
+    /**
+     * Writes out and closes the grades file writer before the file is replaced.
+     * It is reopened on the next save.
+     */
+    private synchronized void closeGradeAppender() {
+        if (gradeAppender != null) {
+            try {
+                gradeAppender.close();
+            } catch (IOException e) {
+                System.out.println("Error closing grades file: " + e.getMessage());
+            }
+            gradeAppender = null;
+        }
+    }
+    
+    /**
+     * Starts counting this engine's feedback bytes afresh before feedbacks.txt is replaced.
+     */
+    private synchronized void forgetOwnFeedbackBytes() {
+        closedFeedbackBytes = 0;
+    }
+    
+    /**
+     * Makes sure queued records are written when the application exits.
+     */
+    private void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                closeFeedbackAppender();
+                closeGradeAppender();
+            }, "log-appender-shutdown"));
+            shutdownHookRegistered = true;
+        }
+    }
+
+    /**
+     * Utility method to reset the feedback file if it's corrupted.
+     * This should be called by the admin if the feedback file contains unreadable characters.
+     * 
+     * @return true if the file was successfully reset, false otherwise.
+     */
+    public boolean resetFeedbackFile() {
+        ensureDataDirectoryExists();
+        closeFeedbackAppender();
+        forgetOwnFeedbackBytes();
+        
+        File file = new File(FEEDBACK_FILE);
+        if (file.exists()) {
+            if (!file.delete()) {
+                System.out.println("Error deleting corrupted feedback file");
+                return false;
+            }
+        }
+        
+        return ensureFeedbackFileExists();
+    }
+    
+    /**
+     * Utility method to convert an existing feedback file to UTF-8 format.
+     * This should be called if the feedback file is corrupted but contains valuable data.
+     * 
+     * @return true if the file was successfully converted, false otherwise.
+     */
+    public boolean convertFeedbackFileToUTF8() {
+        ensureDataDirectoryExists();
+        closeFeedbackAppender();
+        forgetOwnFeedbackBytes();
+        
+        File originalFile = new File(FEEDBACK_FILE);
+        if (!originalFile.exists()) {
+            return ensureFeedbackFileExists();
+        }
+        
+        File tempFile = new File(FEEDBACK_FILE + ".temp");
+        
+        try {
+            // Try different encodings to read the file
+            String[] encodingsToTry = {"UTF-8", "ISO-8859-1", "windows-1252", "US-ASCII"};
+            boolean conversionSuccessful = false;
+            
+            for (String encoding : encodingsToTry) {
+                try (MappedRecordReader reader = MappedRecordReader.open(originalFile, Charset.forName(encoding));
+                     OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(tempFile), "UTF-8");
+                     BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
+                    
+                    // Write the UTF-8 header
+                    bufferedWriter.write("# Feedback Data - timestamp|studentName|studentUsername|courseName|instructorName|feedbackMessage");
+                    bufferedWriter.newLine();
+                    
+                    // Copy each record; the original header and empty lines are skipped by the reader
+                    while (reader.next()) {
+                        // Check if the line is valid feedback by verifying it has the expected format
+                        // Must contain at least 5 pipe characters for 6 fields
+                        if (reader.separatorCount() >= 5) {
+                            bufferedWriter.write(reader.line());
+                            bufferedWriter.newLine();
+                        }
+                    }
+                    
+                    conversionSuccessful = true;
+                    break; // Exit the loop if successful
+                } catch (Exception e) {
+                    System.out.println("Failed to convert with encoding " + encoding + ": " + e.getMessage());
+                    // Continue trying other encodings
+                }
+            }
+            
+            if (!conversionSuccessful) {
+                System.out.println("Failed to convert feedback file with any encoding");
+                tempFile.delete();
+                return false;
+            }
+            
+            // Replace the original file with the converted file
+            if (originalFile.delete() && tempFile.renameTo(originalFile)) {
+                return true;
+            } else {
+                System.out.println("Error replacing old feedback file with converted file");
+                return false;
+            }
+            
+        } catch (Exception e) {
+            System.out.println("Error converting feedback file: " + e.getMessage());
+            e.printStackTrace();
+            
+            // Clean up temp file if exists
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+            
+            return false;
+        }
+    }
+
+    /**
+     * Utility method to reset the grades file if it's corrupted.
+     * This should be called by the admin if the grades file contains unreadable characters.
+     * The history segments rolled out of grades.txt are deleted as well.
+     * 
+     * @return true if the file was successfully reset, false otherwise.
+     */
+    public boolean resetGradeFile() {
+        // On the compactor thread, so it cannot overlap a roll or compaction
+        return CompletableFuture.supplyAsync(this::resetGrades, gradeCompactor).join();
+    }
+    
+    private synchronized boolean resetGrades() {
+        ensureDataDirectoryExists();
+        closeGradeAppender();
+        discardGradeColumns();
+        EncodingValidator.invalidate(new File(GRADES_FILE));
+        
+        File file = new File(GRADES_FILE);
+        if (file.exists()) {
+            if (!file.delete()) {
+                System.out.println("Error deleting corrupted grades file");
+                return false;
+            }
+        }
+        
+        try {
+            GradeSegments segments = getGradeSegments();
+            for (File segment : segments.getHistoryFiles()) {
+                EncodingValidator.invalidate(segment);
+            }
+            segments.clear();
+        } catch (IOException e) {
+            System.out.println("Error deleting grade segments: " + e.getMessage());
+            return false;
+        }
+        
+        return ensureGradeFileExists();
+    }
+    
+    /**
+     * Checks whether the grades file and its history segments are valid UTF-8
+     * without rewriting them. Only the part appended since the last successful
+     * check is read, so segments are read once.
+     * 
+     * @return true if the files are valid or do not exist, false if they need converting.
+     */
+    public boolean isGradeFileValidUTF8() {
+        File file = new File(GRADES_FILE);
+        flushPendingWrites();
+        try {
+            if (file.exists() && !EncodingValidator.validate(file)) {
+                return false;
+            }
+            for (File segment : getGradeSegments().getHistoryFiles()) {
+                if (!EncodingValidator.validate(segment)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error checking grades file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Utility method to convert an existing grades file to UTF-8 format.
+     * This should be called if the grades file is corrupted but contains valuable data.
+     * History segments that are not valid UTF-8 are converted too, and the
+     * latest grades are compacted again from the converted segments.
+     * 
+     * @return true if the file was successfully converted, false otherwise.
+     */
+    public boolean convertGradeFileToUTF8() {
+        // On the compactor thread, so it cannot overlap a roll or compaction
+        return CompletableFuture.supplyAsync(this::convertGradesToUTF8, gradeCompactor).join();
+    }
+    
+    private synchronized boolean convertGradesToUTF8() {
+        ensureDataDirectoryExists();
+        closeGradeAppender();
+        discardGradeColumns();
+        
+        File file = new File(GRADES_FILE);
+        boolean converted = file.exists() ? rewriteGradesAsUTF8(file) : ensureGradeFileExists();
+        
+        try {
+            GradeSegments segments = getGradeSegments();
+            boolean rewritten = false;
+            for (File segment : segments.getHistoryFiles()) {
+                if (!EncodingValidator.validate(segment)) {
+                    converted &= rewriteGradesAsUTF8(segment);
+                    rewritten = true;
+                }
+            }
+            if (rewritten) {
+                segments.rebuild();
+            }
+        } catch (IOException e) {
+            System.out.println("Error converting grade segments: " + e.getMessage());
+            return false;
+        }
+        return converted;
+    }
+    
+    /**
+     * Rewrites a grades file or history segment as UTF-8, trying several encodings to read it.
+     */
+    private static boolean rewriteGradesAsUTF8(File originalFile) {
+        EncodingValidator.invalidate(originalFile);
+        File tempFile = new File(originalFile.getPath() + ".temp");
+        
+        try {
+            // Try different encodings to read the file
+            String[] encodingsToTry = {"UTF-8", "ISO-8859-1", "windows-1252", "US-ASCII"};
+            boolean conversionSuccessful = false;
+            
+            for (String encoding : encodingsToTry) {
+                try (MappedRecordReader reader = MappedRecordReader.open(originalFile, Charset.forName(encoding));
+                     OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(tempFile), "UTF-8");
+                     BufferedWriter bufferedWriter = new BufferedWriter(writer)) {
+                    
+                    // Write the UTF-8 header
+                    bufferedWriter.write("# Grades Data - timestamp|studentName|studentUsername|courseName|instructorName|numericGrade|letterGrade");
+                    bufferedWriter.newLine();
+                    
+                    // Copy each record; the original header and empty lines are skipped by the reader
+                    while (reader.next()) {
+                        // Check if the line is valid grade data by verifying it has the expected format
+                        // Must contain at least 6 pipe characters for 7 fields
+                        if (reader.separatorCount() >= 6) {
+                            bufferedWriter.write(reader.line());
+                            bufferedWriter.newLine();
+                        }
+                    }
+                    
+                    conversionSuccessful = true;
+                    break; // Exit the loop if successful
+                } catch (Exception e) {
+                    System.out.println("Failed to convert with encoding " + encoding + ": " + e.getMessage());
+                    // Continue trying other encodings
+                }
+            }
+            
+            if (!conversionSuccessful) {
+                System.out.println("Failed to convert grades file with any encoding");
+                tempFile.delete();
+                return false;
+            }
+            
+            // Replace the original file with the converted file
+            if (originalFile.delete() && tempFile.renameTo(originalFile)) {
+                return true;
+            } else {
+                System.out.println("Error replacing old grades file with converted file");
+                return false;
+            }
+            
+        } catch (Exception e) {
+            System.out.println("Error converting grades file: " + e.getMessage());
+            e.printStackTrace();
+            
+            // Clean up temp file if exists
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+            
+            return false;
+        }
+    }
+
+    /**
+     * Parses pipe-delimited users.txt records. The cursors are reused from one
+     * record to the next, so only the Strings a user keeps are allocated.
+     */
+    static class UserRecordParser {
+        private final FieldCursor fields = new FieldCursor('|');
+        private final FieldCursor entries = new FieldCursor(',');
+        private final FieldCursor entry = new FieldCursor(':');
+        
+        /**
+         * Parses a record.
+         * 
+         * @param line The line holding the record.
+         * @param start The index where the record starts in the line.
+         * @return The user, or null if the record is malformed.
+         */
+        User parse(String line, int start) {
+            fields.reset(line, start, line.length());
+            if (fields.count() < 4) {
+                return null;
+            }
+            fields.next();
+            boolean admin = fields.fieldEquals("ADMIN");
+            boolean instructor = fields.fieldEquals("INSTRUCTOR");
+            boolean student = fields.fieldEquals("STUDENT");
+            fields.next();
+            String username = fields.field();
+            fields.next();
+            String password = fields.field();
+            fields.next();
+            String name = fields.field();
+            boolean hasAdditionalData = fields.next();
+            
+            // Create appropriate user object based on type
+            if (admin) {
+                return new Admin(username, password, name);
+            }
+            if (instructor) {
+                return new Instructor(username, password, name, hasAdditionalData ? fields.field() : "");
+            }
+            if (!student) {
+                return null;
+            }
+            
+            Student user = new Student(username, password, name);
+            // Parse course data if exists
+            if (hasAdditionalData && !fields.isEmpty()) {
+                entries.reset(line, fields.start(), fields.end());
+                while (entries.next()) {
+                    entry.reset(line, entries.start(), entries.end());
+                    if (entry.count() >= 3) {
+                        entry.next();
+                        String courseName = entry.field();
+                        entry.next();
+                        float grade = entry.floatValue(0.0f); // Use default grade if parsing fails
+                        entry.next();
+                        String letterGrade = entry.field();
+                        user.addCourse(courseName, grade, letterGrade);
+                    }
+                }
+            }
+            return user;
+        }
+    }
+}
@@ -1,4 +1,7 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * User class representing a user with a username and password.
@@ -9,6 +12,10 @@ public class User implements Serializable {
     private static final long serialVersionUID = 1L;
     private String username;
     private String password;
+    // Set when the user changes; cleared once the change is written to users.txt
+    private transient boolean dirty = true;
+    // Changed users of the UserRecordFile holding this user's record, if any
+    private transient Set<User> changeSet;
 
     /**
      * Constructor to initialize username and password.
@@ -61,6 +68,7 @@ public class User implements Serializable {
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
         this.username = username;
+        markDirty();
     }
 
     /**
@@ -75,6 +83,7 @@ public class User implements Serializable {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
         this.password = password; // Fixed: Corrected the typo 'passwo\n        rd'
+        markDirty();
     }
 
     /**
@@ -86,6 +95,52 @@ public class User implements Serializable {
         return password;
     }
 
+    /**
+     * Checks whether the user has changed since it was last written to users.txt.
+     *
+     * @return true if the user needs to be saved.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the user as changed so the next save writes it.
+     */
+    public void markDirty() {
+        dirty = true;
+        if (changeSet != null) {
+            changeSet.add(this);
+        }
+    }
+
+    /**
+     * Marks the user as saved.
+     */
+    public void markClean() {
+        dirty = false;
+        if (changeSet != null) {
+            changeSet.remove(this);
+        }
+    }
+
+    /**
+     * Sets the set the user adds itself to when it changes, so a save can
+     * write the changed users without checking every user.
+     * Called by UserRecordFile for the users it holds records of.
+     *
+     * @param changes The set, or null to stop reporting.
+     */
+    void trackChanges(Set<User> changes) {
+        if (changeSet != null && changeSet != changes) {
+            changeSet.remove(this);
+        }
+        changeSet = changes;
+        if (dirty && changes != null) {
+            changes.add(this);
+        }
+    }
+
     /**
      * Returns a string representation of the User object for debugging/logging.
      *
@@ -110,4 +165,10 @@ public class User implements Serializable {
         }
         return Integer.toHexString(password.hashCode()); // Use a secure hashing algorithm in production
     }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Transient fields are not initialized; a copy read back is in no users.txt yet
+        dirty = true;
+    }
 }
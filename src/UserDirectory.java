@@ -0,0 +1,272 @@
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Username index over Admin's user list, so logins and lookups do not scan
+ * every user.
+ *
+ * Users are indexed by username overall and per role. The role indexes keep
+ * the order users were added in and double as read-only views of the admins,
+ * instructors and students. Admin keeps the directory in step with its list on add,
+ * delete and rename; code that changes a username must report it through
+ * {@link #rename(String, User)}. A user whose username is already taken in
+ * its role, which only older files can hold, is kept aside so it can still
+ * log in through {@link #authenticate(Class, String, String)}.
+ *
+ * The directory also keeps the {@link EnrollmentIndex} of its students.
+ * Students report their own enrollments to it while they are in the directory.
+ */
+public class UserDirectory {
+    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, Admin> admins = new LinkedHashMap<>();
+    private final Map<String, Instructor> instructors = new LinkedHashMap<>();
+    private final Map<String, Student> students = new LinkedHashMap<>();
+    private final EnrollmentIndex enrollments = new EnrollmentIndex();
+    // Users whose username was taken in their role when they were added, in list order
+    private final List<User> shadowed = new ArrayList<>();
+
+    /**
+     * Creates an empty directory.
+     */
+    public UserDirectory() {
+    }
+
+    /**
+     * Creates a directory of a user list.
+     *
+     * @param users The users to index.
+     */
+    public UserDirectory(List<User> users) {
+        for (User user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * Adds a user. If the username is already taken the first user keeps it,
+     * as the list scans this replaces would have found that one first.
+     *
+     * @param user The user to add.
+     */
+    public void add(User user) {
+        String username = user.getUsername();
+        users.putIfAbsent(username, user);
+        boolean indexed = true;
+        if (user instanceof Admin) {
+            indexed = admins.putIfAbsent(username, (Admin) user) == null;
+        } else if (user instanceof Instructor) {
+            indexed = instructors.putIfAbsent(username, (Instructor) user) == null;
+        } else if (user instanceof Student) {
+            Student student = (Student) user;
+            indexed = students.putIfAbsent(username, student) == null;
+            if (indexed) {
+                enrollments.addStudent(username, student.getCourses());
+                student.setEnrollmentIndex(enrollments);
+            }
+        }
+        if (!indexed) {
+            shadowed.add(user);
+        }
+    }
+
+    /**
+     * Removes a user.
+     *
+     * @param user The user to remove, under its current username.
+     */
+    public void remove(User user) {
+        remove(user.getUsername(), user);
+    }
+
+    /**
+     * Moves a user to its new username after setUsername. A username that
+     * belongs to another user is refused, and both users stay as they were.
+     *
+     * @param oldUsername The username the user was indexed under.
+     * @param user The renamed user.
+     * @return true if the user is indexed under its new username, false if it was taken.
+     */
+    public boolean rename(String oldUsername, User user) {
+        if (oldUsername == null || oldUsername.equals(user.getUsername())) {
+            return true;
+        }
+        User existing = users.get(user.getUsername());
+        if (existing != null && existing != user) {
+            return false;
+        }
+        remove(oldUsername, user);
+        add(user);
+        return true;
+    }
+
+    /**
+     * Gets a user of any role.
+     *
+     * @param username The username.
+     * @return The user, or null if there is none.
+     */
+    public User get(String username) {
+        return users.get(username);
+    }
+
+    /**
+     * Checks whether a username is taken. The map answers free and taken
+     * usernames alike in constant time; there is no slower lookup behind it
+     * for a Bloom filter to skip.
+     *
+     * @param username The username.
+     * @return true if a user has the username.
+     */
+    public boolean contains(String username) {
+        return username != null && users.containsKey(username);
+    }
+
+    /**
+     * Finds the user of a role that a username and password belong to. Users
+     * that share the username with one added before them are checked after
+     * it, in list order, as the login scans this replaces did.
+     *
+     * @param role The role, such as Student.class.
+     * @param username The username.
+     * @param password The password.
+     * @return The user, or null if the credentials match no user of the role.
+     */
+    public <T extends User> T authenticate(Class<T> role, String username, String password) {
+        User indexed = role == Admin.class ? admins.get(username)
+                     : role == Instructor.class ? instructors.get(username)
+                     : role == Student.class ? students.get(username)
+                     : null;
+        if (indexed != null && indexed.authenticate(username, password)) {
+            return role.cast(indexed);
+        }
+        for (User user : shadowed) {
+            if (role.isInstance(user) && user.authenticate(username, password)) {
+                return role.cast(user);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets an admin from the user list.
+     *
+     * @param username The username.
+     * @return The admin, or null if there is none.
+     */
+    public Admin getAdmin(String username) {
+        return admins.get(username);
+    }
+
+    /**
+     * Gets an instructor.
+     *
+     * @param username The username.
+     * @return The instructor, or null if there is none.
+     */
+    public Instructor getInstructor(String username) {
+        return instructors.get(username);
+    }
+
+    /**
+     * Gets a student.
+     *
+     * @param username The username.
+     * @return The student, or null if there is none.
+     */
+    public Student getStudent(String username) {
+        return students.get(username);
+    }
+
+    /**
+     * Gets the admins in the user list.
+     *
+     * @return A read-only view, in the order the users were added.
+     */
+    public Collection<Admin> getAdmins() {
+        return Collections.unmodifiableCollection(admins.values());
+    }
+
+    /**
+     * Gets the instructors.
+     *
+     * @return A read-only view, in the order the users were added.
+     */
+    public Collection<Instructor> getInstructors() {
+        return Collections.unmodifiableCollection(instructors.values());
+    }
+
+    /**
+     * Gets the students.
+     *
+     * @return A read-only view, in the order the users were added.
+     */
+    public Collection<Student> getStudents() {
+        return Collections.unmodifiableCollection(students.values());
+    }
+
+    /**
+     * Gets the students enrolled in a course.
+     *
+     * @param course The course name.
+     * @return The students, in username order.
+     */
+    public List<Student> getEnrolledStudents(String course) {
+        List<Student> enrolled = new ArrayList<>(enrollments.count(course));
+        for (String username : enrollments.getStudents(course)) {
+            enrolled.add(students.get(username));
+        }
+        return enrolled;
+    }
+
+    /**
+     * Gets the course enrollment index of the students.
+     *
+     * @return The index.
+     */
+    public EnrollmentIndex getEnrollments() {
+        return enrollments;
+    }
+
+    /**
+     * Gets the number of indexed usernames.
+     *
+     * @return The number of users.
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Removes the entries that point at a user under a username. Entries of
+     * another user that shares the username are kept, and a user kept aside
+     * under the username takes its place.
+     */
+    private void remove(String username, User user) {
+        if (shadowed.remove(user)) {
+            return;
+        }
+        boolean removed = users.remove(username, user);
+        removed |= admins.remove(username, user);
+        removed |= instructors.remove(username, user);
+        if (students.remove(username, user)) {
+            removed = true;
+            Student student = (Student) user;
+            student.setEnrollmentIndex(null);
+            enrollments.removeStudent(username, student.getCourses());
+        }
+        if (removed) {
+            for (User waiting : shadowed) {
+                if (waiting.getUsername().equals(username)) {
+                    shadowed.remove(waiting);
+                    add(waiting);
+                    break;
+                }
+            }
+        }
+    }
+}
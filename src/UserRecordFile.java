@@ -0,0 +1,391 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps track of where each user's record lives in users.txt so that changed
+ * users can be rewritten without rewriting the whole file.
+ *
+ * Every record gets a slot: the record line followed by a padding line of the
+ * form "#&lt;spaces&gt;". Readers skip the padding like any other comment, so the
+ * file stays a plain users.txt. A changed record that still fits its slot is
+ * patched in place; one that has outgrown it is moved to the end of the file
+ * and its old slot is blanked out. Once too much of the file is blanked out it
+ * is compacted by writing it again from scratch.
+ *
+ * Users whose records the file holds report their changes to it (see
+ * {@link User#markDirty()}), so a save writes those users without checking
+ * the rest. Users added to the list should be registered with
+ * {@link #track(User)} and users removed from it with {@link #remove(User)};
+ * a save checks every user when the size of the list does not add up.
+ */
+public class UserRecordFile {
+    private static final String HEADER = "# Users Data - type|username|password|name|additionalData";
+    private static final int MIN_SLACK_BYTES = 32;
+    private static final byte NEWLINE = '\n';
+
+    private final File file;
+    private final Map<User, Slot> slots = new IdentityHashMap<>();
+    // Users that changed since their record was written, in the order they changed, so users
+    // added to the list are appended in list order; User keeps Object's identity equals
+    private final Set<User> changed = new LinkedHashSet<>();
+    // Users removed from the list whose slots are blanked at the next update
+    private final Set<User> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long fileLength;
+    private long lastModified;
+    private long deadBytes;
+    private boolean endsWithNewline = true;
+
+    // Record whose slot size is known once the next record is seen
+    private User pendingUser;
+    private long pendingOffset = -1;
+
+    private UserRecordFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the users of a file and builds the slot table for them.
+     * The first line is the header and is skipped.
+     *
+     * @param file The users file.
+     * @param parser Turns a record line into a user, or null if it is not one.
+     * @param users The list the loaded users are added to.
+     * @return The slot table of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static UserRecordFile load(File file, Function<String, User> parser, List<User> users)
+            throws IOException {
+        UserRecordFile records = new UserRecordFile(file);
+        try (MappedRecordReader reader = MappedRecordReader.open(file)) {
+            // Empty lines, comments and slot padding are skipped by the reader
+            while (reader.next()) {
+                User user = null;
+                if (reader.recordOffset() > 0) { // Skip header line
+                    user = parser.apply(reader.line());
+                    if (user != null) {
+                        users.add(user);
+                    }
+                }
+                records.addRecord(reader.recordOffset(), user);
+            }
+        }
+        records.finishLoading();
+        return records;
+    }
+
+    /**
+     * Registers a record found while loading. Records must be added in file order.
+     */
+    private void addRecord(long offset, User user) {
+        closePendingSlot(offset);
+        pendingUser = user;
+        pendingOffset = offset;
+    }
+
+    /**
+     * Finishes loading once all records have been added.
+     */
+    private void finishLoading() throws IOException {
+        fileLength = file.length();
+        closePendingSlot(fileLength);
+        lastModified = file.lastModified();
+        // New slots are appended at the end, which must start on a fresh line
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (fileLength > 0) {
+                in.seek(fileLength - 1);
+                endsWithNewline = in.read() == NEWLINE;
+            }
+        }
+        for (User user : slots.keySet()) {
+            user.markClean();
+            user.trackChanges(changed);
+        }
+    }
+
+    /**
+     * Moves a slot to the object that replaced its user, for example when the
+     * mutation log supersedes a loaded record.
+     *
+     * @param oldUser The user that owned the slot.
+     * @param newUser The user taking it over.
+     * @return true if the old user had a slot in this file.
+     */
+    public boolean replace(User oldUser, User newUser) {
+        Slot slot = slots.remove(oldUser);
+        if (slot != null) {
+            removed.remove(oldUser);
+            oldUser.trackChanges(null);
+            slots.put(newUser, slot);
+            newUser.trackChanges(changed);
+        }
+        return slot != null;
+    }
+
+    /**
+     * Registers a user added to the list, so its changes are reported to this file.
+     *
+     * @param user The user.
+     */
+    public void track(User user) {
+        removed.remove(user);
+        user.trackChanges(changed);
+    }
+
+    /**
+     * Registers a user removed from the list, so the next update blanks its
+     * slot.
+     *
+     * @param user The user.
+     * @return true if the user has a slot in this file.
+     */
+    public boolean remove(User user) {
+        if (!slots.containsKey(user)) {
+            return false;
+        }
+        removed.add(user);
+        user.trackChanges(null);
+        return true;
+    }
+
+    /**
+     * Checks whether a user's record is in this file.
+     *
+     * @param user The user.
+     * @return true if the user has a slot here.
+     */
+    public boolean holds(User user) {
+        return slots.containsKey(user);
+    }
+
+    /**
+     * Checks whether the file can still be saved by patching it.
+     *
+     * @return false if the file was changed by someone else or should be compacted.
+     */
+    public boolean canUpdate() {
+        return endsWithNewline
+            && file.length() == fileLength
+            && file.lastModified() == lastModified
+            && deadBytes <= fileLength / 2;
+    }
+
+    /**
+     * Writes the changed users and blanks out the slots of users that are no
+     * longer in the list. The file is not touched if nothing changed.
+     *
+     * Only the users that reported a change are looked at, unless the size of
+     * the list shows that users were removed or added without being registered;
+     * then every user is checked.
+     *
+     * @param users All users that belong in this file.
+     * @param formatter Turns a user into its record line.
+     * @return The number of records written.
+     * @throws IOException if the file cannot be written; it should then be
+     *         written again in full.
+     */
+    public int update(List<User> users, Function<User, String> formatter) throws IOException {
+        int added = 0;
+        for (User user : changed) {
+            if (!slots.containsKey(user)) {
+                added++;
+            }
+        }
+        List<User> dirty;
+        List<User> leaving;
+        if (users.size() == slots.size() - removed.size() + added) {
+            dirty = new ArrayList<>(changed);
+            leaving = new ArrayList<>(removed);
+        } else {
+            dirty = new ArrayList<>();
+            int owners = 0;
+            for (User user : users) {
+                if (slots.containsKey(user)) {
+                    owners++;
+                }
+                if (user.isDirty()) {
+                    dirty.add(user);
+                }
+            }
+            leaving = new ArrayList<>();
+            if (owners < slots.size()) {
+                Set<User> present = Collections.newSetFromMap(new IdentityHashMap<>());
+                present.addAll(users);
+                for (User user : slots.keySet()) {
+                    if (!present.contains(user)) {
+                        leaving.add(user);
+                    }
+                }
+            }
+            // Anything else in the set has left the list
+            changed.clear();
+        }
+        removed.clear();
+        if (dirty.isEmpty() && leaving.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            // Blank out the slots of users removed from the list
+            for (User user : leaving) {
+                release(out, slots.remove(user));
+                user.trackChanges(null);
+            }
+
+            for (User user : dirty) {
+                String record = formatter.apply(user);
+                if (record == null) {
+                    continue;
+                }
+                byte[] line = record.getBytes(StandardCharsets.UTF_8);
+                Slot slot = slots.get(user);
+                if (slot == null || line.length + 1 > slot.capacity) {
+                    // Blank the old slot before writing the new one, so an
+                    // interrupted save never leaves the user in the file twice
+                    if (slot != null) {
+                        release(out, slot);
+                    }
+                    slot = new Slot(fileLength, line.length + 1 + slack(line.length));
+                    fileLength += slot.capacity;
+                    slots.put(user, slot);
+                }
+                out.seek(slot.offset);
+                out.write(buildSlot(line, slot.capacity));
+                user.markClean();
+                user.trackChanges(changed);
+                written++;
+            }
+            out.getChannel().force(false);
+        }
+        lastModified = file.lastModified();
+        return written;
+    }
+
+    /**
+     * Writes every user to a fresh file and returns the table for it.
+     *
+     * @param file The users file.
+     * @param users The users to write.
+     * @param formatter Turns a user into its record line, or null to skip it.
+     * @return The slot table of the new file.
+     * @throws IOException if the file cannot be written or replaced.
+     */
+    public static UserRecordFile write(File file, List<User> users, Function<User, String> formatter)
+            throws IOException {
+        UserRecordFile records = new UserRecordFile(file);
+        File tempFile = new File(file.getPath() + ".temp");
+        long offset = 0;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            byte[] header = (HEADER + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(header);
+            offset += header.length;
+
+            for (User user : users) {
+                String record = formatter.apply(user);
+                if (record == null) {
+                    continue;
+                }
+                byte[] line = record.getBytes(StandardCharsets.UTF_8);
+                byte[] slot = buildSlot(line, line.length + 1 + slack(line.length));
+                out.write(slot);
+                records.slots.put(user, new Slot(offset, slot.length));
+                offset += slot.length;
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if ((file.exists() && !file.delete()) || !tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Error replacing " + file.getName());
+        }
+
+        records.fileLength = offset;
+        records.lastModified = file.lastModified();
+        for (User user : users) {
+            user.markClean();
+            if (records.slots.containsKey(user)) {
+                user.trackChanges(records.changed);
+            }
+        }
+        return records;
+    }
+
+    private void closePendingSlot(long nextOffset) {
+        if (pendingUser != null && pendingOffset >= 0) {
+            slots.put(pendingUser, new Slot(pendingOffset, (int) (nextOffset - pendingOffset)));
+        }
+        pendingUser = null;
+        pendingOffset = -1;
+    }
+
+    /**
+     * Blanks out a slot that no longer holds a live record.
+     */
+    private void release(RandomAccessFile out, Slot slot) throws IOException {
+        byte[] blank = new byte[slot.capacity];
+        pad(blank, 0, blank.length);
+        out.seek(slot.offset);
+        out.write(blank);
+        deadBytes += slot.capacity;
+    }
+
+    /**
+     * Gets the room left for a record to grow before it has to be moved.
+     */
+    private static int slack(int recordLength) {
+        return Math.max(MIN_SLACK_BYTES, recordLength / 4);
+    }
+
+    /**
+     * Builds the bytes of a slot: the record line, then padding up to the capacity.
+     */
+    private static byte[] buildSlot(byte[] line, int capacity) {
+        byte[] slot = new byte[capacity];
+        System.arraycopy(line, 0, slot, 0, line.length);
+        slot[line.length] = NEWLINE;
+        pad(slot, line.length + 1, capacity);
+        return slot;
+    }
+
+    /**
+     * Fills part of a slot with a comment line ("#" and spaces), or a bare line
+     * break when there is room for only one byte.
+     */
+    private static void pad(byte[] slot, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Arrays.fill(slot, from, to, (byte) ' ');
+        slot[from] = to - from == 1 ? NEWLINE : (byte) '#';
+        slot[to - 1] = NEWLINE;
+    }
+
+    /**
+     * Position and size of one record slot.
+     */
+    private static class Slot {
+        final long offset;
+        final int capacity;
+
+        Slot(long offset, int capacity) {
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.Objects;
+
+/**
+ * Assertions for the tests under test/, which run without a test framework.
+ * A failed check throws an AssertionError naming what was being checked.
+ */
+public final class Check {
+
+    private Check() {
+    }
+
+    /**
+     * Checks that two values are equal.
+     *
+     * @param expected The expected value.
+     * @param actual The actual value.
+     * @param what What is being checked, for the failure message.
+     */
+    public static void equal(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    /**
+     * Checks that a condition holds.
+     *
+     * @param condition The condition.
+     * @param what What is being checked, for the failure message.
+     */
+    public static void isTrue(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures what parsing a users.txt record allocates with the FieldCursor
+ * based parser and with the String.split parser it replaced, using the
+ * allocation counter of the current thread. Both build the same Student, so
+ * the difference is what tokenizing costs. Prints bytes and time per record
+ * and checks that the cursor allocates less than half as much.
+ *
+ * Run alone for steadier numbers:
+ * <pre>
+ * java -cp out FieldCursorBenchmark
+ * </pre>
+ */
+public class FieldCursorBenchmark {
+
+    private static final String RECORD =
+        "STUDENT|stu1|pass1|Hesham Ahmed|Advanced PL:85.5:B,Databases:91.0:A,Networks:72.25:C,Compilers:64.0:D";
+    private static final int WARMUP_ITERATIONS = 100_000;
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            System.out.println("FieldCursorBenchmark: this JVM does not count allocated bytes, skipped");
+            return;
+        }
+        TextFileStorageEngine.UserRecordParser parser = new TextFileStorageEngine.UserRecordParser();
+        Check.equal(parseWithSplit(RECORD).getCourses(), ((Student) parser.parse(RECORD, 0)).getCourses(),
+                    "both parsers read the same courses");
+
+        // Warm up both first, so neither is measured while it is being compiled
+        run(threads, parser, true, WARMUP_ITERATIONS);
+        run(threads, parser, false, WARMUP_ITERATIONS);
+        long[] split = run(threads, parser, true, ITERATIONS);
+        long[] cursor = run(threads, parser, false, ITERATIONS);
+
+        System.out.printf("FieldCursorBenchmark: split %d bytes, %.2f us; cursor %d bytes, %.2f us per record%n",
+                          split[0] / ITERATIONS, split[1] / 1000.0 / ITERATIONS,
+                          cursor[0] / ITERATIONS, cursor[1] / 1000.0 / ITERATIONS);
+        Check.isTrue(cursor[0] * 2 < split[0], "cursor allocates less than half of what split does");
+    }
+
+    // Returns the bytes allocated and the nanoseconds taken
+    private static long[] run(com.sun.management.ThreadMXBean threads, TextFileStorageEngine.UserRecordParser parser,
+                              boolean split, int iterations) {
+        int courses = 0;
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            User user = split ? parseWithSplit(RECORD) : parser.parse(RECORD, 0);
+            courses += ((Student) user).getCourses().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        Check.equal(iterations * 4, courses, "courses parsed");
+        return new long[] {bytes, elapsed};
+    }
+
+    // The student branch of the users.txt parser before FieldCursor
+    private static Student parseWithSplit(String line) {
+        String[] parts = line.split("\\|");
+        String additionalData = parts.length > 4 ? parts[4] : "";
+        Student student = new Student(parts[1], parts[2], parts[3]);
+        if (!additionalData.isEmpty()) {
+            for (String courseEntry : additionalData.split(",")) {
+                String[] courseInfo = courseEntry.split(":");
+                if (courseInfo.length >= 3) {
+                    float grade = 0.0f;
+                    try {
+                        grade = Float.parseFloat(courseInfo[1]);
+                    } catch (NumberFormatException e) {
+                        // Use default grade if parsing fails
+                    }
+                    student.addCourse(courseInfo[0], grade, courseInfo[2]);
+                }
+            }
+        }
+        return student;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks FieldCursor against String.split, which the parsers it replaced used.
+ */
+public class FieldCursorTest {
+
+    public static void main(String[] args) {
+        fieldsMatchSplit();
+        walksSubRange();
+        comparesFieldsInPlace();
+        parsesNumbersLikeTheJdk();
+    }
+
+    // Every field, including empty and trailing ones, is visited; count() drops trailing empties like split
+    private static void fieldsMatchSplit() {
+        String[] records = {
+            "", "a", "a|b|c", "a||c", "|a", "a|", "a||", "||", "|",
+            "STUDENT|stu1|123|Hesham|Advanced PL:85.0:B",
+            "INSTRUCTOR|ins1|123|Osama|", "ADMIN|admin|123|Almaz|"
+        };
+        FieldCursor fields = new FieldCursor('|');
+        for (String record : records) {
+            fields.reset(record);
+            Check.equal(record.split("\\|").length, fields.count(), "count of \"" + record + "\"");
+            List<String> walked = new ArrayList<>();
+            while (fields.next()) {
+                walked.add(fields.field());
+                Check.equal(fields.field().isEmpty(), fields.isEmpty(), "isEmpty in \"" + record + "\"");
+            }
+            Check.equal(Arrays.asList(record.split("\\|", -1)), walked, "fields of \"" + record + "\"");
+            Check.isTrue(!fields.next(), "next() stays false at the end of \"" + record + "\"");
+        }
+    }
+
+    // A second cursor walks the sub-fields of the current field in place
+    private static void walksSubRange() {
+        String record = "STUDENT|stu1|123|Hesham|Math:90.5:A,Art::,History:70:C";
+        FieldCursor fields = new FieldCursor('|').reset(record);
+        for (int i = 0; i < 5; i++) {
+            fields.next();
+        }
+        FieldCursor entries = new FieldCursor(',').reset(record, fields.start(), fields.end());
+        FieldCursor entry = new FieldCursor(':');
+        List<String> courses = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        while (entries.next()) {
+            entry.reset(record, entries.start(), entries.end());
+            counts.add(entry.count());
+            entry.next();
+            courses.add(entry.field());
+        }
+        Check.equal(Arrays.asList("Math", "Art", "History"), courses, "courses");
+        Check.equal(Arrays.asList(3, 1, 3), counts, "entry field counts");
+
+        FieldCursor empty = new FieldCursor(',').reset(record, 3, 3);
+        Check.equal(1, empty.count(), "count of an empty range");
+        Check.isTrue(empty.next() && empty.isEmpty(), "an empty range has one empty field");
+        Check.isTrue(!empty.next(), "and no more");
+    }
+
+    private static void comparesFieldsInPlace() {
+        FieldCursor fields = new FieldCursor('|').reset("ADMIN||ADMINS");
+        fields.next();
+        Check.isTrue(fields.fieldEquals("ADMIN"), "ADMIN equals ADMIN");
+        Check.isTrue(!fields.fieldEquals("ADMINS") && !fields.fieldEquals("ADMI"), "prefixes differ");
+        fields.next();
+        Check.isTrue(fields.fieldEquals(""), "empty field equals \"\"");
+        fields.next();
+        Check.isTrue(!fields.fieldEquals("ADMIN"), "ADMINS is not ADMIN");
+    }
+
+    // The fast path must give exactly what Float.parseFloat / Double.parseDouble give
+    private static void parsesNumbersLikeTheJdk() {
+        String[] values = {
+            "0", "85", "85.0", "85.5", "-3.25", "+7", "100.000", "0.1", ".5", "5.",
+            "-0", "1e3", "NaN", "12345678901234567890", "16777217", "9007199254740993.5"
+        };
+        FieldCursor fields = new FieldCursor('|');
+        for (String value : values) {
+            fields.reset(value).next();
+            Check.equal(Float.parseFloat(value), fields.floatValue(-1f), "float " + value);
+            Check.equal(Double.parseDouble(value), fields.doubleValue(-1d), "double " + value);
+        }
+        for (String invalid : new String[] {"", ".", "-", "abc", "1.2.3", "1,5"}) {
+            fields.reset(invalid).next();
+            Check.equal(-1f, fields.floatValue(-1f), "float default for \"" + invalid + "\"");
+            Check.equal(-1d, fields.doubleValue(-1d), "double default for \"" + invalid + "\"");
+        }
+
+        Random random = new Random(4);
+        for (int i = 0; i < 100000; i++) {
+            String value = random.nextInt(10001) / 100.0 + "";
+            if (random.nextBoolean()) {
+                value = String.format(java.util.Locale.ROOT, "%." + random.nextInt(6) + "f", random.nextDouble() * 1000);
+            }
+            fields.reset(value).next();
+            Check.equal(Float.parseFloat(value), fields.floatValue(-1f), "float " + value);
+            Check.equal(Double.parseDouble(value), fields.doubleValue(-1d), "double " + value);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the grades log of TextFileStorageEngine: rolling grades.txt into
+ * history segments, compacting them into the latest grade per student and
+ * course, and resetting everything. Runs in a scratch directory.
+ */
+public class GradeLogTest {
+
+    private static final File GRADES_FILE = new File("data/grades.txt");
+    private static final File SEGMENT_DIR = new File("data/grades");
+
+    public static void main(String[] args) throws Exception {
+        if (Scratch.runInScratchDirectory(GradeLogTest.class)) {
+            return;
+        }
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        try {
+            rollsAndCompacts(engine);
+            resetDropsGradesAndSegments(engine);
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static void rollsAndCompacts(TextFileStorageEngine engine) {
+        save(engine, "stu1", "Math", 70.0f, "C");
+        save(engine, "stu1", "Math", 80.0f, "B");
+        save(engine, "stu2", "Art", 60.0f, "D");
+
+        engine.rollGradeLog().join();
+        Check.equal(1, segments("history-").size(), "history segments after the first roll");
+        Check.equal(1, segments("latest-").size(), "latest segments after the first roll");
+        Check.isTrue(!GRADES_FILE.exists() || GRADES_FILE.length() < 200, "grades.txt started over");
+
+        save(engine, "stu1", "Math", 95.0f, "A");
+        Map<String, Float> latest = byStudentAndCourse(engine.loadLatestGrades());
+        Check.equal(2, latest.size(), "one latest grade per student and course");
+        Check.equal(95.0f, latest.get("stu1/Math"), "grade saved after the roll wins");
+        Check.equal(60.0f, latest.get("stu2/Art"), "compacted grade");
+        Check.equal(Arrays.asList(70.0f, 80.0f, 60.0f, 95.0f), grades(engine.loadGradeHistory(null, null)),
+                    "full history in the order given");
+
+        engine.rollGradeLog().join();
+        Check.equal(2, segments("history-").size(), "history segments after the second roll");
+        Check.equal(1, segments("latest-").size(), "superseded latest segment deleted");
+        latest = byStudentAndCourse(engine.loadLatestGrades());
+        Check.equal(95.0f, latest.get("stu1/Math"), "latest grade after compacting it");
+        Check.equal(4, engine.loadGradeColumns().size(), "columns read every segment");
+    }
+
+    private static void resetDropsGradesAndSegments(TextFileStorageEngine engine) {
+        Check.isTrue(engine.resetGradeFile(), "reset");
+        Check.equal(0, engine.loadLatestGrades().size(), "no latest grades after reset");
+        Check.equal(0, engine.loadGradeHistory(null, null).size(), "no history after reset");
+        Check.isTrue(segments("history-").isEmpty() && segments("latest-").isEmpty(), "segments deleted");
+        Check.equal(0, engine.loadGradeColumns().size(), "columns rebuilt empty");
+
+        save(engine, "stu3", "Physics", 88.0f, "B");
+        Check.equal(Arrays.asList(88.0f), grades(engine.loadGradeHistory(null, null)), "grades saved after reset");
+    }
+
+    private static void save(TextFileStorageEngine engine, String username, String course,
+                             float numericGrade, String letterGrade) {
+        engine.saveGradeAsync("Student " + username, username, course, "Osama", numericGrade, letterGrade).join();
+    }
+
+    private static List<String> segments(String prefix) {
+        List<String> names = new ArrayList<>();
+        String[] files = SEGMENT_DIR.list();
+        if (files != null) {
+            for (String name : files) {
+                if (name.startsWith(prefix)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static Map<String, Float> byStudentAndCourse(Collection<GradeRecord> records) {
+        Map<String, Float> grades = new HashMap<>();
+        for (GradeRecord record : records) {
+            grades.put(record.getStudentUsername() + "/" + record.getCourseName(), record.getNumericGrade());
+        }
+        return grades;
+    }
+
+    private static List<Float> grades(List<GradeRecord> records) {
+        List<Float> grades = new ArrayList<>();
+        for (GradeRecord record : records) {
+            grades.add(record.getNumericGrade());
+        }
+        return grades;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Runs every test under test/. Each test class has a main method that throws
+ * on the first failed check.
+ *
+ * From the project root:
+ * <pre>
+ * javac -encoding UTF-8 -d out src/*.java test/*.java
+ * java -cp out RunTests
+ * </pre>
+ * Tests that touch files work in a scratch data/ directory under the system
+ * temp directory, never in the project's own data/. Tests that go through a
+ * storage engine, whose paths are relative to the working directory, are run
+ * in a child JVM started there; see {@link Scratch}.
+ */
+public class RunTests {
+
+    public static void main(String[] args) throws Exception {
+        Class<?>[] tests = {
+            FieldCursorTest.class,
+            FieldCursorBenchmark.class,
+            UserLogTest.class,
+            UserRecordFileTest.class,
+            GradeLogTest.class,
+        };
+        int failed = 0;
+        for (Class<?> test : tests) {
+            try {
+                test.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+                System.out.println("PASS " + test.getName());
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                failed++;
+                System.out.println("FAIL " + test.getName() + ": " + e.getCause());
+                e.getCause().printStackTrace(System.out);
+            }
+        }
+        System.out.println((tests.length - failed) + " of " + tests.length + " tests passed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
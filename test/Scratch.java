@@ -0,0 +1,81 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scratch directories for the tests that touch files. The storage engines
+ * resolve "data/..." against the working directory, so a test that goes
+ * through them is run again in a child JVM whose working directory is a
+ * fresh directory under the system temp directory. The project's own data/
+ * is never read or written.
+ */
+public final class Scratch {
+
+    private static final String INSIDE_PROPERTY = "cms.test.scratch";
+
+    private Scratch() {
+    }
+
+    /**
+     * Runs a test's main method in a child JVM working in a new scratch
+     * directory, unless this JVM already is that child. Call it first in the
+     * test's main method and return if it returns true.
+     *
+     * @param test The test class.
+     * @return true if the test ran in a child JVM, false if the caller is the child and should run its checks.
+     * @throws Exception if the child JVM cannot be started or the test failed in it.
+     */
+    public static boolean runInScratchDirectory(Class<?> test) throws Exception {
+        if (System.getProperty(INSIDE_PROPERTY) != null) {
+            return false;
+        }
+        File directory = createDirectory(test.getName());
+        try {
+            List<String> classPath = new ArrayList<>();
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                classPath.add(new File(entry).getAbsolutePath());
+            }
+            File java = new File(new File(System.getProperty("java.home"), "bin"), "java");
+            Process child = new ProcessBuilder(java.getPath(), "-D" + INSIDE_PROPERTY + "=true",
+                                               "-cp", String.join(File.pathSeparator, classPath), test.getName())
+                .directory(directory)
+                .inheritIO()
+                .start();
+            int exitCode = child.waitFor();
+            if (exitCode != 0) {
+                throw new AssertionError(test.getName() + " failed in " + directory + " (exit code " + exitCode + ")");
+            }
+        } finally {
+            delete(directory);
+        }
+        return true;
+    }
+
+    /**
+     * Creates an empty directory under the system temp directory.
+     *
+     * @param prefix The start of the directory name.
+     * @return The directory.
+     * @throws IOException if it cannot be created.
+     */
+    public static File createDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix + "-").toFile();
+    }
+
+    /**
+     * Deletes a file or a directory with everything in it.
+     *
+     * @param file The file or directory.
+     */
+    public static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
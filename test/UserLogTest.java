@@ -0,0 +1,212 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks the user mutation log of TextFileStorageEngine: logged changes are
+ * replayed on top of users.txt at the next load, and a checkpoint writes them
+ * into users.txt and empties the log. Runs in a scratch directory.
+ */
+public class UserLogTest {
+
+    private static final File USERS_FILE = new File("data/users.txt");
+    private static final File LOG_FILE = new File("data/users.log");
+
+    public static void main(String[] args) throws Exception {
+        if (Scratch.runInScratchDirectory(UserLogTest.class)) {
+            return;
+        }
+        replaysUpdatesRenamesAndDeletes();
+        replaysChangesUnderTheNewName();
+        skipsRenameOntoExistingUser();
+        checkpointWritesTheLogIntoUsersFile();
+        checkpointAfterReplayedDeleteAndAdd();
+        checkpointAfterDeleteAndAddInSession();
+        shardedCheckpointAfterDeleteAndAdd();
+        shardedCheckpointAfterReplayedDeleteAndAdd();
+    }
+
+    // A new engine sees users.txt plus every logged change, in log order
+    private static void replaysUpdatesRenamesAndDeletes() {
+        Scratch.delete(new File("data"));
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        Student hesham = new Student("stu1", "pass1", "Hesham");
+        hesham.addCourse("Math", 90.0f, "A");
+        Student mona = new Student("stu2", "pass2", "Mona");
+        Instructor osama = new Instructor("ins1", "pass3", "Osama", "Math");
+        List<User> users = new ArrayList<>(Arrays.asList(hesham, mona, osama));
+        Check.isTrue(engine.saveUsers(users), "initial save");
+        String savedUsers = read(USERS_FILE);
+
+        hesham.setPassword("changed");
+        engine.logUserUpdate(hesham);
+        Student added = new Student("stu3", "pass4", "Salma");
+        engine.logUserUpdate(added);
+        engine.logUserRename("stu2", "stu2b");
+        engine.logUserDelete(osama);
+        Check.equal(savedUsers, read(USERS_FILE), "logging leaves users.txt alone");
+
+        List<User> loaded = new TextFileStorageEngine().loadUsers();
+        Check.equal(Arrays.asList("stu1", "stu2b", "stu3"), usernames(loaded), "users after replay");
+        Student replayed = (Student) loaded.get(0);
+        Check.equal("changed", replayed.getPassword(), "updated password");
+        Check.equal(Arrays.asList("Math"), replayed.getCourses(), "courses kept by the update");
+        Check.equal("Mona", ((Student) loaded.get(1)).getStudentName(), "renamed user keeps its record");
+        Check.equal("Salma", ((Student) loaded.get(2)).getStudentName(), "added user");
+    }
+
+    // Admin logs a rename and then the user's record under the new name
+    private static void replaysChangesUnderTheNewName() {
+        Scratch.delete(new File("data"));
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        Student student = new Student("old", "pass", "Nour");
+        Check.isTrue(engine.saveUsers(new ArrayList<>(Arrays.asList(student))), "initial save");
+
+        student.setUsername("new");
+        student.setPassword("secret");
+        engine.logUserRename("old", "new");
+        engine.logUserUpdate(student);
+
+        List<User> loaded = new TextFileStorageEngine().loadUsers();
+        Check.equal(Arrays.asList("new"), usernames(loaded), "one user under the new name");
+        Check.equal("secret", loaded.get(0).getPassword(), "change logged after the rename");
+    }
+
+    // Two users with one name could not be told apart by later records
+    private static void skipsRenameOntoExistingUser() {
+        Scratch.delete(new File("data"));
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> users = new ArrayList<>(Arrays.asList(
+            new Student("a", "pass", "Amir"), new Student("b", "pass", "Bassem")));
+        Check.isTrue(engine.saveUsers(users), "initial save");
+
+        engine.logUserRename("a", "b");
+        engine.logUserDelete(users.get(1));
+
+        List<User> loaded = new TextFileStorageEngine().loadUsers();
+        Check.equal(Arrays.asList("a"), usernames(loaded), "rename skipped, delete applied to b");
+        Check.equal("Amir", ((Student) loaded.get(0)).getStudentName(), "a is untouched");
+    }
+
+    // A checkpoint is due after 500 records; saving then empties the log
+    private static void checkpointWritesTheLogIntoUsersFile() {
+        Scratch.delete(new File("data"));
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> users = new ArrayList<>(Arrays.asList(new Student("stu1", "pass", "Hesham")));
+        Check.isTrue(engine.saveUsers(users), "initial save");
+
+        for (int i = 0; i < 499; i++) {
+            engine.logUserUpdate(new Student("bulk" + i, "pass", "Student " + i));
+        }
+        Check.isTrue(!engine.isUserLogCheckpointDue(), "no checkpoint at 499 records");
+        engine.logUserDelete(users.get(0));
+        Check.isTrue(engine.isUserLogCheckpointDue(), "checkpoint due at 500 records");
+
+        TextFileStorageEngine restarted = new TextFileStorageEngine();
+        List<User> loaded = restarted.loadUsers();
+        Check.isTrue(restarted.isUserLogCheckpointDue(), "replayed records count towards the checkpoint");
+        Check.equal(499, loaded.size(), "users after replay");
+        Check.isTrue(restarted.saveUsers(loaded), "checkpoint save");
+        Check.equal(0L, LOG_FILE.length(), "log truncated by the checkpoint");
+        Check.isTrue(!restarted.isUserLogCheckpointDue(), "no checkpoint due after saving");
+        Check.isTrue(!read(USERS_FILE).contains("|stu1|"), "deleted user left out of users.txt");
+
+        List<User> reloaded = new TextFileStorageEngine().loadUsers();
+        Check.equal(usernames(loaded), usernames(reloaded), "users.txt holds what the log held");
+    }
+
+    // One user deleted and one added keep the count the same; both must reach users.txt
+    private static void checkpointAfterReplayedDeleteAndAdd() throws IOException {
+        Scratch.delete(new File("data"));
+        List<User> users = new ArrayList<>(Arrays.asList(new Student("a", "pw", "A"), new Student("b", "pw", "B")));
+        Check.isTrue(new TextFileStorageEngine().saveUsers(users), "initial save");
+        Files.write(LOG_FILE.toPath(), "DELETE|a\nPUT|STUDENT|c|pw|C|\n".getBytes(StandardCharsets.UTF_8));
+
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> loaded = engine.loadUsers();
+        Check.equal(Arrays.asList("b", "c"), usernames(loaded), "users after replay");
+        Check.isTrue(engine.saveUsers(loaded), "checkpoint save");
+        Check.equal(Arrays.asList("b", "c"), usernames(new TextFileStorageEngine().loadUsers()),
+                    "users after the checkpoint");
+    }
+
+    // The same through the calls Admin makes when it deletes and adds a user
+    private static void checkpointAfterDeleteAndAddInSession() {
+        Scratch.delete(new File("data"));
+        List<User> users = new ArrayList<>(Arrays.asList(new Student("a", "pw", "A"), new Student("b", "pw", "B")));
+        Check.isTrue(new TextFileStorageEngine().saveUsers(users), "initial save");
+
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> loaded = engine.loadUsers();
+        User deleted = loaded.remove(0);
+        engine.logUserDelete(deleted);
+        Student added = new Student("c", "pw", "C");
+        loaded.add(added);
+        engine.logUserUpdate(added);
+        Check.isTrue(engine.saveUsers(loaded), "checkpoint save");
+        Check.equal(0L, LOG_FILE.length(), "log truncated");
+        Check.equal(Arrays.asList("b", "c"), usernames(new TextFileStorageEngine().loadUsers()),
+                    "users after the checkpoint");
+    }
+
+    // The shard holding a and b must see that one left and one came in
+    private static void shardedCheckpointAfterDeleteAndAdd() throws IOException {
+        writeShards("STUDENT|a|pw|A|", "STUDENT|b|pw|B|");
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> loaded = engine.loadUsers();
+        Check.equal(Arrays.asList("a", "b"), usernames(loaded), "users from the shard");
+
+        User deleted = loaded.remove(0);
+        engine.logUserDelete(deleted);
+        Student added = new Student("c", "pw", "C");
+        loaded.add(added);
+        engine.logUserUpdate(added);
+        Check.isTrue(engine.saveUsers(loaded), "checkpoint save");
+        Check.equal(Arrays.asList("b", "c"), usernames(new TextFileStorageEngine().loadUsers()),
+                    "sharded users after the checkpoint");
+    }
+
+    private static void shardedCheckpointAfterReplayedDeleteAndAdd() throws IOException {
+        writeShards("STUDENT|a|pw|A|", "STUDENT|b|pw|B|");
+        Files.write(LOG_FILE.toPath(), "DELETE|a\nPUT|STUDENT|c|pw|C|\n".getBytes(StandardCharsets.UTF_8));
+        TextFileStorageEngine engine = new TextFileStorageEngine();
+        List<User> loaded = engine.loadUsers();
+        Check.equal(Arrays.asList("b", "c"), usernames(loaded), "sharded users after replay");
+        Check.isTrue(engine.saveUsers(loaded), "checkpoint save");
+        Check.equal(Arrays.asList("b", "c"), usernames(new TextFileStorageEngine().loadUsers()),
+                    "sharded users after the checkpoint");
+    }
+
+    // One shard per role, with the given records in student-0.txt
+    private static void writeShards(String... studentRecords) throws IOException {
+        Scratch.delete(new File("data"));
+        File shardDirectory = new File("data/users");
+        Check.isTrue(shardDirectory.mkdirs(), "shard directory created");
+        Files.write(new File(shardDirectory, "shards.txt").toPath(), "1\n".getBytes(StandardCharsets.UTF_8));
+        StringBuilder students = new StringBuilder("# Users Data - type|username|password|name|additionalData\n");
+        for (String record : studentRecords) {
+            students.append(record).append('\n');
+        }
+        Files.write(new File(shardDirectory, "student-0.txt").toPath(), students.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> usernames(List<User> users) {
+        List<String> names = new ArrayList<>();
+        for (User user : users) {
+            names.add(user.getUsername());
+        }
+        return names;
+    }
+
+    private static String read(File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError("Error reading " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that UserRecordFile patches changed records into their slots in
+ * users.txt, moves records that outgrew their slot to the end, blanks the
+ * slots of removed users and leaves a file changed by someone else alone.
+ */
+public class UserRecordFileTest {
+
+    public static void main(String[] args) throws Exception {
+        File directory = Scratch.createDirectory("UserRecordFileTest");
+        try {
+            patchesChangedRecordInPlace(new File(directory, "patch.txt"));
+            movesRecordThatOutgrewItsSlot(new File(directory, "move.txt"));
+            blanksSlotsOfRemovedUsers(new File(directory, "remove.txt"));
+            refusesFileChangedElsewhere(new File(directory, "external.txt"));
+        } finally {
+            Scratch.delete(directory);
+        }
+    }
+
+    // A record that still fits is written over its slot; nothing else moves
+    private static void patchesChangedRecordInPlace(File file) throws IOException {
+        List<User> users = sampleUsers();
+        UserRecordFile records = UserRecordFile.write(file, users, TextFileStorageEngine::formatUser);
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        users.get(1).setPassword("longer-password");
+        Check.equal(1, records.update(users, TextFileStorageEngine::formatUser), "one record written");
+        byte[] after = Files.readAllBytes(file.toPath());
+        Check.equal(before.length, after.length, "file length after patching");
+        String text = new String(after, StandardCharsets.UTF_8);
+        Check.isTrue(text.contains("STUDENT|stu2|longer-password|Mona|"), "patched record in the file");
+        int slotStart = text.indexOf("STUDENT|stu2|");
+        Check.equal(new String(before, 0, slotStart, StandardCharsets.UTF_8), text.substring(0, slotStart),
+                    "records before the slot unchanged");
+
+        Check.equal(0, records.update(users, TextFileStorageEngine::formatUser), "nothing left to write");
+        List<User> loaded = load(file);
+        Check.equal(usernames(users), usernames(loaded), "users in file order");
+        Check.equal("longer-password", loaded.get(1).getPassword(), "patched password read back");
+    }
+
+    // A record too large for its slot is appended and its old slot blanked
+    private static void movesRecordThatOutgrewItsSlot(File file) throws IOException {
+        List<User> users = sampleUsers();
+        UserRecordFile records = UserRecordFile.write(file, users, TextFileStorageEngine::formatUser);
+        long lengthBefore = file.length();
+
+        Student grown = (Student) users.get(0);
+        for (int i = 0; i < 10; i++) {
+            grown.addCourse("Elective Course " + i, 75.0f, "C");
+        }
+        Check.equal(1, records.update(users, TextFileStorageEngine::formatUser), "one record written");
+        Check.isTrue(file.length() > lengthBefore, "moved record appended");
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Check.equal(text.indexOf("STUDENT|stu1|"), text.lastIndexOf("STUDENT|stu1|"), "record in the file once");
+
+        List<User> loaded = load(file);
+        Check.equal(Arrays.asList("stu2", "ins1", "stu1"), usernames(loaded), "moved record read last");
+        Check.equal(11, ((Student) loaded.get(2)).getCourses().size(), "moved record read back whole");
+        Check.isTrue(records.canUpdate(), "still patchable with one slot blanked");
+    }
+
+    private static void blanksSlotsOfRemovedUsers(File file) throws IOException {
+        List<User> users = sampleUsers();
+        UserRecordFile records = UserRecordFile.write(file, users, TextFileStorageEngine::formatUser);
+        long lengthBefore = file.length();
+
+        users.remove(1);
+        Student added = new Student("stu3", "pass", "Salma");
+        users.add(added);
+        records.track(added);
+        Check.equal(1, records.update(users, TextFileStorageEngine::formatUser), "only the new user written");
+        Check.isTrue(!new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).contains("|stu2|"),
+                     "removed user blanked out");
+        Check.isTrue(file.length() > lengthBefore, "new user appended");
+        Check.equal(Arrays.asList("stu1", "ins1", "stu3"), usernames(load(file)), "users read back");
+    }
+
+    // An edit by hand must not be overwritten by slot patches based on stale offsets
+    private static void refusesFileChangedElsewhere(File file) throws IOException {
+        List<User> users = sampleUsers();
+        UserRecordFile records = UserRecordFile.write(file, users, TextFileStorageEngine::formatUser);
+        Check.isTrue(records.canUpdate(), "patchable after writing");
+        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8, true)) {
+            writer.write("STUDENT|stu9|pass|Added By Hand|\n");
+        }
+        Check.isTrue(!records.canUpdate(), "not patchable after an outside append");
+    }
+
+    private static List<User> sampleUsers() {
+        Student hesham = new Student("stu1", "pass1", "Hesham");
+        hesham.addCourse("Math", 90.0f, "A");
+        return new ArrayList<>(Arrays.asList(
+            hesham, new Student("stu2", "pass2", "Mona"), new Instructor("ins1", "pass3", "Osama", "Math")));
+    }
+
+    private static List<User> load(File file) throws IOException {
+        TextFileStorageEngine.UserRecordParser parser = new TextFileStorageEngine.UserRecordParser();
+        List<User> users = new ArrayList<>();
+        UserRecordFile.load(file, line -> parser.parse(line, 0), users);
+        return users;
+    }
+
+    private static List<String> usernames(List<User> users) {
+        List<String> names = new ArrayList<>();
+        for (User user : users) {
+            names.add(user.getUsername());
+        }
+        return names;
+    }
+}